@@ -0,0 +1,82 @@
+package com.tigerbeetle.client.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.client.repository.AccountRepository;
+import com.tigerbeetle.client.repository.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializing a page of results: through the mapped records with Jackson, as the JSON endpoints do,
+ * against writing straight from the batch, as the streaming endpoints do.
+ */
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"1", "128", "1024", "8190"})
+    int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BatchJsonWriter writer = new BatchJsonWriter();
+    private TransferBatch transferBatch;
+    private AccountBatch accountBatch;
+
+    @Setup
+    public void setUp() {
+        transferBatch = BenchmarkData.transferBatch(batchSize);
+        accountBatch = BenchmarkData.accountBatch(batchSize);
+    }
+
+    @Benchmark
+    public void transfersViaRecords() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            transferBatch.beforeFirst();
+            while (transferBatch.next()) {
+                objectMapper.writeValue(generator, AccountRepository.mapFromCurrentTransferBatch(transferBatch));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void transfersFromBatch() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            transferBatch.beforeFirst();
+            while (transferBatch.next()) {
+                writer.writeTransfer(generator, transferBatch);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void accountsViaRecords() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            accountBatch.beforeFirst();
+            while (accountBatch.next()) {
+                objectMapper.writeValue(generator, AccountRepository.mapFromCurrentAccountBatch(accountBatch));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void accountsFromBatch() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            accountBatch.beforeFirst();
+            while (accountBatch.next()) {
+                writer.writeAccount(generator, accountBatch);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Transfer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    public static List<Transfer> transfers(int size) {
+        var random = ThreadLocalRandom.current();
+        var transfers = new ArrayList<Transfer>(size);
+        for (int i = 0; i < size; i++) {
+            transfers.add(Transfer.builder()
+                    .amount(BigInteger.valueOf(random.nextLong(1, 1_000_000)))
+                    .ledger(1)
+                    .code(500)
+                    .debitAccountId(UUID.randomUUID())
+                    .creditAccountId(UUID.randomUUID())
+                    .userData128(UUID.randomUUID())
+                    .userData64(random.nextLong())
+                    .userData32(random.nextInt())
+                    .build());
+        }
+        return transfers;
+    }
+
+    public static TransferBatch transferBatch(int size) {
+        var random = ThreadLocalRandom.current();
+        var batch = new TransferBatch(size);
+        long timestamp = System.currentTimeMillis() * 1_000_000L;
+        for (int i = 0; i < size; i++) {
+            batch.add();
+            batch.setId(UInt128.id());
+            batch.setDebitAccountId(UInt128.id());
+            batch.setCreditAccountId(UInt128.id());
+            batch.setAmount(random.nextLong(1, 1_000_000));
+            batch.setUserData128(UInt128.id());
+            batch.setUserData64(random.nextLong());
+            batch.setUserData32(random.nextInt());
+            batch.setLedger(1);
+            batch.setCode(500);
+            batch.setFlags(TransferFlags.NONE);
+            batch.setTimestamp(timestamp + i);
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    public static AccountBatch accountBatch(int size) {
+        var random = ThreadLocalRandom.current();
+        var batch = new AccountBatch(size);
+        long timestamp = System.currentTimeMillis() * 1_000_000L;
+        for (int i = 0; i < size; i++) {
+            batch.add();
+            batch.setId(UInt128.id());
+            batch.setUserData128(UInt128.asBytes(BigInteger.valueOf(random.nextLong(0, Long.MAX_VALUE))));
+            batch.setCreditsPosted(BigInteger.valueOf(random.nextLong(0, Long.MAX_VALUE)));
+            batch.setDebitsPosted(BigInteger.valueOf(random.nextLong(0, Long.MAX_VALUE)));
+            batch.setLedger(1);
+            batch.setCode(1000);
+            batch.setTimestamp(timestamp + i);
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+}
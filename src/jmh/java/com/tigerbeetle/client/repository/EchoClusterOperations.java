@@ -0,0 +1,99 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.*;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stands in for the cluster: every transfer is accepted and the last created batch is handed back
+ * by the transfer lookup, so the repository round trip runs without a replica. Every other lookup and
+ * query answers with an empty batch.
+ */
+class EchoClusterOperations implements ClusterOperations {
+    private static final CreateTransferResultBatch NO_ERRORS = new CreateTransferResultBatch(0);
+
+    private TransferBatch lastCreated = new TransferBatch(0);
+
+    @Override
+    public CreateAccountResultBatch createAccounts(AccountBatch batch) {
+        return new CreateAccountResultBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch) {
+        return CompletableFuture.completedFuture(createAccounts(batch));
+    }
+
+    @Override
+    public CreateTransferResultBatch createTransfers(TransferBatch batch) {
+        lastCreated = batch;
+        return NO_ERRORS;
+    }
+
+    @Override
+    public CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch) {
+        return CompletableFuture.completedFuture(createTransfers(batch));
+    }
+
+    @Override
+    public AccountBatch lookupAccounts(IdBatch batch) {
+        return new AccountBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch) {
+        return CompletableFuture.completedFuture(lookupAccounts(batch));
+    }
+
+    @Override
+    public TransferBatch lookupTransfers(IdBatch batch) {
+        lastCreated.beforeFirst();
+        return lastCreated;
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch) {
+        return CompletableFuture.completedFuture(lookupTransfers(batch));
+    }
+
+    @Override
+    public TransferBatch getAccountTransfers(AccountFilter filter) {
+        return new TransferBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter) {
+        return CompletableFuture.completedFuture(getAccountTransfers(filter));
+    }
+
+    @Override
+    public AccountBalanceBatch getAccountBalances(AccountFilter filter) {
+        return new AccountBalanceBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter) {
+        return CompletableFuture.completedFuture(getAccountBalances(filter));
+    }
+
+    @Override
+    public AccountBatch queryAccounts(QueryFilter filter) {
+        return new AccountBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter) {
+        return CompletableFuture.completedFuture(queryAccounts(filter));
+    }
+
+    @Override
+    public TransferBatch queryTransfers(QueryFilter filter) {
+        return new TransferBatch(0);
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter) {
+        return CompletableFuture.completedFuture(queryTransfers(filter));
+    }
+}
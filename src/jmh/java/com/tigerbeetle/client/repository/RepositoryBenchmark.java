@@ -0,0 +1,95 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Account;
+import com.tigerbeetle.client.dto.Transfer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+
+    @Param({"1", "128", "1024", "8190"})
+    int batchSize;
+
+    private List<Transfer> transfers;
+    private TransferBatch transferBatch;
+    private AccountBatch accountBatch;
+    private TransferBatcher transferBatcher;
+    private LookupBatcher lookupBatcher;
+    private AccountRepository repository;
+
+    @Setup
+    public void setUp() {
+        var client = new EchoClusterOperations();
+        transferBatcher = new TransferBatcher(client, TransferBatcher.MAX_BATCH_SIZE, 500, 4, 65_520);
+        lookupBatcher = new LookupBatcher(client, TransferBatcher.MAX_BATCH_SIZE, 0, 4, 65_520);
+        repository = new AccountRepository(client, transferBatcher, new AccountCache(10_000, 0), new IdempotencyKeys(0),
+                new AccountStripes(1, List.of(), 60_000), lookupBatcher);
+        transfers = BenchmarkData.transfers(batchSize);
+        transferBatch = BenchmarkData.transferBatch(batchSize);
+        accountBatch = BenchmarkData.accountBatch(batchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        transferBatcher.close();
+        lookupBatcher.close();
+    }
+
+    @Benchmark
+    public TransferBatch buildLinkedTransferBatch() {
+        return AccountRepository.newLinkedTransferBatch(transfers, new ArrayList<>(batchSize));
+    }
+
+    @Benchmark
+    public List<Transfer> createBatchTransfer() {
+        return repository.createBatchTransfer(transfers);
+    }
+
+    @Benchmark
+    public void mapTransfers(Blackhole blackhole) {
+        transferBatch.beforeFirst();
+        while (transferBatch.next()) {
+            blackhole.consume(AccountRepository.mapFromCurrentTransferBatch(transferBatch));
+        }
+    }
+
+    @Benchmark
+    public void mapAccounts(Blackhole blackhole) {
+        accountBatch.beforeFirst();
+        while (accountBatch.next()) {
+            blackhole.consume(AccountRepository.mapFromCurrentAccountBatch(accountBatch));
+        }
+    }
+
+    @Benchmark
+    public void idsToUuid(Blackhole blackhole) {
+        transferBatch.beforeFirst();
+        while (transferBatch.next()) {
+            blackhole.consume(UInt128.asUUID(transferBatch.getId()));
+        }
+    }
+
+    @Benchmark
+    public void uuidsToBytes(Blackhole blackhole) {
+        for (Transfer transfer : transfers) {
+            UUID id = transfer.debitAccountId();
+            blackhole.consume(UInt128.asBytes(id));
+        }
+    }
+
+    @Benchmark
+    public void formatTimestamps(Blackhole blackhole) {
+        transferBatch.beforeFirst();
+        while (transferBatch.next()) {
+            blackhole.consume(AccountRepository.convertTigerBeetleTimestampToDateTime(transferBatch.getTimestamp()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.tigerbeetle.client.loadgen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Chooses which of the {@code n} prepared accounts a request touches.
+ * <ul>
+ *     <li>{@code uniform}: every account equally likely.</li>
+ *     <li>{@code zipf}: rank {@code k} drawn with weight {@code 1/k^s}, {@code s} being the skew parameter.</li>
+ *     <li>{@code hotspot}: the skew parameter is the share of traffic sent to the hottest 1% of accounts.</li>
+ * </ul>
+ */
+interface AccountPicker {
+
+    int next(SplittableRandom random);
+
+    static AccountPicker of(String skew, double parameter, int n) {
+        return switch (skew) {
+            case "uniform" -> random -> random.nextInt(n);
+            case "zipf" -> zipf(parameter, n);
+            case "hotspot" -> hotspot(parameter, n);
+            default -> throw new IllegalArgumentException("Unknown skew " + skew);
+        };
+    }
+
+    private static AccountPicker zipf(double exponent, int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        double total = sum;
+        return random -> {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            return Math.min(index >= 0 ? index : -index - 1, n - 1);
+        };
+    }
+
+    private static AccountPicker hotspot(double hotShare, int n) {
+        int hot = Math.max(1, n / 100);
+        return random -> random.nextDouble() < hotShare || hot == n
+                ? random.nextInt(hot)
+                : hot + random.nextInt(n - hot);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tigerbeetle.client.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-scenario latency histograms. Latency runs from the intended start of an operation, not from
+ * when it was actually sent, so a stalled server shows up in the tail instead of being omitted.
+ * Operations meant to start before {@code measureFrom} are warmup and are not recorded.
+ */
+class LatencyReport {
+    private final Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, Histogram> totals = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+    private final long measureFrom;
+    private Histogram recycled;
+
+    LatencyReport(long measureFrom) {
+        this.measureFrom = measureFrom;
+        for (Scenario scenario : Scenario.values()) {
+            recorders.put(scenario, new Recorder(3));
+            totals.put(scenario, new Histogram(3));
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    void record(Scenario scenario, long intendedStart, long end, boolean failed) {
+        if (intendedStart - measureFrom < 0) {
+            return;
+        }
+        if (failed) {
+            errors.get(scenario).increment();
+        }
+        recorders.get(scenario).recordValue(Math.max(0, end - intendedStart));
+    }
+
+    /**
+     * Folds everything recorded since the previous call into the totals and prints one progress line.
+     */
+    synchronized void tick(PrintStream out, double seconds) {
+        long count = 0;
+        var interval = new Histogram(3);
+        for (Scenario scenario : Scenario.values()) {
+            recycled = recorders.get(scenario).getIntervalHistogram(recycled);
+            totals.get(scenario).add(recycled);
+            interval.add(recycled);
+            count += recycled.getTotalCount();
+        }
+        if (count > 0) {
+            out.printf("%8.0f ops/s  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms%n", count / seconds,
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)), millis(interval.getMaxValue()));
+        }
+    }
+
+    synchronized void summarize(PrintStream out, double measuredSeconds) {
+        tick(out, measuredSeconds);
+        out.printf("%n%-16s %10s %10s %10s %10s %10s %10s %8s%n", "scenario", "ops", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (Scenario scenario : Scenario.values()) {
+            var histogram = totals.get(scenario);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            out.printf("%-16s %10d %10.0f %10.3f %10.3f %10.3f %10.3f %8d%n", scenario.key(), histogram.getTotalCount(),
+                    histogram.getTotalCount() / measuredSeconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    errors.get(scenario).sum());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tigerbeetle.client.loadgen;
+
+import java.net.http.HttpClient;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the client controller with a configurable request mix and reports throughput and latency.
+ * <p>
+ * Open loop ({@code --mode=open}) issues operations on a fixed schedule of {@code --rate} per second,
+ * with at most {@code --concurrency} outstanding, and measures each from its scheduled start.
+ * Closed loop ({@code --mode=closed}) runs {@code --concurrency} workers that send back to back; its
+ * latencies show what a caller waits, not what an arrival-rate workload would see.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadOptions.parse(args);
+        if (options.accounts() < 2) {
+            throw new IllegalArgumentException("--accounts must be at least 2");
+        }
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var http = HttpClient.newBuilder().executor(executor).build();
+            var workload = new Workload(http, options);
+            System.out.printf("Creating %d accounts at %s%n", options.accounts(), options.baseUrl());
+            workload.prepareAccounts();
+
+            long start = System.nanoTime();
+            long measureFrom = start + options.warmup().toNanos();
+            long end = measureFrom + options.duration().toNanos();
+            var report = new LatencyReport(measureFrom);
+
+            var ticker = Executors.newSingleThreadScheduledExecutor();
+            ticker.scheduleAtFixedRate(() -> report.tick(System.out, 1.0), 1, 1, TimeUnit.SECONDS);
+            System.out.printf("%s loop, %s warmup, %s measured%n", options.openLoop() ? "Open" : "Closed",
+                    options.warmup(), options.duration());
+            try {
+                if (options.openLoop()) {
+                    runOpenLoop(workload, report, options, start, end);
+                } else {
+                    runClosedLoop(workload, report, options, end);
+                }
+            } finally {
+                ticker.shutdownNow();
+            }
+            // the periodic ticks already folded in everything but the last partial second
+            report.summarize(System.out, options.duration().toNanos() / 1e9);
+        }
+    }
+
+    private static void runOpenLoop(Workload workload, LatencyReport report, LoadOptions options, long start, long end)
+            throws InterruptedException {
+        var outstanding = new Semaphore(options.concurrency());
+        var random = new SplittableRandom();
+        double intervalNanos = 1e9 / options.rate();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.acquire();
+            var scenario = workload.pick(random);
+            workload.execute(scenario, random).whenComplete((ok, error) -> {
+                report.record(scenario, intended, System.nanoTime(), error != null || !ok);
+                outstanding.release();
+            });
+        }
+        outstanding.acquire(options.concurrency());
+    }
+
+    private static void runClosedLoop(Workload workload, LatencyReport report, LoadOptions options, long end)
+            throws InterruptedException {
+        var workers = new Thread[options.concurrency()];
+        var seeds = new SplittableRandom();
+        for (int w = 0; w < workers.length; w++) {
+            var random = seeds.split();
+            workers[w] = Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() - end < 0) {
+                    var scenario = workload.pick(random);
+                    long started = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = !workload.execute(scenario, random).join();
+                    } catch (RuntimeException e) {
+                        failed = true;
+                    }
+                    report.record(scenario, started, System.nanoTime(), failed);
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.tigerbeetle.client.loadgen;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}.
+ */
+record LoadOptions(
+        String baseUrl,
+        boolean openLoop,
+        double rate,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        int accounts,
+        String skew,
+        double skewParameter,
+        int batchSize,
+        int ledger,
+        int code,
+        Map<Scenario, Integer> mix) {
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int split = arg.indexOf('=');
+            values.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        var mix = new HashMap<Scenario, Integer>();
+        for (Scenario scenario : Scenario.values()) {
+            mix.put(scenario, Integer.parseInt(values.getOrDefault("mix." + scenario.key(), scenario == Scenario.BATCH_TRANSFERS ? "1" : "0")));
+        }
+        String mode = values.getOrDefault("mode", "open");
+        if (!mode.equals("open") && !mode.equals("closed")) {
+            throw new IllegalArgumentException("--mode must be open or closed");
+        }
+        return new LoadOptions(
+                values.getOrDefault("url", "http://localhost:8080/v1/tiger-beetle"),
+                mode.equals("open"),
+                Double.parseDouble(values.getOrDefault("rate", "1000")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                Integer.parseInt(values.getOrDefault("accounts", "10000")),
+                values.getOrDefault("skew", "uniform"),
+                Double.parseDouble(values.getOrDefault("skew-parameter", "1.0")),
+                Integer.parseInt(values.getOrDefault("batch-size", "100")),
+                Integer.parseInt(values.getOrDefault("ledger", "1")),
+                Integer.parseInt(values.getOrDefault("code", "1")),
+                mix);
+    }
+}
@@ -0,0 +1,21 @@
+package com.tigerbeetle.client.loadgen;
+
+/**
+ * One request shape against the client controller. {@code --mix.<key>=<weight>} sets how often it is picked.
+ */
+enum Scenario {
+    BATCH_TRANSFERS("batch-transfers"),
+    PENDING_TRANSFER("pending"),
+    ACCOUNT_LOOKUP("lookup"),
+    TRANSFER_HISTORY("history");
+
+    private final String key;
+
+    Scenario(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+}
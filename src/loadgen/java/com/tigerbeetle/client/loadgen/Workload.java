@@ -0,0 +1,164 @@
+package com.tigerbeetle.client.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builds and sends the requests of each {@link Scenario}. Bodies are written by hand so that the
+ * generator spends as little CPU as possible per request.
+ */
+class Workload {
+    private static final int ACCOUNTS_PER_REQUEST = 1000;
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoadOptions options;
+    private final AccountPicker picker;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    private List<UUID> accounts = List.of();
+
+    Workload(HttpClient http, LoadOptions options) {
+        this.http = http;
+        this.options = options;
+        this.picker = AccountPicker.of(options.skew(), options.skewParameter(), options.accounts());
+        this.cumulativeWeights = new int[Scenario.values().length];
+        int sum = 0;
+        for (Scenario scenario : Scenario.values()) {
+            sum += options.mix().get(scenario);
+            cumulativeWeights[scenario.ordinal()] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("At least one --mix.<scenario> weight must be positive");
+        }
+        this.totalWeight = sum;
+    }
+
+    /**
+     * Creates the accounts every scenario draws from. Accounts are funded by nobody, so none of them may
+     * carry a balance limit.
+     */
+    void prepareAccounts() throws IOException, InterruptedException {
+        var created = new ArrayList<UUID>(options.accounts());
+        while (created.size() < options.accounts()) {
+            int count = Math.min(ACCOUNTS_PER_REQUEST, options.accounts() - created.size());
+            var body = new StringBuilder("[");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append("{\"accountNumber\":").append(created.size() + i + 1)
+                        .append(",\"ledger\":").append(options.ledger())
+                        .append(",\"code\":").append(options.code()).append('}');
+            }
+            body.append(']');
+            var response = http.send(post("/accounts", body.toString()).header("Prefer", "return=minimal").build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Creating accounts failed with " + response.statusCode() + ": " + response.body());
+            }
+            for (JsonNode result : objectMapper.readTree(response.body())) {
+                created.add(UUID.fromString(result.get("id").asText()));
+            }
+        }
+        accounts = created;
+    }
+
+    Scenario pick(SplittableRandom random) {
+        int draw = random.nextInt(totalWeight);
+        for (Scenario scenario : Scenario.values()) {
+            if (draw < cumulativeWeights[scenario.ordinal()]) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Sends one operation and completes with whether it succeeded.
+     */
+    CompletableFuture<Boolean> execute(Scenario scenario, SplittableRandom random) {
+        return switch (scenario) {
+            case BATCH_TRANSFERS -> send(post("/batch/transfers", transfers(random, options.batchSize()))
+                    .header("Prefer", "return=minimal"));
+            case PENDING_TRANSFER -> pendingThenPost(random);
+            case ACCOUNT_LOOKUP -> send(HttpRequest.newBuilder(uri("/accounts/" + account(random))).GET());
+            case TRANSFER_HISTORY -> send(post("/transactions/history",
+                    "{\"accountId\":\"" + account(random) + "\",\"debits\":true,\"credits\":true,\"limit\":" + options.batchSize() + "}"));
+        };
+    }
+
+    private CompletableFuture<Boolean> pendingThenPost(SplittableRandom random) {
+        long amount = 1 + random.nextInt(100);
+        String pending = transfer(random, amount);
+        return http.sendAsync(post("/pending/transfers", pending).header("Prefer", "return=minimal").build(),
+                        HttpResponse.BodyHandlers.ofString())
+                .thenCompose(response -> {
+                    if (response.statusCode() != 200) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    String pendingId;
+                    try {
+                        pendingId = objectMapper.readTree(response.body()).get("id").asText();
+                    } catch (IOException e) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    var post = HttpRequest.newBuilder(uri("/pending/transfers"))
+                            .header("Content-Type", "application/json")
+                            .header("Prefer", "return=minimal")
+                            .PUT(HttpRequest.BodyPublishers.ofString("{\"pendingId\":\"" + pendingId + "\",\"amount\":" + amount + "}"));
+                    return send(post);
+                });
+    }
+
+    private CompletableFuture<Boolean> send(HttpRequest.Builder request) {
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> error == null && response.statusCode() < 400);
+    }
+
+    private String transfers(SplittableRandom random, int count) {
+        var body = new StringBuilder(count * 160).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(transfer(random, 1 + random.nextInt(1000)));
+        }
+        return body.append(']').toString();
+    }
+
+    private String transfer(SplittableRandom random, long amount) {
+        UUID debit = account(random);
+        UUID credit = account(random);
+        while (credit.equals(debit)) {
+            credit = accounts.get(random.nextInt(accounts.size()));
+        }
+        return "{\"debitAccountId\":\"" + debit + "\",\"creditAccountId\":\"" + credit
+                + "\",\"amount\":" + amount + ",\"ledger\":" + options.ledger() + ",\"code\":" + options.code() + "}";
+    }
+
+    private UUID account(SplittableRandom random) {
+        return accounts.get(picker.next(random));
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create(options.baseUrl() + path);
+    }
+}
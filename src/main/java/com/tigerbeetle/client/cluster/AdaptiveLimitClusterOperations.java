@@ -0,0 +1,158 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the requests in flight to the delegate by a limit learned from their round trips (AIMD).
+ * Each operation keeps a baseline that follows its fastest recent round trips. A round trip longer
+ * than {@code tolerance} times the baseline, or a failed call, multiplies the limit by
+ * {@code backoffRatio}, once per round of requests; any other sample grows it by one per limit's
+ * worth of samples while the limit is actually in use. A call over the limit is never queued: it
+ * fails at once with {@link ClusterOverloadedException}.
+ */
+public class AdaptiveLimitClusterOperations extends ForwardingClusterOperations {
+    private static final double BASELINE_FALL = 0.5;
+    private static final double BASELINE_RISE = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final double[] baselineNanos = new double[ClusterOperation.values().length];
+    private volatile double limit;
+    private long lastDecreaseAt;
+
+    public AdaptiveLimitClusterOperations(ClusterOperations delegate, int initialLimit, int minLimit, int maxLimit,
+                                          double backoffRatio, double tolerance) {
+        this(delegate, initialLimit, minLimit, maxLimit, backoffRatio, tolerance, System::nanoTime);
+    }
+
+    AdaptiveLimitClusterOperations(ClusterOperations delegate, int initialLimit, int minLimit, int maxLimit,
+                                   double backoffRatio, double tolerance, LongSupplier nanoClock) {
+        super(delegate);
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limiter limits must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("limiter backoff-ratio must be between 0 and 1");
+        }
+        if (tolerance <= 1) {
+            throw new IllegalArgumentException("limiter tolerance must be greater than 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        this.lastDecreaseAt = nanoClock.getAsLong();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+        int load = acquire(operation);
+        long startedAt = nanoClock.getAsLong();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            release(operation, load, startedAt, failed);
+        }
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+        int load;
+        try {
+            load = acquire(operation);
+        } catch (ClusterOverloadedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long startedAt = nanoClock.getAsLong();
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            release(operation, load, startedAt, true);
+            throw e;
+        }
+        response.whenComplete((value, error) -> release(operation, load, startedAt, error != null));
+        return response;
+    }
+
+    /**
+     * Takes a slot if one is free under the current limit and returns the requests in flight
+     * including this one.
+     */
+    private int acquire(ClusterOperation operation) {
+        while (true) {
+            int current = inFlight.get();
+            int allowed = (int) limit;
+            if (current >= allowed) {
+                rejected.incrementAndGet();
+                throw new ClusterOverloadedException(operation.name(), allowed);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void release(ClusterOperation operation, int load, long startedAt, boolean failed) {
+        inFlight.decrementAndGet();
+        long rtt = nanoClock.getAsLong() - startedAt;
+        synchronized (this) {
+            if (failed) {
+                decrease(startedAt);
+                return;
+            }
+            int slot = operation.ordinal();
+            double baseline = baselineNanos[slot];
+            if (baseline == 0) {
+                baselineNanos[slot] = Math.max(rtt, 1);
+                return;
+            }
+            baselineNanos[slot] = baseline + (rtt - baseline) * (rtt < baseline ? BASELINE_FALL : BASELINE_RISE);
+            if (rtt > tolerance * baseline) {
+                decrease(startedAt);
+            } else if (load * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * Backs off at most once per round: requests started before the last decrease saw the old
+     * limit, so their slow answers are not held against the new one.
+     */
+    private void decrease(long startedAt) {
+        if (startedAt - lastDecreaseAt <= 0) {
+            return;
+        }
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecreaseAt = nanoClock.getAsLong();
+    }
+}
@@ -0,0 +1,98 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+
+import java.util.concurrent.CompletableFuture;
+
+public class ClientClusterOperations implements ClusterOperations, AutoCloseable {
+    private final Client client;
+
+    public ClientClusterOperations(Client client) {
+        this.client = client;
+    }
+
+    @Override
+    public CreateAccountResultBatch createAccounts(AccountBatch batch) {
+        return client.createAccounts(batch);
+    }
+
+    @Override
+    public CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch) {
+        return client.createAccountsAsync(batch);
+    }
+
+    @Override
+    public CreateTransferResultBatch createTransfers(TransferBatch batch) {
+        return client.createTransfers(batch);
+    }
+
+    @Override
+    public CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch) {
+        return client.createTransfersAsync(batch);
+    }
+
+    @Override
+    public AccountBatch lookupAccounts(IdBatch batch) {
+        return client.lookupAccounts(batch);
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch) {
+        return client.lookupAccountsAsync(batch);
+    }
+
+    @Override
+    public TransferBatch lookupTransfers(IdBatch batch) {
+        return client.lookupTransfers(batch);
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch) {
+        return client.lookupTransfersAsync(batch);
+    }
+
+    @Override
+    public TransferBatch getAccountTransfers(AccountFilter filter) {
+        return client.getAccountTransfers(filter);
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter) {
+        return client.getAccountTransfersAsync(filter);
+    }
+
+    @Override
+    public AccountBalanceBatch getAccountBalances(AccountFilter filter) {
+        return client.getAccountBalances(filter);
+    }
+
+    @Override
+    public CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter) {
+        return client.getAccountBalancesAsync(filter);
+    }
+
+    @Override
+    public AccountBatch queryAccounts(QueryFilter filter) {
+        return client.queryAccounts(filter);
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter) {
+        return client.queryAccountsAsync(filter);
+    }
+
+    @Override
+    public TransferBatch queryTransfers(QueryFilter filter) {
+        return client.queryTransfers(filter);
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter) {
+        return client.queryTransfersAsync(filter);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
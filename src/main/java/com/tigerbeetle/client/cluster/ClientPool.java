@@ -0,0 +1,292 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spreads calls over several clients to the same cluster, each with its own request pipeline.
+ * A member that fails with anything other than a {@link RequestException} is skipped for
+ * {@code cooldown}; one that reports {@link ClientClosedException} is replaced with a fresh client.
+ */
+public class ClientPool implements ClusterOperations, AutoCloseable {
+    private final Member[] members;
+    private final PoolPolicy policy;
+    private final long cooldownNanos;
+    private final Supplier<ClusterOperations> factory;
+    private final AtomicLong next = new AtomicLong();
+    private volatile boolean closed;
+
+    public ClientPool(int size, PoolPolicy policy, Duration cooldown, Supplier<ClusterOperations> factory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("pool size must be at least 1");
+        }
+        this.policy = policy;
+        this.cooldownNanos = cooldown.toNanos();
+        this.factory = factory;
+        this.members = new Member[size];
+        for (int i = 0; i < size; i++) {
+            members[i] = new Member(factory.get());
+        }
+    }
+
+    public int size() {
+        return members.length;
+    }
+
+    public int getInFlight(int member) {
+        return members[member].inFlight.get();
+    }
+
+    public boolean isHealthy(int member) {
+        return members[member].isHealthy(System.nanoTime());
+    }
+
+    private Member select() {
+        long now = System.nanoTime();
+        if (policy == PoolPolicy.LEAST_IN_FLIGHT) {
+            Member best = null;
+            for (Member member : members) {
+                if (member.isHealthy(now) && (best == null || member.inFlight.get() < best.inFlight.get())) {
+                    best = member;
+                }
+            }
+            return best != null ? best : members[(int) Math.floorMod(next.getAndIncrement(), (long) members.length)];
+        }
+        return firstHealthyFrom(next.getAndIncrement(), now);
+    }
+
+    private Member select(long least, long most) {
+        if (policy != PoolPolicy.ACCOUNT_AFFINITY) {
+            return select();
+        }
+        long hash = least * 0x9E3779B97F4A7C15L ^ most;
+        return firstHealthyFrom(hash ^ (hash >>> 32), System.nanoTime());
+    }
+
+    private Member firstHealthyFrom(long start, long now) {
+        int first = (int) Math.floorMod(start, (long) members.length);
+        for (int i = 0; i < members.length; i++) {
+            Member member = members[(first + i) % members.length];
+            if (member.isHealthy(now)) {
+                return member;
+            }
+        }
+        return members[first];
+    }
+
+    private <T> T call(Member member, Function<ClusterOperations, T> call) {
+        if (closed) {
+            throw new ClientClosedException();
+        }
+        ClusterOperations operations = member.operations;
+        member.inFlight.incrementAndGet();
+        try {
+            return call.apply(operations);
+        } catch (RuntimeException e) {
+            member.failed(operations, e);
+            throw e;
+        } finally {
+            member.inFlight.decrementAndGet();
+        }
+    }
+
+    private <T> CompletableFuture<T> callAsync(Member member, Function<ClusterOperations, CompletableFuture<T>> call) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new ClientClosedException());
+        }
+        ClusterOperations operations = member.operations;
+        member.inFlight.incrementAndGet();
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(operations);
+        } catch (RuntimeException e) {
+            member.inFlight.decrementAndGet();
+            member.failed(operations, e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            member.inFlight.decrementAndGet();
+            if (error != null) {
+                member.failed(operations, error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+    }
+
+    private Member selectByFirstId(IdBatch batch) {
+        int position = batch.getPosition();
+        batch.beforeFirst();
+        Member member = batch.next()
+                ? select(batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant))
+                : select();
+        restorePosition(batch, position);
+        return member;
+    }
+
+    private Member selectByFirstAccount(AccountBatch batch) {
+        int position = batch.getPosition();
+        batch.beforeFirst();
+        Member member = batch.next()
+                ? select(batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant))
+                : select();
+        restorePosition(batch, position);
+        return member;
+    }
+
+    private Member selectByFirstDebit(TransferBatch batch) {
+        int position = batch.getPosition();
+        batch.beforeFirst();
+        Member member = batch.next()
+                ? select(batch.getDebitAccountId(UInt128.LeastSignificant), batch.getDebitAccountId(UInt128.MostSignificant))
+                : select();
+        restorePosition(batch, position);
+        return member;
+    }
+
+    private static void restorePosition(Batch batch, int position) {
+        if (position < 0) {
+            batch.beforeFirst();
+        } else {
+            batch.setPosition(position);
+        }
+    }
+
+    private Member selectByAccount(AccountFilter filter) {
+        return select(filter.getAccountId(UInt128.LeastSignificant), filter.getAccountId(UInt128.MostSignificant));
+    }
+
+    @Override
+    public CreateAccountResultBatch createAccounts(AccountBatch batch) {
+        return call(selectByFirstAccount(batch), operations -> operations.createAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch) {
+        return callAsync(selectByFirstAccount(batch), operations -> operations.createAccountsAsync(batch));
+    }
+
+    @Override
+    public CreateTransferResultBatch createTransfers(TransferBatch batch) {
+        return call(selectByFirstDebit(batch), operations -> operations.createTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch) {
+        return callAsync(selectByFirstDebit(batch), operations -> operations.createTransfersAsync(batch));
+    }
+
+    @Override
+    public AccountBatch lookupAccounts(IdBatch batch) {
+        return call(selectByFirstId(batch), operations -> operations.lookupAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch) {
+        return callAsync(selectByFirstId(batch), operations -> operations.lookupAccountsAsync(batch));
+    }
+
+    @Override
+    public TransferBatch lookupTransfers(IdBatch batch) {
+        return call(select(), operations -> operations.lookupTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch) {
+        return callAsync(select(), operations -> operations.lookupTransfersAsync(batch));
+    }
+
+    @Override
+    public TransferBatch getAccountTransfers(AccountFilter filter) {
+        return call(selectByAccount(filter), operations -> operations.getAccountTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter) {
+        return callAsync(selectByAccount(filter), operations -> operations.getAccountTransfersAsync(filter));
+    }
+
+    @Override
+    public AccountBalanceBatch getAccountBalances(AccountFilter filter) {
+        return call(selectByAccount(filter), operations -> operations.getAccountBalances(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter) {
+        return callAsync(selectByAccount(filter), operations -> operations.getAccountBalancesAsync(filter));
+    }
+
+    @Override
+    public AccountBatch queryAccounts(QueryFilter filter) {
+        return call(select(), operations -> operations.queryAccounts(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter) {
+        return callAsync(select(), operations -> operations.queryAccountsAsync(filter));
+    }
+
+    @Override
+    public TransferBatch queryTransfers(QueryFilter filter) {
+        return call(select(), operations -> operations.queryTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter) {
+        return callAsync(select(), operations -> operations.queryTransfersAsync(filter));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Member member : members) {
+            synchronized (member) {
+                closeQuietly(member.operations);
+            }
+        }
+    }
+
+    private static void closeQuietly(ClusterOperations operations) {
+        if (operations instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // already unusable, nothing left to release
+            }
+        }
+    }
+
+    private final class Member {
+        private volatile ClusterOperations operations;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long unhealthyUntil = System.nanoTime();
+
+        private Member(ClusterOperations operations) {
+            this.operations = operations;
+        }
+
+        private boolean isHealthy(long now) {
+            return now - unhealthyUntil >= 0;
+        }
+
+        private void failed(ClusterOperations failed, Throwable error) {
+            if (error instanceof RequestException || closed) {
+                return;
+            }
+            unhealthyUntil = System.nanoTime() + cooldownNanos;
+            if (error instanceof ClientClosedException) {
+                synchronized (this) {
+                    if (operations == failed && !closed) {
+                        closeQuietly(failed);
+                        operations = factory.get();
+                    }
+                }
+            }
+        }
+    }
+}
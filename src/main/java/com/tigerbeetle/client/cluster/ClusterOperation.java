@@ -0,0 +1,12 @@
+package com.tigerbeetle.client.cluster;
+
+public enum ClusterOperation {
+    CREATE_ACCOUNTS,
+    CREATE_TRANSFERS,
+    LOOKUP_ACCOUNTS,
+    LOOKUP_TRANSFERS,
+    GET_ACCOUNT_TRANSFERS,
+    GET_ACCOUNT_BALANCES,
+    QUERY_ACCOUNTS,
+    QUERY_TRANSFERS
+}
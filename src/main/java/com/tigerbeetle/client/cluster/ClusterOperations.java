@@ -0,0 +1,45 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The operations the application performs against a TigerBeetle cluster, mirroring {@link Client}.
+ * Repositories depend on this interface so that gating, pooling and instrumentation can be layered
+ * in front of the client.
+ */
+public interface ClusterOperations {
+
+    CreateAccountResultBatch createAccounts(AccountBatch batch);
+
+    CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch);
+
+    CreateTransferResultBatch createTransfers(TransferBatch batch);
+
+    CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch);
+
+    AccountBatch lookupAccounts(IdBatch batch);
+
+    CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch);
+
+    TransferBatch lookupTransfers(IdBatch batch);
+
+    CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch);
+
+    TransferBatch getAccountTransfers(AccountFilter filter);
+
+    CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter);
+
+    AccountBalanceBatch getAccountBalances(AccountFilter filter);
+
+    CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter);
+
+    AccountBatch queryAccounts(QueryFilter filter);
+
+    CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter);
+
+    TransferBatch queryTransfers(QueryFilter filter);
+
+    CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter);
+}
@@ -0,0 +1,110 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Base for decorators that wrap every call to a delegate. Subclasses override {@link #invoke} and
+ * {@link #invokeAsync}; {@code events} is the number of events in the request batch, or 1 for queries.
+ */
+public abstract class ForwardingClusterOperations implements ClusterOperations {
+    protected final ClusterOperations delegate;
+
+    protected ForwardingClusterOperations(ClusterOperations delegate) {
+        this.delegate = delegate;
+    }
+
+    public ClusterOperations getDelegate() {
+        return delegate;
+    }
+
+    protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+        return call.get();
+    }
+
+    protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+        return call.get();
+    }
+
+    @Override
+    public CreateAccountResultBatch createAccounts(AccountBatch batch) {
+        return invoke(ClusterOperation.CREATE_ACCOUNTS, batch.getLength(), () -> delegate.createAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch) {
+        return invokeAsync(ClusterOperation.CREATE_ACCOUNTS, batch.getLength(), () -> delegate.createAccountsAsync(batch));
+    }
+
+    @Override
+    public CreateTransferResultBatch createTransfers(TransferBatch batch) {
+        return invoke(ClusterOperation.CREATE_TRANSFERS, batch.getLength(), () -> delegate.createTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch) {
+        return invokeAsync(ClusterOperation.CREATE_TRANSFERS, batch.getLength(), () -> delegate.createTransfersAsync(batch));
+    }
+
+    @Override
+    public AccountBatch lookupAccounts(IdBatch batch) {
+        return invoke(ClusterOperation.LOOKUP_ACCOUNTS, batch.getLength(), () -> delegate.lookupAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch) {
+        return invokeAsync(ClusterOperation.LOOKUP_ACCOUNTS, batch.getLength(), () -> delegate.lookupAccountsAsync(batch));
+    }
+
+    @Override
+    public TransferBatch lookupTransfers(IdBatch batch) {
+        return invoke(ClusterOperation.LOOKUP_TRANSFERS, batch.getLength(), () -> delegate.lookupTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch) {
+        return invokeAsync(ClusterOperation.LOOKUP_TRANSFERS, batch.getLength(), () -> delegate.lookupTransfersAsync(batch));
+    }
+
+    @Override
+    public TransferBatch getAccountTransfers(AccountFilter filter) {
+        return invoke(ClusterOperation.GET_ACCOUNT_TRANSFERS, 1, () -> delegate.getAccountTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter) {
+        return invokeAsync(ClusterOperation.GET_ACCOUNT_TRANSFERS, 1, () -> delegate.getAccountTransfersAsync(filter));
+    }
+
+    @Override
+    public AccountBalanceBatch getAccountBalances(AccountFilter filter) {
+        return invoke(ClusterOperation.GET_ACCOUNT_BALANCES, 1, () -> delegate.getAccountBalances(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter) {
+        return invokeAsync(ClusterOperation.GET_ACCOUNT_BALANCES, 1, () -> delegate.getAccountBalancesAsync(filter));
+    }
+
+    @Override
+    public AccountBatch queryAccounts(QueryFilter filter) {
+        return invoke(ClusterOperation.QUERY_ACCOUNTS, 1, () -> delegate.queryAccounts(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter) {
+        return invokeAsync(ClusterOperation.QUERY_ACCOUNTS, 1, () -> delegate.queryAccountsAsync(filter));
+    }
+
+    @Override
+    public TransferBatch queryTransfers(QueryFilter filter) {
+        return invoke(ClusterOperation.QUERY_TRANSFERS, 1, () -> delegate.queryTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter) {
+        return invokeAsync(ClusterOperation.QUERY_TRANSFERS, 1, () -> delegate.queryTransfersAsync(filter));
+    }
+}
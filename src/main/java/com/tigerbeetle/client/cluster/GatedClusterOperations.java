@@ -0,0 +1,118 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.client.dto.ClusterBusyException;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of requests in flight to the delegate. Blocking callers park on the semaphore
+ * (cheap on virtual threads); async callers are queued without blocking and started as permits
+ * are released. Either kind fails with {@link ClusterBusyException} once {@code acquireTimeout} elapses.
+ */
+public class GatedClusterOperations extends ForwardingClusterOperations {
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long acquireTimeoutNanos;
+    private final Queue<Waiter<?>> waiting = new ConcurrentLinkedQueue<>();
+
+    public GatedClusterOperations(ClusterOperations delegate, int maxInFlight, Duration acquireTimeout) {
+        super(delegate);
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.size();
+    }
+
+    @Override
+    protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ClusterBusyException(operation.name());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterBusyException(operation.name());
+        }
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+        var waiter = new Waiter<>(call);
+        waiting.add(waiter);
+        CompletableFuture.delayedExecutor(acquireTimeoutNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (waiter.claim()) {
+                waiter.result.completeExceptionally(new ClusterBusyException(operation.name()));
+            }
+        });
+        drain();
+        return waiter.result;
+    }
+
+    private void release() {
+        permits.release();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            var next = waiting.poll();
+            if (next == null || !next.claim()) {
+                permits.release();
+                continue;
+            }
+            next.start();
+        }
+    }
+
+    private final class Waiter<T> {
+        private final Supplier<CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Waiter(Supplier<CompletableFuture<T>> call) {
+            this.call = call;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void start() {
+            CompletableFuture<T> response;
+            try {
+                response = call.get();
+            } catch (RuntimeException e) {
+                release();
+                result.completeExceptionally(e);
+                return;
+            }
+            response.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+}
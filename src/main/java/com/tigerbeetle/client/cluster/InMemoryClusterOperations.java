@@ -0,0 +1,908 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Single-process stand-in for a TigerBeetle cluster, for load and latency experiments without a replica.
+ * It models linked chains, two-phase transfers with timeouts, {@code HISTORY} balances and the
+ * debit/credit limit flags. Balancing, closing and imported events are not modelled and fail with
+ * {@code ReservedFlag}. Requests are applied one at a time, like the replica's state machine, after
+ * {@code latency} plus up to {@code jitter} of injected delay. State lives on the heap and is lost on close.
+ */
+public class InMemoryClusterOperations implements ClusterOperations, AutoCloseable {
+    private static final int MAX_BATCH_SIZE = 8190;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final BigInteger AMOUNT_MAX = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+    private static final UUID ZERO_ID = new UUID(0, 0);
+    private static final UUID MAX_ID = new UUID(-1, -1);
+
+    private static final int PHASE_FLAGS = TransferFlags.PENDING | TransferFlags.POST_PENDING_TRANSFER | TransferFlags.VOID_PENDING_TRANSFER;
+    private static final int SUPPORTED_TRANSFER_FLAGS = TransferFlags.LINKED | PHASE_FLAGS;
+    private static final int SUPPORTED_ACCOUNT_FLAGS = AccountFlags.LINKED | AccountFlags.DEBITS_MUST_NOT_EXCEED_CREDITS
+            | AccountFlags.CREDITS_MUST_NOT_EXCEED_DEBITS | AccountFlags.HISTORY;
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final ExecutorService engine;
+    private volatile boolean closed;
+
+    private final Map<UUID, StoredAccount> accounts = new HashMap<>();
+    private final List<StoredAccount> accountLog = new ArrayList<>();
+    private final Map<UUID, StoredTransfer> transfers = new HashMap<>();
+    private final List<StoredTransfer> transferLog = new ArrayList<>();
+    private final Map<UUID, List<StoredTransfer>> transfersByAccount = new HashMap<>();
+    private final Map<UUID, List<BalanceRow>> balanceHistory = new HashMap<>();
+    private final Map<UUID, PendingStatus> pendingStatus = new HashMap<>();
+    private final PriorityQueue<StoredTransfer> expiries = new PriorityQueue<>(Comparator.comparingLong(StoredTransfer::expiresAt));
+    private final Deque<Runnable> undo = new ArrayDeque<>();
+    private long lastTimestamp;
+
+    public InMemoryClusterOperations(Duration latency, Duration jitter) {
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.engine = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "tigerbeetle-in-memory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CreateAccountResultBatch createAccounts(AccountBatch batch) {
+        return sync(() -> applyCreateAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateAccountResultBatch> createAccountsAsync(AccountBatch batch) {
+        return async(() -> applyCreateAccounts(batch));
+    }
+
+    @Override
+    public CreateTransferResultBatch createTransfers(TransferBatch batch) {
+        return sync(() -> applyCreateTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<CreateTransferResultBatch> createTransfersAsync(TransferBatch batch) {
+        return async(() -> applyCreateTransfers(batch));
+    }
+
+    @Override
+    public AccountBatch lookupAccounts(IdBatch batch) {
+        return sync(() -> applyLookupAccounts(batch));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> lookupAccountsAsync(IdBatch batch) {
+        return async(() -> applyLookupAccounts(batch));
+    }
+
+    @Override
+    public TransferBatch lookupTransfers(IdBatch batch) {
+        return sync(() -> applyLookupTransfers(batch));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> lookupTransfersAsync(IdBatch batch) {
+        return async(() -> applyLookupTransfers(batch));
+    }
+
+    @Override
+    public TransferBatch getAccountTransfers(AccountFilter filter) {
+        return sync(() -> applyGetAccountTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> getAccountTransfersAsync(AccountFilter filter) {
+        return async(() -> applyGetAccountTransfers(filter));
+    }
+
+    @Override
+    public AccountBalanceBatch getAccountBalances(AccountFilter filter) {
+        return sync(() -> applyGetAccountBalances(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBalanceBatch> getAccountBalancesAsync(AccountFilter filter) {
+        return async(() -> applyGetAccountBalances(filter));
+    }
+
+    @Override
+    public AccountBatch queryAccounts(QueryFilter filter) {
+        return sync(() -> applyQueryAccounts(filter));
+    }
+
+    @Override
+    public CompletableFuture<AccountBatch> queryAccountsAsync(QueryFilter filter) {
+        return async(() -> applyQueryAccounts(filter));
+    }
+
+    @Override
+    public TransferBatch queryTransfers(QueryFilter filter) {
+        return sync(() -> applyQueryTransfers(filter));
+    }
+
+    @Override
+    public CompletableFuture<TransferBatch> queryTransfersAsync(QueryFilter filter) {
+        return async(() -> applyQueryTransfers(filter));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        engine.shutdownNow();
+    }
+
+    private <T> T sync(Supplier<T> request) {
+        if (closed) {
+            throw new ClientClosedException();
+        }
+        long delay = nextDelayNanos();
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        return request.get();
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> request) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new ClientClosedException());
+        }
+        long delay = nextDelayNanos();
+        Executor executor = delay > 0 ? CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, engine) : engine;
+        return CompletableFuture.supplyAsync(request, executor);
+    }
+
+    private long nextDelayNanos() {
+        return jitterNanos > 0 ? latencyNanos + ThreadLocalRandom.current().nextLong(jitterNanos + 1) : latencyNanos;
+    }
+
+    // --- create_accounts / create_transfers ---
+
+    private synchronized CreateAccountResultBatch applyCreateAccounts(AccountBatch batch) {
+        expirePendingTransfers();
+        var events = new ArrayList<StoredAccount>(batch.getLength());
+        batch.beforeFirst();
+        while (batch.next()) {
+            events.add(StoredAccount.read(batch));
+        }
+        batch.beforeFirst();
+        var results = new CreateAccountResult[events.size()];
+        applyChains(results, i -> (events.get(i).flags & AccountFlags.LINKED) != 0, i -> createAccount(events.get(i)),
+                CreateAccountResult.Ok, CreateAccountResult.LinkedEventFailed, CreateAccountResult.LinkedEventChainOpen);
+
+        var out = new CreateAccountResultBatch(countFailures(results, CreateAccountResult.Ok));
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != CreateAccountResult.Ok) {
+                out.add();
+                out.setIndex(i);
+                out.setResult(results[i]);
+            }
+        }
+        out.beforeFirst();
+        return out;
+    }
+
+    private synchronized CreateTransferResultBatch applyCreateTransfers(TransferBatch batch) {
+        expirePendingTransfers();
+        var events = new ArrayList<StoredTransfer>(batch.getLength());
+        batch.beforeFirst();
+        while (batch.next()) {
+            events.add(StoredTransfer.read(batch));
+        }
+        batch.beforeFirst();
+        var results = new CreateTransferResult[events.size()];
+        applyChains(results, i -> (events.get(i).flags() & TransferFlags.LINKED) != 0, i -> createTransfer(events.get(i)),
+                CreateTransferResult.Ok, CreateTransferResult.LinkedEventFailed, CreateTransferResult.LinkedEventChainOpen);
+
+        var out = new CreateTransferResultBatch(countFailures(results, CreateTransferResult.Ok));
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != CreateTransferResult.Ok) {
+                out.add();
+                out.setIndex(i);
+                out.setResult(results[i]);
+            }
+        }
+        out.beforeFirst();
+        return out;
+    }
+
+    /**
+     * Applies events chain by chain. When an event fails, everything its chain already applied is undone;
+     * the failing event keeps its own result and the rest of the chain gets {@code linkedFailed}.
+     */
+    private <R> void applyChains(R[] results, IntPredicate linked, IntFunction<R> apply, R ok, R linkedFailed, R chainOpen) {
+        int start = 0;
+        while (start < results.length) {
+            int end = start;
+            while (end < results.length && linked.test(end)) {
+                end++;
+            }
+            boolean open = end == results.length;
+            if (open) {
+                end--;
+            }
+            undo.clear();
+            int failedAt = -1;
+            R failure = null;
+            for (int i = start; i <= end; i++) {
+                R result = open && i == end ? chainOpen : apply.apply(i);
+                if (result != ok) {
+                    failedAt = i;
+                    failure = result;
+                    break;
+                }
+            }
+            if (failedAt >= 0) {
+                while (!undo.isEmpty()) {
+                    undo.pop().run();
+                }
+            }
+            for (int i = start; i <= end; i++) {
+                results[i] = failedAt < 0 ? ok : i == failedAt ? failure : linkedFailed;
+            }
+            start = end + 1;
+        }
+        undo.clear();
+    }
+
+    private static <R> int countFailures(R[] results, R ok) {
+        int count = 0;
+        for (R result : results) {
+            if (result != ok) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private CreateAccountResult createAccount(StoredAccount event) {
+        if (event.timestamp != 0) {
+            return CreateAccountResult.TimestampMustBeZero;
+        }
+        if ((event.flags & ~SUPPORTED_ACCOUNT_FLAGS) != 0) {
+            return CreateAccountResult.ReservedFlag;
+        }
+        if (event.id.equals(ZERO_ID)) {
+            return CreateAccountResult.IdMustNotBeZero;
+        }
+        if (event.id.equals(MAX_ID)) {
+            return CreateAccountResult.IdMustNotBeIntMax;
+        }
+        if ((event.flags & AccountFlags.DEBITS_MUST_NOT_EXCEED_CREDITS) != 0
+                && (event.flags & AccountFlags.CREDITS_MUST_NOT_EXCEED_DEBITS) != 0) {
+            return CreateAccountResult.FlagsAreMutuallyExclusive;
+        }
+        if (event.balances.debitsPending().signum() != 0) {
+            return CreateAccountResult.DebitsPendingMustBeZero;
+        }
+        if (event.balances.debitsPosted().signum() != 0) {
+            return CreateAccountResult.DebitsPostedMustBeZero;
+        }
+        if (event.balances.creditsPending().signum() != 0) {
+            return CreateAccountResult.CreditsPendingMustBeZero;
+        }
+        if (event.balances.creditsPosted().signum() != 0) {
+            return CreateAccountResult.CreditsPostedMustBeZero;
+        }
+        if (event.ledger == 0) {
+            return CreateAccountResult.LedgerMustNotBeZero;
+        }
+        if (event.code == 0) {
+            return CreateAccountResult.CodeMustNotBeZero;
+        }
+        var existing = accounts.get(event.id);
+        if (existing != null) {
+            if (existing.flags != event.flags) {
+                return CreateAccountResult.ExistsWithDifferentFlags;
+            }
+            if (!existing.userData128.equals(event.userData128)) {
+                return CreateAccountResult.ExistsWithDifferentUserData128;
+            }
+            if (existing.userData64 != event.userData64) {
+                return CreateAccountResult.ExistsWithDifferentUserData64;
+            }
+            if (existing.userData32 != event.userData32) {
+                return CreateAccountResult.ExistsWithDifferentUserData32;
+            }
+            if (existing.ledger != event.ledger) {
+                return CreateAccountResult.ExistsWithDifferentLedger;
+            }
+            if (existing.code != event.code) {
+                return CreateAccountResult.ExistsWithDifferentCode;
+            }
+            return CreateAccountResult.Exists;
+        }
+        var account = event.created(nextTimestamp());
+        accounts.put(account.id, account);
+        accountLog.add(account);
+        undo.push(() -> {
+            accounts.remove(account.id);
+            removeLast(accountLog);
+        });
+        return CreateAccountResult.Ok;
+    }
+
+    private CreateTransferResult createTransfer(StoredTransfer event) {
+        if (event.timestamp() != 0) {
+            return CreateTransferResult.TimestampMustBeZero;
+        }
+        if ((event.flags() & ~SUPPORTED_TRANSFER_FLAGS) != 0) {
+            return CreateTransferResult.ReservedFlag;
+        }
+        if (event.id().equals(ZERO_ID)) {
+            return CreateTransferResult.IdMustNotBeZero;
+        }
+        if (event.id().equals(MAX_ID)) {
+            return CreateTransferResult.IdMustNotBeIntMax;
+        }
+        if (Integer.bitCount(event.flags() & PHASE_FLAGS) > 1) {
+            return CreateTransferResult.FlagsAreMutuallyExclusive;
+        }
+        if ((event.flags() & (TransferFlags.POST_PENDING_TRANSFER | TransferFlags.VOID_PENDING_TRANSFER)) != 0) {
+            return resolvePendingTransfer(event);
+        }
+        if (event.debitAccountId().equals(ZERO_ID)) {
+            return CreateTransferResult.DebitAccountIdMustNotBeZero;
+        }
+        if (event.debitAccountId().equals(MAX_ID)) {
+            return CreateTransferResult.DebitAccountIdMustNotBeIntMax;
+        }
+        if (event.creditAccountId().equals(ZERO_ID)) {
+            return CreateTransferResult.CreditAccountIdMustNotBeZero;
+        }
+        if (event.creditAccountId().equals(MAX_ID)) {
+            return CreateTransferResult.CreditAccountIdMustNotBeIntMax;
+        }
+        if (event.debitAccountId().equals(event.creditAccountId())) {
+            return CreateTransferResult.AccountsMustBeDifferent;
+        }
+        if (!event.pendingId().equals(ZERO_ID)) {
+            return CreateTransferResult.PendingIdMustBeZero;
+        }
+        boolean pending = (event.flags() & TransferFlags.PENDING) != 0;
+        if (event.timeout() != 0 && !pending) {
+            return CreateTransferResult.TimeoutReservedForPendingTransfer;
+        }
+        if (event.ledger() == 0) {
+            return CreateTransferResult.LedgerMustNotBeZero;
+        }
+        if (event.code() == 0) {
+            return CreateTransferResult.CodeMustNotBeZero;
+        }
+        var debit = accounts.get(event.debitAccountId());
+        if (debit == null) {
+            return CreateTransferResult.DebitAccountNotFound;
+        }
+        var credit = accounts.get(event.creditAccountId());
+        if (credit == null) {
+            return CreateTransferResult.CreditAccountNotFound;
+        }
+        if (debit.ledger != credit.ledger) {
+            return CreateTransferResult.AccountsMustHaveTheSameLedger;
+        }
+        if (event.ledger() != debit.ledger) {
+            return CreateTransferResult.TransferMustHaveTheSameLedgerAsAccounts;
+        }
+        var existing = transfers.get(event.id());
+        if (existing != null) {
+            return exists(event, existing);
+        }
+
+        var amount = event.amount();
+        var debitBalances = pending
+                ? debit.balances.withDebitsPending(debit.balances.debitsPending().add(amount))
+                : debit.balances.withDebitsPosted(debit.balances.debitsPosted().add(amount));
+        var creditBalances = pending
+                ? credit.balances.withCreditsPending(credit.balances.creditsPending().add(amount))
+                : credit.balances.withCreditsPosted(credit.balances.creditsPosted().add(amount));
+        if (pending && debitBalances.debitsPending().compareTo(AMOUNT_MAX) > 0) {
+            return CreateTransferResult.OverflowsDebitsPending;
+        }
+        if (pending && creditBalances.creditsPending().compareTo(AMOUNT_MAX) > 0) {
+            return CreateTransferResult.OverflowsCreditsPending;
+        }
+        if (!pending && debitBalances.debitsPosted().compareTo(AMOUNT_MAX) > 0) {
+            return CreateTransferResult.OverflowsDebitsPosted;
+        }
+        if (!pending && creditBalances.creditsPosted().compareTo(AMOUNT_MAX) > 0) {
+            return CreateTransferResult.OverflowsCreditsPosted;
+        }
+        if ((debit.flags & AccountFlags.DEBITS_MUST_NOT_EXCEED_CREDITS) != 0
+                && debitBalances.debitsPending().add(debitBalances.debitsPosted()).compareTo(debitBalances.creditsPosted()) > 0) {
+            return CreateTransferResult.ExceedsCredits;
+        }
+        if ((credit.flags & AccountFlags.CREDITS_MUST_NOT_EXCEED_DEBITS) != 0
+                && creditBalances.creditsPending().add(creditBalances.creditsPosted()).compareTo(creditBalances.debitsPosted()) > 0) {
+            return CreateTransferResult.ExceedsDebits;
+        }
+
+        var transfer = event.created(nextTimestamp(), event.debitAccountId(), event.creditAccountId(), amount, event.ledger(), event.code());
+        setBalances(debit, debitBalances);
+        setBalances(credit, creditBalances);
+        record(transfer, debit, credit);
+        if (pending) {
+            setPendingStatus(transfer.id(), PendingStatus.PENDING);
+            if (transfer.timeout() > 0) {
+                expiries.add(transfer);
+                undo.push(() -> expiries.remove(transfer));
+            }
+        }
+        return CreateTransferResult.Ok;
+    }
+
+    private CreateTransferResult resolvePendingTransfer(StoredTransfer event) {
+        if (event.pendingId().equals(ZERO_ID)) {
+            return CreateTransferResult.PendingIdMustNotBeZero;
+        }
+        if (event.pendingId().equals(MAX_ID)) {
+            return CreateTransferResult.PendingIdMustNotBeIntMax;
+        }
+        if (event.pendingId().equals(event.id())) {
+            return CreateTransferResult.PendingIdMustBeDifferent;
+        }
+        if (event.timeout() != 0) {
+            return CreateTransferResult.TimeoutReservedForPendingTransfer;
+        }
+        var pending = transfers.get(event.pendingId());
+        if (pending == null) {
+            return CreateTransferResult.PendingTransferNotFound;
+        }
+        if ((pending.flags() & TransferFlags.PENDING) == 0) {
+            return CreateTransferResult.PendingTransferNotPending;
+        }
+        if (!event.debitAccountId().equals(ZERO_ID) && !event.debitAccountId().equals(pending.debitAccountId())) {
+            return CreateTransferResult.PendingTransferHasDifferentDebitAccountId;
+        }
+        if (!event.creditAccountId().equals(ZERO_ID) && !event.creditAccountId().equals(pending.creditAccountId())) {
+            return CreateTransferResult.PendingTransferHasDifferentCreditAccountId;
+        }
+        if (event.ledger() != 0 && event.ledger() != pending.ledger()) {
+            return CreateTransferResult.PendingTransferHasDifferentLedger;
+        }
+        if (event.code() != 0 && event.code() != pending.code()) {
+            return CreateTransferResult.PendingTransferHasDifferentCode;
+        }
+        boolean post = (event.flags() & TransferFlags.POST_PENDING_TRANSFER) != 0;
+        BigInteger amount;
+        if (post) {
+            amount = event.amount().equals(AMOUNT_MAX) ? pending.amount() : event.amount();
+            if (amount.compareTo(pending.amount()) > 0) {
+                return CreateTransferResult.ExceedsPendingTransferAmount;
+            }
+        } else {
+            if (event.amount().signum() != 0 && !event.amount().equals(AMOUNT_MAX) && !event.amount().equals(pending.amount())) {
+                return CreateTransferResult.PendingTransferHasDifferentAmount;
+            }
+            amount = pending.amount();
+        }
+        var existing = transfers.get(event.id());
+        if (existing != null) {
+            return exists(event, existing);
+        }
+        switch (pendingStatus.get(pending.id())) {
+            case POSTED:
+                return CreateTransferResult.PendingTransferAlreadyPosted;
+            case VOIDED:
+                return CreateTransferResult.PendingTransferAlreadyVoided;
+            case EXPIRED:
+                return CreateTransferResult.PendingTransferExpired;
+            default:
+                break;
+        }
+
+        var debit = accounts.get(pending.debitAccountId());
+        var credit = accounts.get(pending.creditAccountId());
+        var debitBalances = debit.balances.withDebitsPending(debit.balances.debitsPending().subtract(pending.amount()));
+        var creditBalances = credit.balances.withCreditsPending(credit.balances.creditsPending().subtract(pending.amount()));
+        if (post) {
+            debitBalances = debitBalances.withDebitsPosted(debitBalances.debitsPosted().add(amount));
+            creditBalances = creditBalances.withCreditsPosted(creditBalances.creditsPosted().add(amount));
+        }
+        var transfer = event.created(nextTimestamp(), pending.debitAccountId(), pending.creditAccountId(), amount,
+                pending.ledger(), pending.code());
+        setBalances(debit, debitBalances);
+        setBalances(credit, creditBalances);
+        record(transfer, debit, credit);
+        setPendingStatus(pending.id(), post ? PendingStatus.POSTED : PendingStatus.VOIDED);
+        if (expiries.remove(pending)) {
+            undo.push(() -> expiries.add(pending));
+        }
+        return CreateTransferResult.Ok;
+    }
+
+    private static CreateTransferResult exists(StoredTransfer event, StoredTransfer existing) {
+        if (event.flags() != existing.flags()) {
+            return CreateTransferResult.ExistsWithDifferentFlags;
+        }
+        if (!event.pendingId().equals(existing.pendingId())) {
+            return CreateTransferResult.ExistsWithDifferentPendingId;
+        }
+        if (event.timeout() != existing.timeout()) {
+            return CreateTransferResult.ExistsWithDifferentTimeout;
+        }
+        if (!event.debitAccountId().equals(ZERO_ID) && !event.debitAccountId().equals(existing.debitAccountId())) {
+            return CreateTransferResult.ExistsWithDifferentDebitAccountId;
+        }
+        if (!event.creditAccountId().equals(ZERO_ID) && !event.creditAccountId().equals(existing.creditAccountId())) {
+            return CreateTransferResult.ExistsWithDifferentCreditAccountId;
+        }
+        boolean resolving = !event.pendingId().equals(ZERO_ID);
+        if (!(resolving && event.amount().equals(AMOUNT_MAX)) && !event.amount().equals(existing.amount())) {
+            return CreateTransferResult.ExistsWithDifferentAmount;
+        }
+        if (!event.userData128().equals(existing.userData128())) {
+            return CreateTransferResult.ExistsWithDifferentUserData128;
+        }
+        if (event.userData64() != existing.userData64()) {
+            return CreateTransferResult.ExistsWithDifferentUserData64;
+        }
+        if (event.userData32() != existing.userData32()) {
+            return CreateTransferResult.ExistsWithDifferentUserData32;
+        }
+        if (event.ledger() != 0 && event.ledger() != existing.ledger()) {
+            return CreateTransferResult.ExistsWithDifferentLedger;
+        }
+        if (event.code() != 0 && event.code() != existing.code()) {
+            return CreateTransferResult.ExistsWithDifferentCode;
+        }
+        return CreateTransferResult.Exists;
+    }
+
+    /**
+     * Releases the pending amounts whose timeout has passed. Runs first in every request, reads
+     * included, so a timed-out hold never shows in a balance.
+     */
+    private void expirePendingTransfers() {
+        long now = Math.max(lastTimestamp, wallClockNanos());
+        while (!expiries.isEmpty() && expiries.peek().expiresAt() <= now) {
+            var pending = expiries.poll();
+            pendingStatus.put(pending.id(), PendingStatus.EXPIRED);
+            var debit = accounts.get(pending.debitAccountId());
+            var credit = accounts.get(pending.creditAccountId());
+            debit.balances = debit.balances.withDebitsPending(debit.balances.debitsPending().subtract(pending.amount()));
+            credit.balances = credit.balances.withCreditsPending(credit.balances.creditsPending().subtract(pending.amount()));
+        }
+    }
+
+    private void setBalances(StoredAccount account, Balances balances) {
+        var before = account.balances;
+        account.balances = balances;
+        undo.push(() -> account.balances = before);
+    }
+
+    private void setPendingStatus(UUID id, PendingStatus status) {
+        var before = pendingStatus.put(id, status);
+        undo.push(() -> {
+            if (before == null) {
+                pendingStatus.remove(id);
+            } else {
+                pendingStatus.put(id, before);
+            }
+        });
+    }
+
+    private void record(StoredTransfer transfer, StoredAccount debit, StoredAccount credit) {
+        transfers.put(transfer.id(), transfer);
+        transferLog.add(transfer);
+        undo.push(() -> {
+            transfers.remove(transfer.id());
+            removeLast(transferLog);
+        });
+        index(debit, transfer, true);
+        index(credit, transfer, false);
+    }
+
+    private void index(StoredAccount account, StoredTransfer transfer, boolean debit) {
+        var byAccount = transfersByAccount.computeIfAbsent(account.id, id -> new ArrayList<>());
+        byAccount.add(transfer);
+        undo.push(() -> removeLast(byAccount));
+        if ((account.flags & AccountFlags.HISTORY) != 0) {
+            var history = balanceHistory.computeIfAbsent(account.id, id -> new ArrayList<>());
+            history.add(new BalanceRow(transfer.timestamp(), account.balances, debit));
+            undo.push(() -> removeLast(history));
+        }
+    }
+
+    private long nextTimestamp() {
+        lastTimestamp = Math.max(lastTimestamp + 1, wallClockNanos());
+        return lastTimestamp;
+    }
+
+    private static long wallClockNanos() {
+        return System.currentTimeMillis() * 1_000_000L;
+    }
+
+    private static void removeLast(List<?> list) {
+        list.remove(list.size() - 1);
+    }
+
+    // --- lookups and queries ---
+
+    private synchronized AccountBatch applyLookupAccounts(IdBatch ids) {
+        expirePendingTransfers();
+        var found = new ArrayList<StoredAccount>(ids.getLength());
+        ids.beforeFirst();
+        while (ids.next()) {
+            var account = accounts.get(uuid(ids.getId(UInt128.LeastSignificant), ids.getId(UInt128.MostSignificant)));
+            if (account != null) {
+                found.add(account);
+            }
+        }
+        ids.beforeFirst();
+        return toAccountBatch(found);
+    }
+
+    private synchronized TransferBatch applyLookupTransfers(IdBatch ids) {
+        expirePendingTransfers();
+        var found = new ArrayList<StoredTransfer>(ids.getLength());
+        ids.beforeFirst();
+        while (ids.next()) {
+            var transfer = transfers.get(uuid(ids.getId(UInt128.LeastSignificant), ids.getId(UInt128.MostSignificant)));
+            if (transfer != null) {
+                found.add(transfer);
+            }
+        }
+        ids.beforeFirst();
+        return toTransferBatch(found);
+    }
+
+    private synchronized TransferBatch applyGetAccountTransfers(AccountFilter filter) {
+        expirePendingTransfers();
+        var accountId = uuid(filter.getAccountId(UInt128.LeastSignificant), filter.getAccountId(UInt128.MostSignificant));
+        var log = transfersByAccount.getOrDefault(accountId, List.of());
+        boolean debits = filter.getDebits();
+        boolean credits = filter.getCredits();
+        var found = scan(log, StoredTransfer::timestamp, filter.getTimestampMin(), filter.getTimestampMax(),
+                filter.getReversed(), filter.getLimit(),
+                transfer -> debits && transfer.debitAccountId().equals(accountId)
+                        || credits && transfer.creditAccountId().equals(accountId));
+        return toTransferBatch(found);
+    }
+
+    private synchronized AccountBalanceBatch applyGetAccountBalances(AccountFilter filter) {
+        expirePendingTransfers();
+        var accountId = uuid(filter.getAccountId(UInt128.LeastSignificant), filter.getAccountId(UInt128.MostSignificant));
+        var log = balanceHistory.getOrDefault(accountId, List.of());
+        boolean debits = filter.getDebits();
+        boolean credits = filter.getCredits();
+        var found = scan(log, BalanceRow::timestamp, filter.getTimestampMin(), filter.getTimestampMax(),
+                filter.getReversed(), filter.getLimit(), row -> row.debit() ? debits : credits);
+        var batch = new AccountBalanceBatch(found.size());
+        for (BalanceRow row : found) {
+            batch.add();
+            batch.setDebitsPending(row.balances().debitsPending());
+            batch.setDebitsPosted(row.balances().debitsPosted());
+            batch.setCreditsPending(row.balances().creditsPending());
+            batch.setCreditsPosted(row.balances().creditsPosted());
+            batch.setTimestamp(row.timestamp());
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    private synchronized AccountBatch applyQueryAccounts(QueryFilter filter) {
+        expirePendingTransfers();
+        var userData128 = uuid(filter.getUserData128(UInt128.LeastSignificant), filter.getUserData128(UInt128.MostSignificant));
+        var found = scan(accountLog, account -> account.timestamp, filter.getTimestampMin(), filter.getTimestampMax(),
+                filter.getReversed(), filter.getLimit(),
+                account -> (userData128.equals(ZERO_ID) || userData128.equals(account.userData128))
+                        && (filter.getUserData64() == 0 || filter.getUserData64() == account.userData64)
+                        && (filter.getUserData32() == 0 || filter.getUserData32() == account.userData32)
+                        && (filter.getLedger() == 0 || filter.getLedger() == account.ledger)
+                        && (filter.getCode() == 0 || filter.getCode() == account.code));
+        return toAccountBatch(found);
+    }
+
+    private synchronized TransferBatch applyQueryTransfers(QueryFilter filter) {
+        expirePendingTransfers();
+        var userData128 = uuid(filter.getUserData128(UInt128.LeastSignificant), filter.getUserData128(UInt128.MostSignificant));
+        var found = scan(transferLog, StoredTransfer::timestamp, filter.getTimestampMin(), filter.getTimestampMax(),
+                filter.getReversed(), filter.getLimit(),
+                transfer -> (userData128.equals(ZERO_ID) || userData128.equals(transfer.userData128()))
+                        && (filter.getUserData64() == 0 || filter.getUserData64() == transfer.userData64())
+                        && (filter.getUserData32() == 0 || filter.getUserData32() == transfer.userData32())
+                        && (filter.getLedger() == 0 || filter.getLedger() == transfer.ledger())
+                        && (filter.getCode() == 0 || filter.getCode() == transfer.code()));
+        return toTransferBatch(found);
+    }
+
+    /**
+     * Walks a timestamp-ordered log from the matching end of the range; zero bounds are open and a
+     * zero limit matches nothing, as in the cluster.
+     */
+    private static <T> List<T> scan(List<T> log, ToLongFunction<T> timestampOf, long timestampMin, long timestampMax,
+                                    boolean reversed, int limit, Predicate<T> matches) {
+        int max = Math.min(limit, MAX_BATCH_SIZE);
+        var found = new ArrayList<T>(Math.max(0, Math.min(max, log.size())));
+        long upper = timestampMax == 0 ? Long.MAX_VALUE : timestampMax;
+        if (!reversed) {
+            for (int i = lowerBound(log, timestampOf, timestampMin); i < log.size() && found.size() < max; i++) {
+                T item = log.get(i);
+                if (timestampOf.applyAsLong(item) > upper) {
+                    break;
+                }
+                if (matches.test(item)) {
+                    found.add(item);
+                }
+            }
+        } else {
+            int from = upper == Long.MAX_VALUE ? log.size() : lowerBound(log, timestampOf, upper + 1);
+            for (int i = from - 1; i >= 0 && found.size() < max; i--) {
+                T item = log.get(i);
+                if (timestampOf.applyAsLong(item) < timestampMin) {
+                    break;
+                }
+                if (matches.test(item)) {
+                    found.add(item);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static <T> int lowerBound(List<T> log, ToLongFunction<T> timestampOf, long timestamp) {
+        int low = 0;
+        int high = log.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampOf.applyAsLong(log.get(mid)) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static AccountBatch toAccountBatch(List<StoredAccount> found) {
+        var batch = new AccountBatch(found.size());
+        for (StoredAccount account : found) {
+            batch.add();
+            batch.setId(account.id.getLeastSignificantBits(), account.id.getMostSignificantBits());
+            batch.setDebitsPending(account.balances.debitsPending());
+            batch.setDebitsPosted(account.balances.debitsPosted());
+            batch.setCreditsPending(account.balances.creditsPending());
+            batch.setCreditsPosted(account.balances.creditsPosted());
+            batch.setUserData128(account.userData128.getLeastSignificantBits(), account.userData128.getMostSignificantBits());
+            batch.setUserData64(account.userData64);
+            batch.setUserData32(account.userData32);
+            batch.setLedger(account.ledger);
+            batch.setCode(account.code);
+            batch.setFlags(account.flags);
+            batch.setTimestamp(account.timestamp);
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    private static TransferBatch toTransferBatch(List<StoredTransfer> found) {
+        var batch = new TransferBatch(found.size());
+        for (StoredTransfer transfer : found) {
+            batch.add();
+            batch.setId(transfer.id().getLeastSignificantBits(), transfer.id().getMostSignificantBits());
+            batch.setDebitAccountId(transfer.debitAccountId().getLeastSignificantBits(), transfer.debitAccountId().getMostSignificantBits());
+            batch.setCreditAccountId(transfer.creditAccountId().getLeastSignificantBits(), transfer.creditAccountId().getMostSignificantBits());
+            batch.setAmount(transfer.amount());
+            batch.setPendingId(transfer.pendingId().getLeastSignificantBits(), transfer.pendingId().getMostSignificantBits());
+            batch.setUserData128(transfer.userData128().getLeastSignificantBits(), transfer.userData128().getMostSignificantBits());
+            batch.setUserData64(transfer.userData64());
+            batch.setUserData32(transfer.userData32());
+            batch.setTimeout(transfer.timeout());
+            batch.setLedger(transfer.ledger());
+            batch.setCode(transfer.code());
+            batch.setFlags(transfer.flags());
+            batch.setTimestamp(transfer.timestamp());
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    private static UUID uuid(long leastSignificant, long mostSignificant) {
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    private enum PendingStatus {
+        PENDING, POSTED, VOIDED, EXPIRED
+    }
+
+    private record Balances(BigInteger debitsPending, BigInteger debitsPosted, BigInteger creditsPending, BigInteger creditsPosted) {
+        Balances withDebitsPending(BigInteger value) {
+            return new Balances(value, debitsPosted, creditsPending, creditsPosted);
+        }
+
+        Balances withDebitsPosted(BigInteger value) {
+            return new Balances(debitsPending, value, creditsPending, creditsPosted);
+        }
+
+        Balances withCreditsPending(BigInteger value) {
+            return new Balances(debitsPending, debitsPosted, value, creditsPosted);
+        }
+
+        Balances withCreditsPosted(BigInteger value) {
+            return new Balances(debitsPending, debitsPosted, creditsPending, value);
+        }
+    }
+
+    private record BalanceRow(long timestamp, Balances balances, boolean debit) {}
+
+    private static final class StoredAccount {
+        final UUID id;
+        final UUID userData128;
+        final long userData64;
+        final int userData32;
+        final int ledger;
+        final int code;
+        final int flags;
+        final long timestamp;
+        Balances balances;
+
+        private StoredAccount(UUID id, UUID userData128, long userData64, int userData32, int ledger, int code, int flags,
+                              long timestamp, Balances balances) {
+            this.id = id;
+            this.userData128 = userData128;
+            this.userData64 = userData64;
+            this.userData32 = userData32;
+            this.ledger = ledger;
+            this.code = code;
+            this.flags = flags;
+            this.timestamp = timestamp;
+            this.balances = balances;
+        }
+
+        static StoredAccount read(AccountBatch batch) {
+            return new StoredAccount(
+                    uuid(batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant)),
+                    uuid(batch.getUserData128(UInt128.LeastSignificant), batch.getUserData128(UInt128.MostSignificant)),
+                    batch.getUserData64(), batch.getUserData32(), batch.getLedger(), batch.getCode(), batch.getFlags(),
+                    batch.getTimestamp(),
+                    new Balances(batch.getDebitsPending(), batch.getDebitsPosted(), batch.getCreditsPending(), batch.getCreditsPosted()));
+        }
+
+        StoredAccount created(long timestamp) {
+            return new StoredAccount(id, userData128, userData64, userData32, ledger, code, flags, timestamp, balances);
+        }
+    }
+
+    private record StoredTransfer(UUID id, UUID debitAccountId, UUID creditAccountId, BigInteger amount, UUID pendingId,
+                                  UUID userData128, long userData64, int userData32, int timeout, int ledger, int code,
+                                  int flags, long timestamp) {
+
+        static StoredTransfer read(TransferBatch batch) {
+            return new StoredTransfer(
+                    uuid(batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant)),
+                    uuid(batch.getDebitAccountId(UInt128.LeastSignificant), batch.getDebitAccountId(UInt128.MostSignificant)),
+                    uuid(batch.getCreditAccountId(UInt128.LeastSignificant), batch.getCreditAccountId(UInt128.MostSignificant)),
+                    batch.getAmount(),
+                    uuid(batch.getPendingId(UInt128.LeastSignificant), batch.getPendingId(UInt128.MostSignificant)),
+                    uuid(batch.getUserData128(UInt128.LeastSignificant), batch.getUserData128(UInt128.MostSignificant)),
+                    batch.getUserData64(), batch.getUserData32(), batch.getTimeout(), batch.getLedger(), batch.getCode(),
+                    batch.getFlags(), batch.getTimestamp());
+        }
+
+        StoredTransfer created(long timestamp, UUID debitAccountId, UUID creditAccountId, BigInteger amount, int ledger, int code) {
+            return new StoredTransfer(id, debitAccountId, creditAccountId, amount, pendingId, userData128, userData64,
+                    userData32, timeout, ledger, code, flags, timestamp);
+        }
+
+        long expiresAt() {
+            return timestamp + Integer.toUnsignedLong(timeout) * NANOS_PER_SECOND;
+        }
+    }
+}
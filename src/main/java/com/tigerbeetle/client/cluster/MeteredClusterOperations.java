@@ -0,0 +1,177 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.Batch;
+import com.tigerbeetle.CreateAccountResult;
+import com.tigerbeetle.CreateAccountResultBatch;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.CreateTransferResultBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records every round trip to the delegate: latency per operation and outcome, events sent, rows
+ * returned, requests in flight, and one count per create result code ({@code Ok} included).
+ */
+public class MeteredClusterOperations extends ForwardingClusterOperations {
+    private final Map<ClusterOperation, OperationMeters> meters = new EnumMap<>(ClusterOperation.class);
+
+    public MeteredClusterOperations(ClusterOperations delegate, MeterRegistry registry) {
+        super(delegate);
+        for (ClusterOperation operation : ClusterOperation.values()) {
+            meters.put(operation, new OperationMeters(registry, operation));
+        }
+    }
+
+    @Override
+    protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+        var operationMeters = meters.get(operation);
+        long start = operationMeters.started(events);
+        T reply;
+        try {
+            reply = call.get();
+        } catch (RuntimeException e) {
+            operationMeters.failed(start);
+            throw e;
+        }
+        operationMeters.replied(start, events, reply);
+        return reply;
+    }
+
+    @Override
+    protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+        var operationMeters = meters.get(operation);
+        long start = operationMeters.started(events);
+        CompletableFuture<T> reply;
+        try {
+            reply = call.get();
+        } catch (RuntimeException e) {
+            operationMeters.failed(start);
+            throw e;
+        }
+        return reply.whenComplete((result, error) -> {
+            if (error != null) {
+                operationMeters.failed(start);
+            } else {
+                operationMeters.replied(start, events, result);
+            }
+        });
+    }
+
+    private static final class OperationMeters {
+        private final MeterRegistry registry;
+        private final String operation;
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary events;
+        private final DistributionSummary rows;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter[] transferResults = new Counter[CreateTransferResult.values().length];
+        private final Counter[] accountResults = new Counter[CreateAccountResult.values().length];
+
+        OperationMeters(MeterRegistry registry, ClusterOperation clusterOperation) {
+            this.registry = registry;
+            this.operation = clusterOperation.name().toLowerCase(Locale.ROOT);
+            this.success = timer("success");
+            this.error = timer("error");
+            this.events = DistributionSummary.builder("tigerbeetle.client.request.events")
+                    .description("Events sent per round trip")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(8190.0)
+                    .register(registry);
+            this.rows = DistributionSummary.builder("tigerbeetle.client.reply.rows")
+                    .description("Rows returned per round trip")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(8190.0)
+                    .register(registry);
+            Gauge.builder("tigerbeetle.client.in.flight", inFlight, AtomicInteger::get)
+                    .description("Requests sent to the cluster and not yet answered")
+                    .tag("operation", operation)
+                    .register(registry);
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder("tigerbeetle.client.requests")
+                    .description("Round trips to the cluster")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        long started(int eventCount) {
+            inFlight.incrementAndGet();
+            events.record(eventCount);
+            return System.nanoTime();
+        }
+
+        void failed(long start) {
+            error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+        }
+
+        void replied(long start, int eventCount, Object reply) {
+            success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+            if (reply instanceof CreateTransferResultBatch results) {
+                int failures = 0;
+                while (results.next()) {
+                    transferResult(results.getResult()).increment();
+                    failures++;
+                }
+                results.beforeFirst();
+                transferResult(CreateTransferResult.Ok).increment(eventCount - failures);
+            } else if (reply instanceof CreateAccountResultBatch results) {
+                int failures = 0;
+                while (results.next()) {
+                    accountResult(results.getResult()).increment();
+                    failures++;
+                }
+                results.beforeFirst();
+                accountResult(CreateAccountResult.Ok).increment(eventCount - failures);
+            } else if (reply instanceof Batch batch) {
+                rows.record(batch.getLength());
+            }
+        }
+
+        private Counter transferResult(CreateTransferResult result) {
+            var counter = transferResults[result.ordinal()];
+            if (counter == null) {
+                counter = resultCounter(result.name());
+                transferResults[result.ordinal()] = counter;
+            }
+            return counter;
+        }
+
+        private Counter accountResult(CreateAccountResult result) {
+            var counter = accountResults[result.ordinal()];
+            if (counter == null) {
+                counter = resultCounter(result.name());
+                accountResults[result.ordinal()] = counter;
+            }
+            return counter;
+        }
+
+        private Counter resultCounter(String result) {
+            return Counter.builder("tigerbeetle.client.results")
+                    .description("Create results by code")
+                    .tag("operation", operation)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
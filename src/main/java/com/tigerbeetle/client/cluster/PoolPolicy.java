@@ -0,0 +1,7 @@
+package com.tigerbeetle.client.cluster;
+
+public enum PoolPolicy {
+    ROUND_ROBIN,
+    LEAST_IN_FLIGHT,
+    ACCOUNT_AFFINITY
+}
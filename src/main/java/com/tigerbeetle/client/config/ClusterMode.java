@@ -0,0 +1,6 @@
+package com.tigerbeetle.client.config;
+
+public enum ClusterMode {
+    CLUSTER,
+    IN_MEMORY
+}
@@ -0,0 +1,78 @@
+package com.tigerbeetle.client.config;
+
+import com.tigerbeetle.client.cluster.AdaptiveLimitClusterOperations;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.cluster.ForwardingClusterOperations;
+import com.tigerbeetle.client.cluster.GatedClusterOperations;
+import com.tigerbeetle.client.repository.LookupBatcher;
+import com.tigerbeetle.client.repository.TransferBatcher;
+import com.tigerbeetle.client.repository.TransferProjection;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    MeterBinder clusterGateMetrics(ClusterOperations clusterOperations) {
+        return registry -> {
+            for (var layer = clusterOperations; layer instanceof ForwardingClusterOperations forwarding; layer = forwarding.getDelegate()) {
+                if (layer instanceof AdaptiveLimitClusterOperations limiter) {
+                    Gauge.builder("tigerbeetle.limiter.limit", limiter, AdaptiveLimitClusterOperations::getLimit)
+                            .description("Requests the adaptive limiter currently lets through to the cluster")
+                            .register(registry);
+                    Gauge.builder("tigerbeetle.limiter.in.flight", limiter, AdaptiveLimitClusterOperations::getInFlight)
+                            .description("Requests admitted by the adaptive limiter and not yet answered")
+                            .register(registry);
+                    FunctionCounter.builder("tigerbeetle.limiter.rejected", limiter, AdaptiveLimitClusterOperations::getRejected)
+                            .description("Requests shed because the limit was reached")
+                            .register(registry);
+                }
+                if (layer instanceof GatedClusterOperations gate) {
+                    Gauge.builder("tigerbeetle.gate.in.flight", gate, GatedClusterOperations::getInFlight)
+                            .description("Requests holding a permit to the cluster")
+                            .register(registry);
+                    Gauge.builder("tigerbeetle.gate.waiting", gate, GatedClusterOperations::getWaiting)
+                            .description("Async requests queued for a permit")
+                            .register(registry);
+                }
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder transferBatcherMetrics(TransferBatcher transferBatcher) {
+        return registry -> {
+            Gauge.builder("tigerbeetle.batcher.queued", transferBatcher, TransferBatcher::getQueued)
+                    .description("Single transfers waiting to be batched")
+                    .register(registry);
+            Gauge.builder("tigerbeetle.batcher.in.flight", transferBatcher, TransferBatcher::getBatchesInFlight)
+                    .description("Coalesced batches sent and not yet answered")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder lookupBatcherMetrics(LookupBatcher lookupBatcher) {
+        return registry -> Gauge.builder("tigerbeetle.lookups.queued", lookupBatcher, LookupBatcher::getQueued)
+                .description("Account and transfer ids waiting to be looked up")
+                .register(registry);
+    }
+
+    @Bean
+    MeterBinder transferProjectionMetrics(TransferProjection projection) {
+        return registry -> {
+            if (projection.isEnabled()) {
+                Gauge.builder("tigerbeetle.projection.transfers", projection, TransferProjection::getCount)
+                        .description("Transfers copied into the local projection")
+                        .register(registry);
+                Gauge.builder("tigerbeetle.projection.watermark", projection, p -> p.getWatermark() / 1e9)
+                        .description("Cluster timestamp of the newest projected transfer, in epoch seconds")
+                        .register(registry);
+            }
+        };
+    }
+}
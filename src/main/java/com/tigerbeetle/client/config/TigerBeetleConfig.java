@@ -2,11 +2,25 @@ package com.tigerbeetle.client.config;
 
 import com.tigerbeetle.Client;
 import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.AdaptiveLimitClusterOperations;
+import com.tigerbeetle.client.cluster.ClientClusterOperations;
+import com.tigerbeetle.client.cluster.ClientPool;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.cluster.GatedClusterOperations;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.cluster.MeteredClusterOperations;
+import com.tigerbeetle.client.cluster.PoolPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 import java.math.BigInteger;
+import java.time.Duration;
 
 @Configuration
 public class TigerBeetleConfig {
@@ -17,8 +31,80 @@ public class TigerBeetleConfig {
     @Value("${tb_address:3000}")
     private String[] replicaAddress;
 
-    @Bean
+    @Value("${tigerbeetle.gate.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${tigerbeetle.gate.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Value("${tigerbeetle.limiter.enabled:true}")
+    private boolean limiterEnabled;
+
+    @Value("${tigerbeetle.limiter.initial-limit:64}")
+    private int limiterInitialLimit;
+
+    @Value("${tigerbeetle.limiter.min-limit:8}")
+    private int limiterMinLimit;
+
+    @Value("${tigerbeetle.limiter.max-limit:1024}")
+    private int limiterMaxLimit;
+
+    @Value("${tigerbeetle.limiter.backoff-ratio:0.9}")
+    private double limiterBackoffRatio;
+
+    @Value("${tigerbeetle.limiter.tolerance:2.0}")
+    private double limiterTolerance;
+
+    @Value("${tigerbeetle.pool.size:1}")
+    private int poolSize;
+
+    @Value("${tigerbeetle.pool.policy:ROUND_ROBIN}")
+    private PoolPolicy poolPolicy;
+
+    @Value("${tigerbeetle.pool.cooldown-ms:1000}")
+    private long poolCooldownMs;
+
+    @Value("${tigerbeetle.mode:CLUSTER}")
+    private ClusterMode mode;
+
+    @Value("${tigerbeetle.in-memory.latency-micros:0}")
+    private long inMemoryLatencyMicros;
+
+    @Value("${tigerbeetle.in-memory.jitter-micros:0}")
+    private long inMemoryJitterMicros;
+
     Client tigerBeetleClient() {
         return new Client(UInt128.asBytes(clusterID), replicaAddress);
     }
+
+    @Bean
+    ClusterOperations clusterBackend() {
+        if (mode == ClusterMode.IN_MEMORY) {
+            return new InMemoryClusterOperations(Duration.ofNanos(inMemoryLatencyMicros * 1000), Duration.ofNanos(inMemoryJitterMicros * 1000));
+        }
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new ClientPool(size, poolPolicy, Duration.ofMillis(poolCooldownMs),
+                () -> new ClientClusterOperations(tigerBeetleClient()));
+    }
+
+    /**
+     * The cluster behind the gate only, for background work and the batchers, which bound their own
+     * requests in flight and must not have them shed like a single HTTP request.
+     */
+    @Bean
+    ClusterOperations internalClusterOperations(@Qualifier("clusterBackend") ClusterOperations clusterBackend,
+                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        var metered = new MeteredClusterOperations(clusterBackend, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        return new GatedClusterOperations(metered, maxInFlight, Duration.ofMillis(acquireTimeoutMs));
+    }
+
+    @Bean
+    @Primary
+    ClusterOperations clusterOperations(@Qualifier("internalClusterOperations") ClusterOperations internalClusterOperations) {
+        if (!limiterEnabled) {
+            return internalClusterOperations;
+        }
+        return new AdaptiveLimitClusterOperations(internalClusterOperations, limiterInitialLimit, limiterMinLimit, limiterMaxLimit,
+                limiterBackoffRatio, limiterTolerance);
+    }
 }
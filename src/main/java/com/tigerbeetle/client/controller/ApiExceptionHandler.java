@@ -0,0 +1,35 @@
+package com.tigerbeetle.client.controller;
+
+import com.tigerbeetle.client.dto.ClusterBusyException;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps exceptions from every controller to responses: cluster back-pressure to 503 or 429 with a
+ * retry hint, invalid input to 400.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(ClusterBusyException.class)
+    public ResponseEntity<String> handleClusterBusy(ClusterBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ClusterOverloadedException.class)
+    public ResponseEntity<String> handleClusterOverloaded(ClusterOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,74 @@
+package com.tigerbeetle.client.controller;
+
+import com.tigerbeetle.client.dto.*;
+import com.tigerbeetle.client.repository.AsyncAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping(path = "/v1/tiger-beetle/async")
+public class AsyncTigerBeetleClientController {
+
+    @Autowired
+    AsyncAccountRepository repo;
+
+    @PostMapping("/accounts")
+    public CompletableFuture<List<Account>> processRequest(@RequestBody List<Account> accounts) {
+        return repo.createAccountBatch(accounts);
+    }
+
+    @GetMapping("/accounts/{id}")
+    public CompletableFuture<Account> fetchAccounts(@PathVariable("id") UUID id) {
+        return repo.findAccountById(id).thenApply(account -> account.orElseThrow(() -> new RuntimeException("Not found")));
+    }
+
+    @PostMapping("accounts/lookup")
+    public CompletableFuture<List<Account>> lookupListOfAccounts(@RequestBody UUID[] ids) {
+        return repo.findAccountsById(ids).thenApply(found -> found.values().stream().toList());
+    }
+
+    @PostMapping("/batch/transfers")
+    public CompletableFuture<List<Transfer>> postBatchTransfers(@RequestBody List<Transfer> transfers) {
+        return repo.createBatchTransfer(transfers);
+    }
+
+    @PostMapping("/pending/transfers")
+    public CompletableFuture<Transfer> postPendingTransfers(@RequestBody Transfer transfers) {
+        return repo.createPendingTransfer(transfers);
+    }
+
+    @PutMapping("/pending/transfers")
+    public CompletableFuture<Transfer> resolveTransfers(@RequestBody Transfer transfers) {
+        return repo.completePendingTransfer(transfers);
+    }
+
+    @PostMapping("/transactions/history")
+    public CompletableFuture<List<Transfer>> fetchTransactionsByCriteria(@RequestBody Filters filter) {
+        return repo.listAccountTransfers(filter);
+    }
+
+    @PostMapping("/accounts/extraction")
+    public CompletableFuture<List<Account>> fetchAccountsByBatchFilter(@RequestBody BatchFilter filter) {
+        return repo.fetchAccountsByBatchFilter(filter);
+    }
+
+    @PostMapping("/transactions/extraction")
+    public CompletableFuture<List<Transfer>> fetchTransactionsByBatchFilter(@RequestBody BatchFilter filter) {
+        return repo.fetchTransactionByBatchFilter(filter);
+    }
+
+    @PostMapping("/balance/history")
+    public CompletableFuture<List<Balance>> fetchBalanceByCriteria(@RequestBody Filters filter) {
+        return repo.listAccountBalances(filter);
+    }
+
+    @GetMapping("/transfers/{id}")
+    public CompletableFuture<Transfer> fetchTxnById(@PathVariable("id") UUID id) {
+        return repo.findTransfersById(id);
+    }
+
+}
@@ -1,10 +1,21 @@
 package com.tigerbeetle.client.controller;
 
+import com.tigerbeetle.CreateTransferResult;
 import com.tigerbeetle.client.dto.*;
 import com.tigerbeetle.client.repository.AccountRepository;
+import com.tigerbeetle.client.repository.BalanceSeries;
+import com.tigerbeetle.client.repository.TransferBatcher;
+import com.tigerbeetle.client.repository.TransferProjection;
+import com.tigerbeetle.client.repository.TransferRecords;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,37 +23,104 @@ import java.util.UUID;
 @RequestMapping(path = "/v1/tiger-beetle")
 public class TigerBeetleClientController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     AccountRepository repo;
 
+    @Autowired
+    BalanceSeries balanceSeries;
+
+    @Autowired
+    TransferProjection projection;
+
+    @Value("${tigerbeetle.response.default-mode:MINIMAL}")
+    ResponseMode defaultResponseMode;
+
     @PostMapping("/accounts")
-    public List<Account> processRequest(@RequestBody List<Account> accounts) {
-        return repo.createAccountBatch(accounts);
+    public List<?> processRequest(@RequestBody List<Account> accounts,
+                                  @RequestHeader(name = "Prefer", required = false) String prefer,
+                                  @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (ResponseMode.fromPrefer(prefer, defaultResponseMode) == ResponseMode.MINIMAL) {
+            return repo.submitAccountBatch(accounts, idempotencyKey);
+        }
+        return repo.createAccountBatch(accounts, idempotencyKey);
     }
 
     @GetMapping("/accounts/{id}")
-    public Account fetchAccounts(@PathVariable("id") UUID id) {
-        return repo.findAccountById(id).orElseThrow(() -> new RuntimeException("Not found"));
+    public Account fetchAccounts(@PathVariable("id") UUID id,
+                                 @RequestParam(name = "maxStalenessMs", required = false) Long maxStalenessMs) {
+        var account = maxStalenessMs == null
+                ? repo.findAccountById(id)
+                : repo.findAccountById(id, Duration.ofMillis(maxStalenessMs));
+        return account.orElseThrow(() -> new RuntimeException("Not found"));
+    }
+
+    @PostMapping("/accounts/{id}/stripes")
+    public Account stripeAccount(@PathVariable("id") UUID id) {
+        return repo.stripeAccount(id).orElseThrow(() -> new RuntimeException("Not found"));
     }
 
     @PostMapping("accounts/lookup")
-    public List<Account> lookupListOfAccounts(@RequestBody UUID[] ids) {
-        return repo.findAccountsById(ids).values().stream().toList();
+    public List<Account> lookupListOfAccounts(@RequestBody UUID[] ids,
+                                              @RequestParam(name = "maxStalenessMs", required = false) Long maxStalenessMs) {
+        var accounts = maxStalenessMs == null
+                ? repo.findAccountsById(ids)
+                : repo.findAccountsById(ids, Duration.ofMillis(maxStalenessMs));
+        return accounts.values().stream().toList();
     }
 
     @PostMapping("/batch/transfers")
-    public List postBatchTransfers(@RequestBody List<Transfer> transfers) {
-        return repo.createBatchTransfer(transfers);
+    public Object postBatchTransfers(@RequestBody List<Transfer> transfers,
+                                     @RequestParam(name = "mode", defaultValue = "LINKED") BatchMode mode,
+                                     @RequestHeader(name = "Prefer", required = false) String prefer,
+                                     @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (mode == BatchMode.INDEPENDENT) {
+            return repo.submitIndependentTransfers(transfers, idempotencyKey);
+        }
+        if (ResponseMode.fromPrefer(prefer, defaultResponseMode) == ResponseMode.MINIMAL) {
+            return repo.submitBatchTransfer(transfers, idempotencyKey);
+        }
+        return repo.createBatchTransfer(transfers, idempotencyKey);
+    }
+
+    @PostMapping(path = "/batch/transfers", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public List<EventResult<CreateTransferResult>> postTransferRecords(@RequestBody byte[] records) {
+        if (records.length == 0 || records.length % TransferRecords.SIZE != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Body must hold whole " + TransferRecords.SIZE + "-byte transfer records");
+        }
+        if (records.length / TransferRecords.SIZE > TransferBatcher.MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + TransferBatcher.MAX_BATCH_SIZE + " transfer records per request");
+        }
+        return repo.submitTransferRecords(ByteBuffer.wrap(records));
     }
 
     @PostMapping("/pending/transfers")
-    public Transfer postPendingTransfers(@RequestBody Transfer transfers) {
-        return repo.createPendingTransfer(transfers);
+    public Object postPendingTransfers(@RequestBody Transfer transfers,
+                                       @RequestHeader(name = "Prefer", required = false) String prefer,
+                                       @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (ResponseMode.fromPrefer(prefer, defaultResponseMode) == ResponseMode.MINIMAL) {
+            return repo.submitPendingTransfer(transfers, idempotencyKey);
+        }
+        return repo.createPendingTransfer(transfers, idempotencyKey);
     }
 
     @PutMapping("/pending/transfers")
-    public Transfer resolveTransfers(@RequestBody Transfer transfers) {
-        return repo.completePendingTransfer(transfers);
+    public Object resolveTransfers(@RequestBody Transfer transfers,
+                                   @RequestHeader(name = "Prefer", required = false) String prefer,
+                                   @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (ResponseMode.fromPrefer(prefer, defaultResponseMode) == ResponseMode.MINIMAL) {
+            return repo.submitPendingCompletion(transfers, idempotencyKey);
+        }
+        return repo.completePendingTransfer(transfers, idempotencyKey);
+    }
+
+    @PostMapping("/pending/transfers/resolutions")
+    public List<ResolutionResult> resolvePendingTransfers(@RequestBody List<PendingResolution> resolutions,
+                                                          @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return repo.resolvePendingTransfers(resolutions, idempotencyKey);
     }
 
     @PostMapping("/transactions/history")
@@ -56,7 +134,14 @@ public class TigerBeetleClientController {
     }
 
     @PostMapping("/transactions/extraction")
-    public List<Transfer> fetchTransactionsByBatchFilter(@RequestBody BatchFilter filter) {
+    public List<Transfer> fetchTransactionsByBatchFilter(@RequestBody BatchFilter filter,
+                                                         @RequestParam(name = "source", defaultValue = "CLUSTER") QuerySource source) {
+        if (source == QuerySource.PROJECTION) {
+            if (!projection.isEnabled()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The transfer projection is not enabled");
+            }
+            return projection.fetchTransfers(filter);
+        }
         return repo.fetchTransactionByBatchFilter(filter);
     }
 
@@ -65,9 +150,23 @@ public class TigerBeetleClientController {
         return repo.listAccountBalances(filter);
     }
 
+    @PostMapping("/balance/series")
+    public List<BalanceBucket> fetchBalanceSeries(@RequestBody BalanceSeriesRequest request) {
+        if (request.accountId() == null || request.fromDate() == null) {
+            throw new IllegalArgumentException("accountId and fromDate are required");
+        }
+        repo.requireUnstriped(request.accountId(), AccountRepository.BALANCE_HISTORY);
+        long toMs = request.toDate() != null ? request.toDate().getTime() : System.currentTimeMillis();
+        return balanceSeries.downsample(request.accountId(), request.fromDate().getTime(), toMs, request.intervalMs());
+    }
+
     @GetMapping("/transfers/{id}")
     public Transfer fetchTxnById(@PathVariable("id") UUID id) {
         return repo.findTransfersById(id);
     }
 
+    @PostMapping("transfers/lookup")
+    public List<Transfer> lookupListOfTransfers(@RequestBody UUID[] ids) {
+        return repo.findTransfersByBatchIds(List.of(ids)).values().stream().toList();
+    }
 }
@@ -0,0 +1,165 @@
+package com.tigerbeetle.client.controller;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.tigerbeetle.Batch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.proto.BatchProtoReader;
+import com.tigerbeetle.client.proto.BatchProtoWriter;
+import com.tigerbeetle.client.repository.AccountRepository;
+import com.tigerbeetle.client.repository.TransferBatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Protobuf counterpart of the JSON endpoints for service-to-service traffic, using the messages of
+ * {@code proto/tigerbeetle_client.proto} on the classpath. Requests are decoded straight into
+ * {@link TransferBatch}es and filters and replies are written from the result batches, on top of the
+ * same {@link AccountRepository}.
+ */
+@RestController
+@RequestMapping(path = "/v1/tiger-beetle/proto")
+public class TigerBeetleProtoController {
+
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
+    private static final MediaType PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF);
+
+    @Autowired
+    AccountRepository repo;
+
+    /**
+     * Transfers are created with their own flags: pending transfers and their post or void go here
+     * too, and only transfers flagged {@code LINKED} are chained.
+     */
+    @PostMapping(path = "/transfers", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    public ResponseEntity<byte[]> createTransfers(@RequestBody byte[] body) throws IOException {
+        int count = BatchProtoReader.count(body);
+        if (count == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "TransferList must hold at least one transfer");
+        }
+        if (count > TransferBatcher.MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + TransferBatcher.MAX_BATCH_SIZE + " transfers per request");
+        }
+        var results = repo.submitTransferBatch(BatchProtoReader.readTransfers(body));
+        return reply(out -> {
+            var writer = new BatchProtoWriter();
+            for (var result : results) {
+                writer.writeResult(out, result.id(), result.result());
+            }
+        });
+    }
+
+    @PostMapping(path = "/accounts/lookup", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    public ResponseEntity<byte[]> lookupAccounts(@RequestBody byte[] body) throws IOException {
+        var ids = BatchProtoReader.readIds(body);
+        var found = repo.findAccountsById(ids.toArray(UUID[]::new));
+        return reply(out -> {
+            var writer = new BatchProtoWriter();
+            for (var account : ids.stream().distinct().map(found::get).filter(Objects::nonNull).toList()) {
+                writer.writeAccount(out, account);
+            }
+        });
+    }
+
+    @PostMapping(path = "/transfers/lookup", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    public ResponseEntity<byte[]> lookupTransfers(@RequestBody byte[] body) throws IOException {
+        var ids = BatchProtoReader.readIds(body);
+        if (ids.isEmpty()) {
+            return reply(out -> {});
+        }
+        var found = repo.lookupTransferBatch(ids);
+        return reply(out -> {
+            var writer = new BatchProtoWriter();
+            while (found.next()) {
+                writer.writeTransfer(out, found);
+            }
+        });
+    }
+
+    @PostMapping(path = "/transfers/history", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    public ResponseEntity<StreamingResponseBody> streamTransfers(@RequestBody byte[] body) throws IOException {
+        var filter = BatchProtoReader.readAccountFilter(body);
+        repo.requireUnstriped(UInt128.asUUID(filter.getAccountId()), AccountRepository.STATEMENT);
+        return stream(out -> {
+            var writer = new BatchProtoWriter();
+            repo.streamAccountTransfers(filter, filter.getLimit(), page -> write(out, page, writer::writeTransfer));
+        });
+    }
+
+    @PostMapping(path = "/balances/history", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    public ResponseEntity<StreamingResponseBody> streamBalances(@RequestBody byte[] body) throws IOException {
+        var filter = BatchProtoReader.readAccountFilter(body);
+        repo.requireUnstriped(UInt128.asUUID(filter.getAccountId()), AccountRepository.BALANCE_HISTORY);
+        return stream(out -> {
+            var writer = new BatchProtoWriter();
+            repo.streamAccountBalances(filter, filter.getLimit(), page -> write(out, page, writer::writeBalance));
+        });
+    }
+
+    @ExceptionHandler(InvalidProtocolBufferException.class)
+    public ResponseEntity<String> handleInvalidMessage(InvalidProtocolBufferException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static ResponseEntity<byte[]> reply(Body body) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = CodedOutputStream.newInstance(bytes);
+        body.writeTo(out);
+        out.flush();
+        return ResponseEntity.ok().contentType(PROTOBUF).body(bytes.toByteArray());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(Body body) {
+        StreamingResponseBody stream = (OutputStream response) -> {
+            var out = CodedOutputStream.newInstance(response);
+            try {
+                body.writeTo(out);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(PROTOBUF).body(stream);
+    }
+
+    /**
+     * Writes every row of a page and flushes it, so the reply goes out page by page.
+     */
+    private static <B extends Batch> void write(CodedOutputStream out, B page, RowWriter<B> row) {
+        try {
+            while (page.next()) {
+                row.write(out, page);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Body {
+        void writeTo(CodedOutputStream out) throws IOException;
+    }
+
+    private interface RowWriter<B> {
+        void write(CodedOutputStream out, B row) throws IOException;
+    }
+}
@@ -0,0 +1,149 @@
+package com.tigerbeetle.client.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.AccountBalanceBatch;
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.client.dto.BatchFilter;
+import com.tigerbeetle.client.dto.Filters;
+import com.tigerbeetle.client.dto.QuerySource;
+import com.tigerbeetle.client.dto.StatementRequest;
+import com.tigerbeetle.client.json.BatchJsonWriter;
+import com.tigerbeetle.client.repository.AccountRepository;
+import com.tigerbeetle.client.repository.AccountStatements;
+import com.tigerbeetle.client.repository.AccountStripes;
+import com.tigerbeetle.client.repository.TransferProjection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON variants of the extraction and history endpoints. Rows are paged from the cluster with a
+ * timestamp cursor and written out page by page, so {@code limit} caps the whole stream (0 means no cap)
+ * rather than a single query. Rows are written straight from the result batches by {@link BatchJsonWriter}.
+ * The per-account history streams refuse striped accounts, which the statement stream covers instead.
+ */
+@RestController
+@RequestMapping(path = "/v1/tiger-beetle")
+public class TigerBeetleStreamController {
+
+    @Autowired
+    AccountRepository repo;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    TransferProjection projection;
+
+    @Autowired
+    AccountStatements statements;
+
+    @Autowired
+    AccountStripes stripes;
+
+    @PostMapping(path = "/transactions/extraction/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactionsByBatchFilter(@RequestBody BatchFilter filter,
+                                                                                 @RequestParam(name = "source", defaultValue = "CLUSTER") QuerySource source) {
+        if (source == QuerySource.PROJECTION) {
+            if (!projection.isEnabled()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The transfer projection is not enabled");
+            }
+            var withStripes = stripes.withStripes(filter);
+            return ndjson(sink -> projection.forEachPage(withStripes, page -> sink.writeTransfers(stripes.toLogical(page))));
+        }
+        return ndjson(sink -> repo.streamTransfersByBatchFilter(filter, sink::writeTransfers));
+    }
+
+    @PostMapping(path = "/accounts/extraction/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAccountsByBatchFilter(@RequestBody BatchFilter filter) {
+        return ndjson(sink -> repo.streamAccountsByBatchFilter(filter, sink::writeAccounts));
+    }
+
+    @PostMapping(path = "/transactions/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactionsByCriteria(@RequestBody Filters filter) {
+        repo.requireUnstriped(filter.accountId(), AccountRepository.STATEMENT);
+        return ndjson(sink -> repo.streamAccountTransfers(filter, sink::writeTransfers));
+    }
+
+    @PostMapping(path = "/balance/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBalanceByCriteria(@RequestBody Filters filter) {
+        repo.requireUnstriped(filter.accountId(), AccountRepository.BALANCE_HISTORY);
+        return ndjson(sink -> repo.streamAccountBalances(filter, page -> sink.writeBalances(filter.accountId(), page)));
+    }
+
+    /**
+     * Transfers of every account in the request, merged into one timestamp-ordered stream; a transfer
+     * between two of the accounts is written once.
+     */
+    @PostMapping(path = "/transactions/statement/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStatement(@RequestBody StatementRequest request) {
+        var statement = statements.open(request);
+        return ndjson(sink -> statement.forEachPage(sink::writeTransfers));
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<NdjsonSink> body) {
+        StreamingResponseBody stream = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                body.accept(new NdjsonSink(generator, new BatchJsonWriter()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    private record NdjsonSink(JsonGenerator generator, BatchJsonWriter json) {
+
+        void writeTransfers(TransferBatch page) {
+            try {
+                while (page.next()) {
+                    json.writeTransfer(generator, page);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeAccounts(AccountBatch page) {
+            try {
+                while (page.next()) {
+                    json.writeAccount(generator, page);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeBalances(UUID accountId, AccountBalanceBatch page) {
+            try {
+                while (page.next()) {
+                    json.writeBalance(generator, accountId, page);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
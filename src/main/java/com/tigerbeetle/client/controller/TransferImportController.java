@@ -0,0 +1,35 @@
+package com.tigerbeetle.client.controller;
+
+import com.tigerbeetle.client.dto.ImportException;
+import com.tigerbeetle.client.dto.ImportRequest;
+import com.tigerbeetle.client.dto.ImportStatus;
+import com.tigerbeetle.client.repository.TransferImporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "/v1/tiger-beetle/imports")
+public class TransferImportController {
+
+    @Autowired
+    TransferImporter importer;
+
+    @PostMapping
+    public ResponseEntity<ImportStatus> startImport(@RequestBody ImportRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importer.start(request));
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportStatus> importStatus(@PathVariable("importId") String importId) {
+        return importer.status(importId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(ImportException.class)
+    public ResponseEntity<String> handleImportException(ImportException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
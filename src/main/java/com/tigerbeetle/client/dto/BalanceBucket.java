@@ -0,0 +1,23 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+import java.math.BigInteger;
+
+/**
+ * One interval of an account's balance history. Net position is {@code creditsPosted - debitsPosted}:
+ * {@code open} is the position entering the interval, {@code close} the position after its last
+ * change, and {@code min}/{@code max} range over both. {@code volume} is the posted debits and credits
+ * added during the interval and {@code changes} the number of balance rows it holds.
+ */
+@Builder
+public record BalanceBucket(
+        long start,
+        BigInteger open,
+        BigInteger close,
+        BigInteger min,
+        BigInteger max,
+        BigInteger volume,
+        int changes
+) {
+}
@@ -0,0 +1,15 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Builder
+public record BalanceSeriesRequest(
+        UUID accountId,
+        Date fromDate,
+        Date toDate,
+        long intervalMs
+) {
+}
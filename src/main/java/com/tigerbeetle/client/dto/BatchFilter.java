@@ -1,8 +1,17 @@
 package com.tigerbeetle.client.dto;
 
+import java.math.BigInteger;
 import java.util.Date;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Extraction query. {@code accountNumber} (user data 128), the other user data fields, {@code code},
+ * {@code ledger} and the date range are evaluated by the cluster. The amount range, the flag masks
+ * ({@code flagsSet}: all of these bits, {@code flagsUnset}: none of them) and the debit/credit account
+ * sets only apply to transfers and are evaluated here while the result pages stream in; {@code limit}
+ * then counts matching transfers.
+ */
 public record BatchFilter(
         UUID accountNumber,
         long userData64,
@@ -12,6 +21,12 @@ public record BatchFilter(
         Date fromDate,
         Date toDate,
         int limit,
-        boolean reversed
+        boolean reversed,
+        BigInteger amountMin,
+        BigInteger amountMax,
+        int flagsSet,
+        int flagsUnset,
+        Set<UUID> debitAccountIds,
+        Set<UUID> creditAccountIds
 ) {
 }
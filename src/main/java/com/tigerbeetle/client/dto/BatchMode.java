@@ -0,0 +1,11 @@
+package com.tigerbeetle.client.dto;
+
+/**
+ * How {@code POST /batch/transfers} treats the transfers of one request. {@code LINKED} chains all
+ * of them, so they succeed or fail together. {@code INDEPENDENT} keeps each transfer's own flags:
+ * transfers stand alone unless the caller chains them with {@code TransferFlags.LINKED}.
+ */
+public enum BatchMode {
+    LINKED,
+    INDEPENDENT
+}
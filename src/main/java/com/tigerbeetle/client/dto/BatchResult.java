@@ -0,0 +1,11 @@
+package com.tigerbeetle.client.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a batch in compact form: the ids of all events in request order, and a result only for
+ * the events that failed, keyed by their index in the request.
+ */
+public record BatchResult<R>(List<UUID> ids, List<IndexedResult<R>> errors) {
+}
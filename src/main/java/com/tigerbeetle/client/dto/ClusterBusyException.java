@@ -0,0 +1,8 @@
+package com.tigerbeetle.client.dto;
+
+public class ClusterBusyException extends RuntimeException {
+
+    public ClusterBusyException(String operation) {
+        super("Too many requests in flight to the cluster, " + operation + " was not started");
+    }
+}
@@ -0,0 +1,12 @@
+package com.tigerbeetle.client.dto;
+
+public class ClusterOverloadedException extends RuntimeException {
+
+    public ClusterOverloadedException(String operation, int limit) {
+        super("Concurrency limit of " + limit + " requests to the cluster reached, " + operation + " was not started");
+    }
+
+    public ClusterOverloadedException(String message) {
+        super(message);
+    }
+}
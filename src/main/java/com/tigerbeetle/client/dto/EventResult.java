@@ -0,0 +1,6 @@
+package com.tigerbeetle.client.dto;
+
+import java.util.UUID;
+
+public record EventResult<R>(UUID id, R result) {
+}
@@ -0,0 +1,12 @@
+package com.tigerbeetle.client.dto;
+
+public class ImportException extends RuntimeException {
+
+    public ImportException(String message) {
+        super(message);
+    }
+
+    public ImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
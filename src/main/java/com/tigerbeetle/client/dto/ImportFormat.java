@@ -0,0 +1,6 @@
+package com.tigerbeetle.client.dto;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,11 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+/**
+ * {@code file} is resolved against the configured import directory. {@code importId} keys the
+ * checkpoint and the generated transfer ids; it defaults to the file's name, size and modification time.
+ */
+@Builder
+public record ImportRequest(String file, ImportFormat format, String importId) {
+}
@@ -0,0 +1,20 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+@Builder
+public record ImportStatus(
+        String importId,
+        String file,
+        State state,
+        long rowsRead,
+        long rowsCommitted,
+        long rowsFailed,
+        String error
+) {
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
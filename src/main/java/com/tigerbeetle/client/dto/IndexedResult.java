@@ -0,0 +1,4 @@
+package com.tigerbeetle.client.dto;
+
+public record IndexedResult<R>(int index, R result) {
+}
@@ -0,0 +1,20 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+import java.math.BigInteger;
+import java.util.UUID;
+
+/**
+ * A decision on one pending transfer. {@code amount} only applies to {@code POST}: left out, the whole
+ * pending amount is posted; a smaller amount posts part of it and releases the rest. A void always
+ * releases the whole amount.
+ */
+@Builder
+public record PendingResolution(UUID pendingId, Action action, BigInteger amount) {
+
+    public enum Action {
+        POST,
+        VOID
+    }
+}
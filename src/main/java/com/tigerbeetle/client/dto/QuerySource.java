@@ -0,0 +1,10 @@
+package com.tigerbeetle.client.dto;
+
+/**
+ * Where an extraction query is answered: by the cluster, or by the local transfer projection, which
+ * trails the cluster by up to one poll interval but adds no load to it.
+ */
+public enum QuerySource {
+    CLUSTER,
+    PROJECTION
+}
@@ -0,0 +1,8 @@
+package com.tigerbeetle.client.dto;
+
+import com.tigerbeetle.CreateTransferResult;
+
+import java.util.UUID;
+
+public record ResolutionResult(UUID pendingId, UUID id, CreateTransferResult result) {
+}
@@ -0,0 +1,29 @@
+package com.tigerbeetle.client.dto;
+
+import java.util.Locale;
+
+/**
+ * What a create endpoint echoes back, chosen per request with the {@code Prefer} header (RFC 7240):
+ * {@code return=minimal} answers with the generated ids and result codes only, while
+ * {@code return=representation} looks the created objects up again.
+ */
+public enum ResponseMode {
+    MINIMAL,
+    REPRESENTATION;
+
+    public static ResponseMode fromPrefer(String prefer, ResponseMode fallback) {
+        if (prefer == null) {
+            return fallback;
+        }
+        for (String preference : prefer.split("[,;]")) {
+            String value = preference.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("return=minimal")) {
+                return MINIMAL;
+            }
+            if (value.equals("return=representation")) {
+                return REPRESENTATION;
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tigerbeetle.client.dto;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+
+@Builder
+public record StatementRequest(
+        Set<UUID> accountIds,
+        Date fromDate,
+        Date toDate,
+        int limit
+) {
+}
@@ -0,0 +1,198 @@
+package com.tigerbeetle.client.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.tigerbeetle.AccountBalanceBatch;
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.UUID;
+
+/**
+ * Writes the current row of a result batch as JSON, producing the same document Jackson would for
+ * the {@code Transfer}, {@code Account} and {@code Balance} records, without materializing them.
+ * Ids and timestamps are rendered into a reused buffer, so an instance must not be shared between threads.
+ */
+public class BatchJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString CODE = new SerializedString("code");
+    private static final SerializableString LEDGER = new SerializedString("ledger");
+    private static final SerializableString FLAGS = new SerializedString("flags");
+    private static final SerializableString DEBIT_ACCOUNT_ID = new SerializedString("debitAccountId");
+    private static final SerializableString CREDIT_ACCOUNT_ID = new SerializedString("creditAccountId");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString USER_DATA_32 = new SerializedString("userData32");
+    private static final SerializableString USER_DATA_64 = new SerializedString("userData64");
+    private static final SerializableString USER_DATA_128 = new SerializedString("userData128");
+    private static final SerializableString PENDING_ID = new SerializedString("pendingId");
+    private static final SerializableString ACCOUNT_NUMBER = new SerializedString("accountNumber");
+    private static final SerializableString ACCOUNT_ID = new SerializedString("accountId");
+    private static final SerializableString CREDITS_POSTED = new SerializedString("creditsPosted");
+    private static final SerializableString CREDITS_PENDING = new SerializedString("creditsPending");
+    private static final SerializableString DEBTS_POSTED = new SerializedString("debtsPosted");
+    private static final SerializableString DEBTS_PENDING = new SerializedString("debtsPending");
+    private static final SerializableString DEBITS_POSTED = new SerializedString("debitsPosted");
+    private static final SerializableString DEBITS_PENDING = new SerializedString("debitsPending");
+
+    private final char[] buffer = new char[36];
+
+    public void writeTransfer(JsonGenerator generator, TransferBatch batch) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        writeUuid(generator, batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant));
+        generator.writeFieldName(AMOUNT);
+        writeUnsigned(generator, batch.getAmount(UInt128.LeastSignificant), batch.getAmount(UInt128.MostSignificant));
+        generator.writeFieldName(CODE);
+        generator.writeNumber(batch.getCode());
+        generator.writeFieldName(LEDGER);
+        generator.writeNumber(batch.getLedger());
+        generator.writeFieldName(FLAGS);
+        generator.writeNumber(batch.getFlags());
+        generator.writeFieldName(DEBIT_ACCOUNT_ID);
+        writeUuid(generator, batch.getDebitAccountId(UInt128.LeastSignificant), batch.getDebitAccountId(UInt128.MostSignificant));
+        generator.writeFieldName(CREDIT_ACCOUNT_ID);
+        writeUuid(generator, batch.getCreditAccountId(UInt128.LeastSignificant), batch.getCreditAccountId(UInt128.MostSignificant));
+        generator.writeFieldName(TIMESTAMP);
+        writeTimestamp(generator, batch.getTimestamp());
+        generator.writeFieldName(USER_DATA_32);
+        generator.writeNumber(batch.getUserData32());
+        generator.writeFieldName(USER_DATA_64);
+        generator.writeNumber(batch.getUserData64());
+        generator.writeFieldName(USER_DATA_128);
+        writeUuid(generator, batch.getUserData128(UInt128.LeastSignificant), batch.getUserData128(UInt128.MostSignificant));
+        generator.writeFieldName(PENDING_ID);
+        writeUuid(generator, batch.getPendingId(UInt128.LeastSignificant), batch.getPendingId(UInt128.MostSignificant));
+        generator.writeEndObject();
+    }
+
+    public void writeAccount(JsonGenerator generator, AccountBatch batch) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        writeUuid(generator, batch.getId(UInt128.LeastSignificant), batch.getId(UInt128.MostSignificant));
+        generator.writeFieldName(ACCOUNT_NUMBER);
+        writeUnsigned(generator, batch.getUserData128(UInt128.LeastSignificant), batch.getUserData128(UInt128.MostSignificant));
+        generator.writeFieldName(CODE);
+        generator.writeNumber(batch.getCode());
+        generator.writeFieldName(LEDGER);
+        generator.writeNumber(batch.getLedger());
+        generator.writeFieldName(USER_DATA_32);
+        generator.writeNumber(batch.getUserData32());
+        generator.writeFieldName(USER_DATA_64);
+        generator.writeNumber(batch.getUserData64());
+        generator.writeFieldName(CREDITS_POSTED);
+        writeUnsigned(generator, batch.getCreditsPosted(UInt128.LeastSignificant), batch.getCreditsPosted(UInt128.MostSignificant));
+        generator.writeFieldName(CREDITS_PENDING);
+        writeUnsigned(generator, batch.getCreditsPending(UInt128.LeastSignificant), batch.getCreditsPending(UInt128.MostSignificant));
+        generator.writeFieldName(DEBTS_POSTED);
+        writeUnsigned(generator, batch.getDebitsPosted(UInt128.LeastSignificant), batch.getDebitsPosted(UInt128.MostSignificant));
+        generator.writeFieldName(DEBTS_PENDING);
+        writeUnsigned(generator, batch.getDebitsPending(UInt128.LeastSignificant), batch.getDebitsPending(UInt128.MostSignificant));
+        generator.writeFieldName(FLAGS);
+        generator.writeNumber(batch.getFlags());
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeNumber(batch.getTimestamp());
+        generator.writeEndObject();
+    }
+
+    public void writeBalance(JsonGenerator generator, UUID accountId, AccountBalanceBatch batch) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ACCOUNT_ID);
+        writeUuid(generator, accountId.getLeastSignificantBits(), accountId.getMostSignificantBits());
+        generator.writeFieldName(TIMESTAMP);
+        writeTimestamp(generator, batch.getTimestamp());
+        generator.writeFieldName(CREDITS_POSTED);
+        writeUnsigned(generator, batch.getCreditsPosted(UInt128.LeastSignificant), batch.getCreditsPosted(UInt128.MostSignificant));
+        generator.writeFieldName(CREDITS_PENDING);
+        writeUnsigned(generator, batch.getCreditsPending(UInt128.LeastSignificant), batch.getCreditsPending(UInt128.MostSignificant));
+        generator.writeFieldName(DEBITS_POSTED);
+        writeUnsigned(generator, batch.getDebitsPosted(UInt128.LeastSignificant), batch.getDebitsPosted(UInt128.MostSignificant));
+        generator.writeFieldName(DEBITS_PENDING);
+        writeUnsigned(generator, batch.getDebitsPending(UInt128.LeastSignificant), batch.getDebitsPending(UInt128.MostSignificant));
+        generator.writeEndObject();
+    }
+
+    private void writeUuid(JsonGenerator generator, long leastSignificant, long mostSignificant) throws IOException {
+        hex(mostSignificant >>> 32, 8, 0);
+        buffer[8] = '-';
+        hex(mostSignificant >>> 16, 4, 9);
+        buffer[13] = '-';
+        hex(mostSignificant, 4, 14);
+        buffer[18] = '-';
+        hex(leastSignificant >>> 48, 4, 19);
+        buffer[23] = '-';
+        hex(leastSignificant, 12, 24);
+        generator.writeString(buffer, 0, 36);
+    }
+
+    private void hex(long value, int digits, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static void writeUnsigned(JsonGenerator generator, long leastSignificant, long mostSignificant) throws IOException {
+        if (mostSignificant == 0 && leastSignificant >= 0) {
+            generator.writeNumber(leastSignificant);
+        } else {
+            generator.writeNumber(toBigInteger(leastSignificant, mostSignificant));
+        }
+    }
+
+    static BigInteger toBigInteger(long leastSignificant, long mostSignificant) {
+        return new BigInteger(Long.toUnsignedString(mostSignificant)).shiftLeft(64)
+                .add(new BigInteger(Long.toUnsignedString(leastSignificant)));
+    }
+
+    // Same text as AccountRepository.convertTigerBeetleTimestampToDateTime: "yyyy-MM-dd HH:mm:ss.SSS UTC".
+    private void writeTimestamp(JsonGenerator generator, long timestampNanos) throws IOException {
+        long millis = Math.floorDiv(timestampNanos, 1_000_000L);
+        long days = Math.floorDiv(millis, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(millis, 86_400_000L);
+
+        // Civil date from days since epoch (H. Hinnant's algorithm).
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        digits(year, 4, 0);
+        buffer[4] = '-';
+        digits(month, 2, 5);
+        buffer[7] = '-';
+        digits(day, 2, 8);
+        buffer[10] = ' ';
+        digits(millisOfDay / 3_600_000, 2, 11);
+        buffer[13] = ':';
+        digits(millisOfDay / 60_000 % 60, 2, 14);
+        buffer[16] = ':';
+        digits(millisOfDay / 1000 % 60, 2, 17);
+        buffer[19] = '.';
+        digits(millisOfDay % 1000, 3, 20);
+        buffer[23] = ' ';
+        buffer[24] = 'U';
+        buffer[25] = 'T';
+        buffer[26] = 'C';
+        generator.writeString(buffer, 0, 27);
+    }
+
+    private void digits(int value, int width, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
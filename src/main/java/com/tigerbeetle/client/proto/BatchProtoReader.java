@@ -0,0 +1,172 @@
+package com.tigerbeetle.client.proto;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import com.tigerbeetle.AccountFilter;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decodes the request messages of {@code proto/tigerbeetle_client.proto} field by field into the
+ * client's batches and filters, without building message objects. Unknown fields are skipped.
+ */
+public final class BatchProtoReader {
+
+    private static final int LIST_ITEMS = 1;
+
+    private BatchProtoReader() {
+    }
+
+    /**
+     * Number of entries in the repeated field 1 of a list message.
+     */
+    public static int count(byte[] body) throws IOException {
+        var in = CodedInputStream.newInstance(body);
+        int count = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (isListItem(tag)) {
+                count++;
+            }
+            in.skipField(tag);
+        }
+        return count;
+    }
+
+    /**
+     * A {@code TransferList} as a batch, one row per transfer; a transfer without an id gets a generated one.
+     */
+    public static TransferBatch readTransfers(byte[] body) throws IOException {
+        var batch = new TransferBatch(Math.max(count(body), 1));
+        var halves = new long[12];
+        var in = CodedInputStream.newInstance(body);
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (!isListItem(tag)) {
+                in.skipField(tag);
+                continue;
+            }
+            int limit = in.pushLimit(in.readRawVarint32());
+            batch.add();
+            readTransfer(in, batch, halves);
+            in.popLimit(limit);
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    /**
+     * Fields 1 to 12 of a {@code Transfer} are the halves of its 128-bit values, 13 to 19 the rest.
+     */
+    private static void readTransfer(CodedInputStream in, TransferBatch batch, long[] halves) throws IOException {
+        Arrays.fill(halves, 0);
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            int field = WireFormat.getTagFieldNumber(tag);
+            int type = WireFormat.getTagWireType(tag);
+            if (field <= 12 && type == WireFormat.WIRETYPE_FIXED64) {
+                halves[field - 1] = in.readFixed64();
+            } else if (field >= 13 && field <= 19 && type == WireFormat.WIRETYPE_VARINT) {
+                long value = in.readUInt64();
+                switch (field) {
+                    case 13 -> batch.setUserData64(value);
+                    case 14 -> batch.setUserData32((int) value);
+                    case 15 -> batch.setTimeout((int) value);
+                    case 16 -> batch.setLedger((int) value);
+                    case 17 -> batch.setCode((int) value);
+                    case 18 -> batch.setFlags((int) value);
+                    default -> batch.setTimestamp(value);
+                }
+            } else {
+                in.skipField(tag);
+            }
+        }
+        if (halves[0] == 0 && halves[1] == 0) {
+            batch.setId(UInt128.id());
+        } else {
+            batch.setId(halves[0], halves[1]);
+        }
+        batch.setDebitAccountId(halves[2], halves[3]);
+        batch.setCreditAccountId(halves[4], halves[5]);
+        batch.setAmount(halves[6], halves[7]);
+        batch.setPendingId(halves[8], halves[9]);
+        batch.setUserData128(halves[10], halves[11]);
+    }
+
+    /**
+     * The ids of an {@code IdList}, in request order.
+     */
+    public static List<UUID> readIds(byte[] body) throws IOException {
+        var ids = new ArrayList<UUID>(count(body));
+        var in = CodedInputStream.newInstance(body);
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (!isListItem(tag)) {
+                in.skipField(tag);
+                continue;
+            }
+            int limit = in.pushLimit(in.readRawVarint32());
+            long lo = 0;
+            long hi = 0;
+            int idTag;
+            while ((idTag = in.readTag()) != 0) {
+                int field = WireFormat.getTagFieldNumber(idTag);
+                if (field <= 2 && WireFormat.getTagWireType(idTag) == WireFormat.WIRETYPE_FIXED64) {
+                    if (field == 1) {
+                        lo = in.readFixed64();
+                    } else {
+                        hi = in.readFixed64();
+                    }
+                } else {
+                    in.skipField(idTag);
+                }
+            }
+            ids.add(new UUID(hi, lo));
+            in.popLimit(limit);
+        }
+        return ids;
+    }
+
+    public static AccountFilter readAccountFilter(byte[] body) throws IOException {
+        var filter = new AccountFilter();
+        var in = CodedInputStream.newInstance(body);
+        long accountLo = 0;
+        long accountHi = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            int field = WireFormat.getTagFieldNumber(tag);
+            int type = WireFormat.getTagWireType(tag);
+            if (field <= 2 && type == WireFormat.WIRETYPE_FIXED64) {
+                if (field == 1) {
+                    accountLo = in.readFixed64();
+                } else {
+                    accountHi = in.readFixed64();
+                }
+            } else if (field >= 3 && field <= 8 && type == WireFormat.WIRETYPE_VARINT) {
+                long value = in.readUInt64();
+                switch (field) {
+                    case 3 -> filter.setTimestampMin(value);
+                    case 4 -> filter.setTimestampMax(value);
+                    case 5 -> filter.setLimit((int) value);
+                    case 6 -> filter.setDebits(value != 0);
+                    case 7 -> filter.setCredits(value != 0);
+                    default -> filter.setReversed(value != 0);
+                }
+            } else {
+                in.skipField(tag);
+            }
+        }
+        filter.setAccountId(accountLo, accountHi);
+        return filter;
+    }
+
+    private static boolean isListItem(int tag) {
+        return WireFormat.getTagFieldNumber(tag) == LIST_ITEMS && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    }
+}
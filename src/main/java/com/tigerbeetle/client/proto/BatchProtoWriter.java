@@ -0,0 +1,118 @@
+package com.tigerbeetle.client.proto;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.tigerbeetle.AccountBalanceBatch;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Account;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.UUID;
+
+/**
+ * Writes one entry of a list message of {@code proto/tigerbeetle_client.proto} straight from the
+ * current row of a result batch. Every message there has its 128-bit halves first as {@code fixed64}
+ * and the remaining fields after them as varints, so a row is gathered into a reused array of field
+ * values and written from it; an instance must not be shared between threads. Zero fields are left
+ * out, as protobuf itself does.
+ */
+public class BatchProtoWriter {
+
+    private static final int LIST_ITEMS = 1;
+    private static final int TRANSFER_HALVES = 12;
+    private static final int ACCOUNT_HALVES = 12;
+    private static final int BALANCE_HALVES = 8;
+    private static final int RESULT_HALVES = 2;
+
+    private final long[] values = new long[19];
+
+    public void writeTransfer(CodedOutputStream out, TransferBatch batch) throws IOException {
+        values[0] = batch.getId(UInt128.LeastSignificant);
+        values[1] = batch.getId(UInt128.MostSignificant);
+        values[2] = batch.getDebitAccountId(UInt128.LeastSignificant);
+        values[3] = batch.getDebitAccountId(UInt128.MostSignificant);
+        values[4] = batch.getCreditAccountId(UInt128.LeastSignificant);
+        values[5] = batch.getCreditAccountId(UInt128.MostSignificant);
+        values[6] = batch.getAmount(UInt128.LeastSignificant);
+        values[7] = batch.getAmount(UInt128.MostSignificant);
+        values[8] = batch.getPendingId(UInt128.LeastSignificant);
+        values[9] = batch.getPendingId(UInt128.MostSignificant);
+        values[10] = batch.getUserData128(UInt128.LeastSignificant);
+        values[11] = batch.getUserData128(UInt128.MostSignificant);
+        values[12] = batch.getUserData64();
+        values[13] = Integer.toUnsignedLong(batch.getUserData32());
+        values[14] = Integer.toUnsignedLong(batch.getTimeout());
+        values[15] = Integer.toUnsignedLong(batch.getLedger());
+        values[16] = batch.getCode();
+        values[17] = batch.getFlags();
+        values[18] = batch.getTimestamp();
+        writeItem(out, TRANSFER_HALVES, 19);
+    }
+
+    public void writeAccount(CodedOutputStream out, Account account) throws IOException {
+        values[0] = account.id().getLeastSignificantBits();
+        values[1] = account.id().getMostSignificantBits();
+        halves(account.debtsPending(), 2);
+        halves(account.debtsPosted(), 4);
+        halves(account.creditsPending(), 6);
+        halves(account.creditsPosted(), 8);
+        halves(account.accountNumber(), 10);
+        values[12] = account.userData64();
+        values[13] = Integer.toUnsignedLong(account.userData32());
+        values[14] = Integer.toUnsignedLong(account.ledger());
+        values[15] = account.code();
+        values[16] = account.flags();
+        values[17] = account.timestamp();
+        writeItem(out, ACCOUNT_HALVES, 18);
+    }
+
+    public void writeBalance(CodedOutputStream out, AccountBalanceBatch batch) throws IOException {
+        values[0] = batch.getDebitsPending(UInt128.LeastSignificant);
+        values[1] = batch.getDebitsPending(UInt128.MostSignificant);
+        values[2] = batch.getDebitsPosted(UInt128.LeastSignificant);
+        values[3] = batch.getDebitsPosted(UInt128.MostSignificant);
+        values[4] = batch.getCreditsPending(UInt128.LeastSignificant);
+        values[5] = batch.getCreditsPending(UInt128.MostSignificant);
+        values[6] = batch.getCreditsPosted(UInt128.LeastSignificant);
+        values[7] = batch.getCreditsPosted(UInt128.MostSignificant);
+        values[8] = batch.getTimestamp();
+        writeItem(out, BALANCE_HALVES, 9);
+    }
+
+    public void writeResult(CodedOutputStream out, UUID id, CreateTransferResult result) throws IOException {
+        values[0] = id.getLeastSignificantBits();
+        values[1] = id.getMostSignificantBits();
+        values[2] = result.value;
+        writeItem(out, RESULT_HALVES, 3);
+    }
+
+    private void halves(BigInteger value, int index) {
+        values[index] = value == null ? 0 : value.longValue();
+        values[index + 1] = value == null ? 0 : value.shiftRight(64).longValue();
+    }
+
+    private void writeItem(CodedOutputStream out, int halves, int fields) throws IOException {
+        int size = 0;
+        for (int i = 0; i < fields; i++) {
+            if (values[i] != 0) {
+                size += i < halves
+                        ? CodedOutputStream.computeFixed64Size(i + 1, values[i])
+                        : CodedOutputStream.computeUInt64Size(i + 1, values[i]);
+            }
+        }
+        out.writeTag(LIST_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(size);
+        for (int i = 0; i < fields; i++) {
+            if (values[i] != 0) {
+                if (i < halves) {
+                    out.writeFixed64(i + 1, values[i]);
+                } else {
+                    out.writeUInt64(i + 1, values[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Account;
+import com.tigerbeetle.client.dto.Transfer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded LRU of account snapshots. Invalidation leaves a marker behind so that a lookup which
+ * started before the write cannot put its stale snapshot back afterwards.
+ */
+@Component
+public class AccountCache {
+
+    private final Map<UUID, Entry> entries;
+    private final Duration defaultMaxStaleness;
+    private volatile long invalidatedAt = System.nanoTime();
+
+    public AccountCache(@Value("${tigerbeetle.account-cache.max-entries:10000}") int maxEntries,
+                        @Value("${tigerbeetle.account-cache.max-staleness-ms:0}") long defaultMaxStalenessMs) {
+        this.defaultMaxStaleness = Duration.ofMillis(defaultMaxStalenessMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Duration defaultMaxStaleness() {
+        return defaultMaxStaleness;
+    }
+
+    public long startLoad() {
+        return System.nanoTime();
+    }
+
+    public Optional<Account> get(UUID id, Duration maxStaleness) {
+        if (maxStaleness.isZero() || maxStaleness.isNegative()) {
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+        }
+        if (entry == null || entry.account() == null || System.nanoTime() - entry.since() > maxStaleness.toNanos()
+                || invalidatedAt - entry.since() > 0) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.account());
+    }
+
+    /**
+     * {@code maxStaleness} cut down so that it does not reach back past the last invalidation of any of
+     * {@code ids}. A lookup that joins one sent before a write would bring back the state the write
+     * replaced, and could cache it as newer than the write.
+     */
+    public Duration maxStaleness(Collection<UUID> ids, Duration maxStaleness) {
+        long now = System.nanoTime();
+        long notBefore = invalidatedAt;
+        synchronized (entries) {
+            for (UUID id : ids) {
+                var entry = entries.get(id);
+                if (entry != null && entry.since() - notBefore > 0) {
+                    notBefore = entry.since();
+                }
+            }
+        }
+        long sinceWrite = Math.max(now - notBefore, 0);
+        return sinceWrite < maxStaleness.toNanos() ? Duration.ofNanos(sinceWrite) : maxStaleness;
+    }
+
+    public void put(UUID id, Account account, long loadStartedAt) {
+        synchronized (entries) {
+            var current = entries.get(id);
+            if ((current != null && current.since() - loadStartedAt > 0) || invalidatedAt - loadStartedAt > 0) {
+                return;
+            }
+            entries.put(id, new Entry(account, loadStartedAt));
+        }
+    }
+
+    public void invalidate(UUID id) {
+        var marker = new Entry(null, System.nanoTime());
+        synchronized (entries) {
+            entries.put(id, marker);
+        }
+    }
+
+    /**
+     * Drops every snapshot, for writes whose accounts are not known here. Like {@link #invalidate},
+     * it also rejects lookups that started before it.
+     */
+    public void invalidateAll() {
+        invalidatedAt = System.nanoTime();
+    }
+
+    /**
+     * Invalidates the accounts a write names. A post or void of a pending transfer may leave them
+     * out, and then every snapshot is dropped instead.
+     */
+    public void invalidateAccounts(List<Transfer> transfers) {
+        for (Transfer transfer : transfers) {
+            if (transfer.debitAccountId() == null || transfer.creditAccountId() == null) {
+                invalidateAll();
+                return;
+            }
+            invalidate(transfer.debitAccountId());
+            invalidate(transfer.creditAccountId());
+        }
+    }
+
+    public void invalidateAccounts(TransferBatcher.Event event) {
+        if (event.debitAccountId() == null || event.creditAccountId() == null) {
+            invalidateAll();
+            return;
+        }
+        invalidate(UInt128.asUUID(event.debitAccountId()));
+        invalidate(UInt128.asUUID(event.creditAccountId()));
+    }
+
+    public void invalidateAccounts(TransferBatch batch) {
+        batch.beforeFirst();
+        while (batch.next()) {
+            var debit = UInt128.asUUID(batch.getDebitAccountId());
+            var credit = UInt128.asUUID(batch.getCreditAccountId());
+            if (isZero(debit) || isZero(credit)) {
+                invalidateAll();
+                break;
+            }
+            invalidate(debit);
+            invalidate(credit);
+        }
+        batch.beforeFirst();
+    }
+
+    private static boolean isZero(UUID id) {
+        return id.getMostSignificantBits() == 0 && id.getLeastSignificantBits() == 0;
+    }
+
+    private record Entry(Account account, long since) {}
+}
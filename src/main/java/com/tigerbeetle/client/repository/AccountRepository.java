@@ -2,28 +2,113 @@ package com.tigerbeetle.client.repository;
 
 import com.tigerbeetle.client.dto.*;
 import com.tigerbeetle.*;
+import com.tigerbeetle.client.cluster.ClusterOperations;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class AccountRepository {
-    private final Client client;
+    private static final String ACCOUNTS = "accounts";
+    private static final String TRANSFERS = "transfers";
+    private static final String INDEPENDENT = "independent";
+    private static final String PENDING = "pending";
+    private static final String COMPLETION = "completion";
+    private static final String RESOLUTIONS = "resolutions";
+
+    public static final String STATEMENT = "POST /v1/tiger-beetle/transactions/statement/stream";
+    public static final String BALANCE_HISTORY = "POST /v1/tiger-beetle/balance/history";
+
+    static final BigInteger AMOUNT_MAX = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS z").withZone(ZoneId.of("UTC"));
+
+    private final ClusterOperations client;
+    private final TransferBatcher transferBatcher;
+    private final AccountCache accountCache;
+    private final IdempotencyKeys idempotencyKeys;
+    private final AccountStripes accountStripes;
+    private final LookupBatcher lookupBatcher;
+
+    @Value("${tigerbeetle.query.page-size:8190}")
+    private int pageSize;
+
+    @Autowired
+    @Qualifier("internalClusterOperations")
+    private ClusterOperations internalClient;
 
     public List<Account> createAccountBatch(List<Account> accounts){
-        List accountList = new ArrayList();
+        return createAccountBatch(accounts, null);
+    }
+
+    public List<Account> createAccountBatch(List<Account> accounts, String idempotencyKey){
+        UUID[] ids = submitAccountBatch(accounts, idempotencyKey).stream().map(EventResult::id).toArray(UUID[]::new);
+        return findAccountsById(ids).values().stream().toList();
+    }
+
+    public List<EventResult<CreateAccountResult>> submitAccountBatch(List<Account> accounts){
+        return submitAccountBatch(accounts, null);
+    }
+
+    /**
+     * With an idempotency key, a retry of a batch that was already created succeeds with the same ids.
+     */
+    public List<EventResult<CreateAccountResult>> submitAccountBatch(List<Account> accounts, String idempotencyKey){
+        var replayed = idempotencyKeys.replay(ACCOUNTS, idempotencyKey, accounts);
+        if (replayed != null) {
+            return replayed.stream().map(id -> new EventResult<>(id, CreateAccountResult.Ok)).toList();
+        }
         List<UUID> ids = new ArrayList<>();
+        AccountBatch batch = newLinkedAccountBatch(accounts, ids, i -> idempotencyKeys.id(ACCOUNTS, idempotencyKey, i));
+        CreateAccountResultBatch result = client.createAccounts(batch);
+        if (result.getLength() > 0 && (idempotencyKey == null || !alreadyCreatedAccounts(ids, result))) {
+            result.next();
+            throw new AccountException(result.getResult());
+        }
+
+        idempotencyKeys.remember(ACCOUNTS, idempotencyKey, accounts, ids);
+        return ids.stream().map(id -> new EventResult<>(id, CreateAccountResult.Ok)).toList();
+    }
+
+    /**
+     * The chain failed only because its accounts exist: {@code Exists} for the event that stopped it,
+     * {@code LinkedEventFailed} for the rest, and every id can be looked up.
+     */
+    private boolean alreadyCreatedAccounts(List<UUID> ids, CreateAccountResultBatch results) {
+        boolean exists = true;
+        while (exists && results.next()) {
+            var result = results.getResult();
+            exists = result == CreateAccountResult.Exists || result == CreateAccountResult.LinkedEventFailed;
+        }
+        results.beforeFirst();
+        return exists && !findAccountsById(ids.toArray(UUID[]::new)).containsValue(null);
+    }
+
+    static AccountBatch newLinkedAccountBatch(List<Account> accounts, List<UUID> ids) {
+        return newLinkedAccountBatch(accounts, ids, i -> UInt128.id());
+    }
+
+    static AccountBatch newLinkedAccountBatch(List<Account> accounts, List<UUID> ids, IntFunction<byte[]> newId) {
         AccountBatch batch = new AccountBatch(accounts.size());
         for (Account account : accounts) {
+            byte[] id = newId.apply(batch.getLength());
             batch.add();
-            byte[] id = UInt128.id();
             UUID uuid = UInt128.asUUID(id);
             ids.add(uuid);
             batch.setId(id);
@@ -35,22 +120,282 @@ public class AccountRepository {
             batch.setFlags((batch.getPosition() + 1 == accounts.size()) ? AccountFlags.HISTORY : AccountFlags.HISTORY | AccountFlags.LINKED);
 
         }
-        CreateAccountResultBatch result = client.createAccounts(batch);
-        if (result.getLength() > 0) {
-            result.next();
-            throw new AccountException(result.getResult());
+        return batch;
+    }
+
+    public List<Transfer> createBatchTransfer(List<Transfer> transfers)  {
+        return createBatchTransfer(transfers, null);
+    }
+
+    public List<Transfer> createBatchTransfer(List<Transfer> transfers, String idempotencyKey)  {
+        List<UUID> ids = submitBatchTransfer(transfers, idempotencyKey).stream().map(EventResult::id).toList();
+        return findTransfersByBatchIds(ids).values().stream().toList();
+    }
+
+    public List<EventResult<CreateTransferResult>> submitBatchTransfer(List<Transfer> transfers)  {
+        return submitBatchTransfer(transfers, null);
+    }
+
+    /**
+     * With an idempotency key, a retry of a batch that was already created succeeds with the same ids.
+     */
+    public List<EventResult<CreateTransferResult>> submitBatchTransfer(List<Transfer> transfers, String idempotencyKey)  {
+        var replayed = idempotencyKeys.replay(TRANSFERS, idempotencyKey, transfers);
+        if (replayed != null) {
+            return replayed.stream().map(id -> new EventResult<>(id, CreateTransferResult.Ok)).toList();
         }
 
-        return findAccountsById(ids.toArray(new UUID[0])).values().stream().toList();
+        List<UUID> ids = new ArrayList<>();
+        var batch = newLinkedTransferBatch(transfers, ids, i -> idempotencyKeys.id(TRANSFERS, idempotencyKey, i));
+        accountStripes.route(batch);
+        CreateTransferResultBatch batchResult;
+        try {
+            batchResult = client.createTransfers(batch);
+        } finally {
+            accountCache.invalidateAccounts(transfers);
+        }
+        if(batchResult.getLength() > 0 && (idempotencyKey == null || !alreadyCreatedTransfers(ids, batchResult))) {
+            throw new BatchTransferException(mapTransferResults(ids, batchResult));
+        }
+        idempotencyKeys.remember(TRANSFERS, idempotencyKey, transfers, ids);
+        return ids.stream().map(id -> new EventResult<>(id, CreateTransferResult.Ok)).toList();
     }
 
-    public List<Transfer> createBatchTransfer(List<Transfer> transfers)  {
+    /**
+     * The chain failed only because its transfers exist: {@code Exists} for the event that stopped it,
+     * {@code LinkedEventFailed} for the rest, and every id can be looked up.
+     */
+    private boolean alreadyCreatedTransfers(List<UUID> ids, CreateTransferResultBatch results) {
+        boolean exists = true;
+        while (exists && results.next()) {
+            var result = results.getResult();
+            exists = result == CreateTransferResult.Exists || result == CreateTransferResult.LinkedEventFailed;
+        }
+        results.beforeFirst();
+        return exists && !findTransfersByBatchIds(ids).containsValue(null);
+    }
 
-        var results = new ArrayList<Map.Entry<UUID, CreateTransferResult>>(transfers.size());
+    public List<EventResult<CreateTransferResult>> submitTransferRecords(ByteBuffer records) {
+        return submitTransferBatch(TransferRecords.toBatch(records));
+    }
+
+    /**
+     * Creates the transfers of a batch decoded straight from a binary request, flags as given.
+     */
+    public List<EventResult<CreateTransferResult>> submitTransferBatch(TransferBatch batch) {
+        var results = new ArrayList<EventResult<CreateTransferResult>>(batch.getLength());
+        while (batch.next()) {
+            results.add(new EventResult<>(UInt128.asUUID(batch.getId()), CreateTransferResult.Ok));
+        }
+        batch.beforeFirst();
+        CreateTransferResultBatch batchResult;
+        try {
+            batchResult = client.createTransfers(batch);
+        } finally {
+            accountCache.invalidateAccounts(batch);
+        }
+        while (batchResult.next()) {
+            int index = batchResult.getIndex();
+            results.set(index, new EventResult<>(results.get(index).id(), batchResult.getResult()));
+        }
+        return results;
+    }
+
+    /**
+     * Submits transfers that stand alone unless the caller chains them with {@link TransferFlags#LINKED}
+     * in their own flags. Input larger than {@link TransferBatcher#MAX_BATCH_SIZE} is split into full
+     * batches, never inside a chain, and the batches are sent concurrently. Only failures are
+     * returned per event; with an idempotency key, events that already exist count as created.
+     */
+    public BatchResult<CreateTransferResult> submitIndependentTransfers(List<Transfer> transfers, String idempotencyKey) {
+        return submitIndependentTransfers(INDEPENDENT, transfers, idempotencyKey);
+    }
+
+    /**
+     * Posts or voids many pending transfers in full-size batches, each resolution on its own. Holds
+     * that expired or were resolved before come back with their result code and do not hold up the rest.
+     */
+    public List<ResolutionResult> resolvePendingTransfers(List<PendingResolution> resolutions, String idempotencyKey) {
+        var transfers = resolutions.stream().map(AccountRepository::resolutionTransfer).toList();
+        var pending = lookupBatcher.transfers(resolutions.stream().map(PendingResolution::pendingId).toList());
+        BatchResult<CreateTransferResult> batchResult;
+        try {
+            batchResult = submitIndependentTransfers(RESOLUTIONS, transfers, idempotencyKey);
+        } finally {
+            await(invalidatePendingAccounts(pending, accountCache, accountStripes));
+        }
+        var results = new ArrayList<ResolutionResult>(resolutions.size());
+        for (int i = 0; i < resolutions.size(); i++) {
+            results.add(new ResolutionResult(resolutions.get(i).pendingId(), batchResult.ids().get(i), CreateTransferResult.Ok));
+        }
+        for (var error : batchResult.errors()) {
+            var result = results.get(error.index());
+            results.set(error.index(), new ResolutionResult(result.pendingId(), result.id(), error.result()));
+        }
+        return results;
+    }
+
+    static Transfer resolutionTransfer(PendingResolution resolution) {
+        if (resolution.pendingId() == null || resolution.action() == null) {
+            throw new IllegalArgumentException("Every resolution needs a pendingId and an action");
+        }
+        if (resolution.action() == PendingResolution.Action.VOID) {
+            return Transfer.builder()
+                    .pendingId(resolution.pendingId())
+                    .amount(BigInteger.ZERO)
+                    .flags(TransferFlags.VOID_PENDING_TRANSFER)
+                    .build();
+        }
+        return Transfer.builder()
+                .pendingId(resolution.pendingId())
+                .amount(resolution.amount() != null ? resolution.amount() : AMOUNT_MAX)
+                .flags(TransferFlags.POST_PENDING_TRANSFER)
+                .build();
+    }
+
+    private BatchResult<CreateTransferResult> submitIndependentTransfers(String scope, List<Transfer> transfers, String idempotencyKey) {
+        var replayed = idempotencyKeys.replay(scope, idempotencyKey, transfers);
+        if (replayed != null) {
+            return new BatchResult<>(replayed, List.of());
+        }
+
+        List<UUID> ids = new ArrayList<>(transfers.size());
+        var offsets = new ArrayList<Integer>();
+        var replies = new ArrayList<CompletableFuture<CreateTransferResultBatch>>();
+        for (int start = 0; start < transfers.size(); ) {
+            int offset = start;
+            int end = chunkEnd(transfers, start);
+            var batch = newTransferBatch(transfers.subList(start, end), ids,
+                    i -> idempotencyKeys.id(scope, idempotencyKey, offset + i));
+            accountStripes.route(batch);
+            offsets.add(offset);
+            replies.add(client.createTransfersAsync(batch));
+            start = end;
+        }
+
+        var errors = new ArrayList<IndexedResult<CreateTransferResult>>();
+        try {
+            for (int i = 0; i < replies.size(); i++) {
+                var results = await(replies.get(i));
+                while (results.next()) {
+                    errors.add(new IndexedResult<>(offsets.get(i) + results.getIndex(), results.getResult()));
+                }
+            }
+        } finally {
+            accountCache.invalidateAccounts(transfers);
+        }
+        if (idempotencyKey != null && !errors.isEmpty()) {
+            dropExistingChains(transfers, ids, errors);
+        }
+        if (errors.isEmpty()) {
+            idempotencyKeys.remember(scope, idempotencyKey, transfers, ids);
+        }
+        return new BatchResult<>(ids, errors);
+    }
+
+    /**
+     * End of the batch that starts at {@code start}: as many transfers as fit, cut after the last
+     * complete chain.
+     */
+    static int chunkEnd(List<Transfer> transfers, int start) {
+        int end = Math.min(start + TransferBatcher.MAX_BATCH_SIZE, transfers.size());
+        if (end == transfers.size()) {
+            return end;
+        }
+        int cut = end;
+        while (cut > start && (transfers.get(cut - 1).flags() & TransferFlags.LINKED) != 0) {
+            cut--;
+        }
+        if (cut == start) {
+            throw new IllegalArgumentException("A linked chain starting at index " + start + " is longer than "
+                    + TransferBatcher.MAX_BATCH_SIZE + " transfers");
+        }
+        return cut;
+    }
+
+    /**
+     * Removes the errors of chains that failed only because they were created before: every event
+     * is {@code Exists} or {@code LinkedEventFailed}, and every id can be looked up.
+     */
+    private void dropExistingChains(List<Transfer> transfers, List<UUID> ids, List<IndexedResult<CreateTransferResult>> errors) {
+        var chains = new TreeMap<Integer, Boolean>();
+        for (var error : errors) {
+            boolean exists = error.result() == CreateTransferResult.Exists
+                    || error.result() == CreateTransferResult.LinkedEventFailed;
+            chains.merge(chainStart(transfers, error.index()), exists, Boolean::logicalAnd);
+        }
+        chains.values().removeIf(exists -> !exists);
+        if (chains.isEmpty()) {
+            return;
+        }
+
+        var candidates = new ArrayList<UUID>();
+        for (int start : chains.keySet()) {
+            candidates.addAll(ids.subList(start, chainEnd(transfers, start)));
+        }
+        var found = new HashMap<UUID, Transfer>();
+        for (int from = 0; from < candidates.size(); from += TransferBatcher.MAX_BATCH_SIZE) {
+            found.putAll(findTransfersByBatchIds(candidates.subList(from, Math.min(from + TransferBatcher.MAX_BATCH_SIZE, candidates.size()))));
+        }
+        chains.keySet().removeIf(start -> ids.subList(start, chainEnd(transfers, start)).stream().anyMatch(id -> found.get(id) == null));
+        errors.removeIf(error -> chains.containsKey(chainStart(transfers, error.index())));
+    }
+
+    private static int chainStart(List<Transfer> transfers, int index) {
+        while (index > 0 && (transfers.get(index - 1).flags() & TransferFlags.LINKED) != 0) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int chainEnd(List<Transfer> transfers, int start) {
+        int end = start;
+        while (end < transfers.size() - 1 && (transfers.get(end).flags() & TransferFlags.LINKED) != 0) {
+            end++;
+        }
+        return end + 1;
+    }
+
+    /**
+     * One event per transfer with the caller's own flags; only the id is generated.
+     */
+    static TransferBatch newTransferBatch(List<Transfer> transfers, List<UUID> ids, IntFunction<byte[]> newId) {
         var batch = new TransferBatch(transfers.size());
-        List<UUID> ids = new ArrayList<>();
         for (Transfer t : transfers) {
-            byte[] id = UInt128.id();
+            byte[] id = newId.apply(batch.getLength());
+            batch.add();
+            batch.setId(id);
+            ids.add(UInt128.asUUID(id));
+            batch.setFlags(t.flags());
+            batch.setLedger(t.ledger());
+            batch.setAmount(t.amount());
+            if (t.debitAccountId() != null) {
+                batch.setDebitAccountId(UInt128.asBytes(t.debitAccountId()));
+            }
+            if (t.creditAccountId() != null) {
+                batch.setCreditAccountId(UInt128.asBytes(t.creditAccountId()));
+            }
+            if (t.pendingId() != null) {
+                batch.setPendingId(UInt128.asBytes(t.pendingId()));
+            }
+            if (t.userData128() != null) {
+                batch.setUserData128(UInt128.asBytes(t.userData128()));
+            }
+            batch.setUserData64(t.userData64());
+            batch.setUserData32(t.userData32());
+            batch.setCode(t.code());
+        }
+        return batch;
+    }
+
+    static TransferBatch newLinkedTransferBatch(List<Transfer> transfers, List<UUID> ids) {
+        return newLinkedTransferBatch(transfers, ids, i -> UInt128.id());
+    }
+
+    static TransferBatch newLinkedTransferBatch(List<Transfer> transfers, List<UUID> ids, IntFunction<byte[]> newId) {
+        var batch = new TransferBatch(transfers.size());
+        for (Transfer t : transfers) {
+            byte[] id = newId.apply(batch.getLength());
             batch.add();
             batch.setId(id);
             UUID uuid = UInt128.asUUID(id);
@@ -70,40 +415,40 @@ public class AccountRepository {
             batch.setUserData64(t.userData64());
             batch.setUserData32(t.userData32());
             batch.setCode(t.code());
-            results.add(new AbstractMap.SimpleImmutableEntry<>(UInt128.asUUID(id), CreateTransferResult.Ok));
         }
+        return batch;
+    }
 
-        var batchResult = client.createTransfers(batch);
-        boolean isException = false;
+    static List<Map.Entry<UUID, CreateTransferResult>> mapTransferResults(List<UUID> ids, CreateTransferResultBatch batchResult) {
+        var results = new ArrayList<Map.Entry<UUID, CreateTransferResult>>(ids.size());
+        for (UUID id : ids) {
+            results.add(new AbstractMap.SimpleImmutableEntry<>(id, CreateTransferResult.Ok));
+        }
         while (batchResult.next()) {
             var original = results.get(batchResult.getIndex());
             results.set(batchResult.getIndex(), new AbstractMap.SimpleImmutableEntry<>(original.getKey(), batchResult.getResult()));
         }
-
-        if(batchResult.getLength() > 0) {
-            throw new BatchTransferException(results);
-        }
-        return findTransfersByBatchIds(ids).values().stream().toList();
+        return results;
     }
 
     public Map<UUID, Transfer> findTransfersByBatchIds(List<UUID> ids)  {
-        IdBatch idBatch = new IdBatch(ids.size());
-        Map<UUID, Transfer> result = new HashMap<>();
+        var found = await(lookupBatcher.transfers(ids));
+        found.replaceAll((id, transfer) -> accountStripes.toLogical(transfer));
+        return found;
+    }
+
+    /**
+     * Transfers by id as the cluster returns them, for encoders that write rows straight from the batch.
+     */
+    public TransferBatch lookupTransferBatch(List<UUID> ids) {
+        var idBatch = new IdBatch(ids.size());
         for (UUID id : ids) {
             idBatch.add(UInt128.asBytes(id));
-            result.put(id, null);
-        }
-        var batch = client.lookupTransfers(idBatch);
-        while (batch.next()) {
-            UUID key = UInt128.asUUID(batch.getId());
-            Transfer transfer = mapFromCurrentTransferBatch(batch);
-            result.put(key, transfer);
         }
-
-        return result;
+        return accountStripes.toLogical(client.lookupTransfers(idBatch));
     }
 
-    private Transfer mapFromCurrentTransferBatch(TransferBatch batch) {
+    public static Transfer mapFromCurrentTransferBatch(TransferBatch batch) {
         return Transfer.builder()
                 .id(UInt128.asUUID(batch.getId()))
                 .code(batch.getCode())
@@ -142,14 +487,19 @@ public class AccountRepository {
     }
 
     public Optional<Account> findAccountById(UUID id)  {
-        IdBatch idBatch = new IdBatch(UInt128.asBytes(id));
-        var batch = client.lookupAccounts(idBatch);
+        return findAccountById(id, accountCache.defaultMaxStaleness());
+    }
 
-        if (!batch.next()) {
-            return Optional.empty();
+    public Optional<Account> findAccountById(UUID id, Duration maxStaleness)  {
+        var cached = accountCache.get(id, maxStaleness);
+        if (cached.isPresent()) {
+            return cached;
         }
 
-        return Optional.of(mapFromCurrentAccountBatch(batch));
+        long loadStartedAt = accountCache.startLoad();
+        var result = new HashMap<UUID, Account>();
+        lookupAccounts(List.of(id), maxStaleness, result, loadStartedAt);
+        return Optional.ofNullable(result.get(id));
     }
 
     public Transfer findTransfersById(UUID id)  {
@@ -157,26 +507,110 @@ public class AccountRepository {
     }
 
     public Map<UUID, Account> findAccountsById(UUID[] ids)  {
+        return findAccountsById(ids, accountCache.defaultMaxStaleness());
+    }
+
+    public Map<UUID, Account> findAccountsById(UUID[] ids, Duration maxStaleness)  {
 
-        IdBatch idBatch = new IdBatch(ids.length);
         Map<UUID, Account> result = new HashMap<>();
+        Set<UUID> misses = new LinkedHashSet<>();
         for (UUID id : ids) {
-            idBatch.add(UInt128.asBytes(id));
-            result.put(id, null);
+            var cached = accountCache.get(id, maxStaleness);
+            result.put(id, cached.orElse(null));
+            if (cached.isEmpty()) {
+                misses.add(id);
+            }
         }
-
-        var batch = client.lookupAccounts(idBatch);
-        while (batch.next()) {
-            UUID key = UInt128.asUUID(batch.getId());
-            Account acc = mapFromCurrentAccountBatch(batch);
-            result.put(key, acc);
+        if (misses.isEmpty()) {
+            return result;
         }
 
+        long loadStartedAt = accountCache.startLoad();
+        lookupAccounts(misses, maxStaleness, result, loadStartedAt);
         return result;
 
     }
 
-    private Account mapFromCurrentAccountBatch(AccountBatch batch) {
+    /**
+     * Looks up {@code ids} through the {@link LookupBatcher}, striped accounts summed up by
+     * {@link AccountStripes#lookup}. Lookups sent before the last write to one of the ids are not
+     * joined, so a read after a write sees it.
+     */
+    private void lookupAccounts(Collection<UUID> ids, Duration maxStaleness, Map<UUID, Account> result, long loadStartedAt) {
+        var found = await(accountStripes.lookup(lookupBatcher, ids, accountCache.maxStaleness(ids, maxStaleness)));
+        for (UUID id : ids) {
+            Account acc = found.get(id);
+            if (acc != null) {
+                accountCache.put(id, acc, loadStartedAt);
+            }
+            result.put(id, acc);
+        }
+    }
+
+    /**
+     * Backs {@code id} with {@code tigerbeetle.striping.stripes} accounts: the account itself and
+     * sub-accounts on its ledger and code, with the logical id in {@code userData128} and the stripe
+     * number in {@code userData32}. Transfers through this repository are then spread over the
+     * stripes. Accounts with a balance limit cannot be striped, since each stripe would only check its
+     * own share. Striping an account again is harmless. Striping is off while
+     * {@code tigerbeetle.striping.stripes} is 1.
+     */
+    public Optional<Account> stripeAccount(UUID id) {
+        if (!accountStripes.isEnabled()) {
+            throw new IllegalArgumentException("Account striping is off; set tigerbeetle.striping.stripes above 1");
+        }
+        var batch = client.lookupAccounts(new IdBatch(UInt128.asBytes(id)));
+        if (!batch.next()) {
+            return Optional.empty();
+        }
+        int limits = AccountFlags.DEBITS_MUST_NOT_EXCEED_CREDITS | AccountFlags.CREDITS_MUST_NOT_EXCEED_DEBITS;
+        if ((batch.getFlags() & limits) != 0) {
+            throw new IllegalArgumentException("Accounts with a balance limit cannot be striped");
+        }
+
+        var stripeIds = accountStripes.stripeIds(id);
+        var stripes = new AccountBatch(stripeIds.size() - 1);
+        for (int i = 1; i < stripeIds.size(); i++) {
+            stripes.add();
+            stripes.setId(UInt128.asBytes(stripeIds.get(i)));
+            stripes.setUserData128(UInt128.asBytes(id));
+            stripes.setUserData32(i);
+            stripes.setUserData64(batch.getUserData64());
+            stripes.setLedger(batch.getLedger());
+            stripes.setCode(batch.getCode());
+            stripes.setFlags(batch.getFlags() & AccountFlags.HISTORY);
+        }
+        if (stripes.getLength() > 0) {
+            var result = client.createAccounts(stripes);
+            while (result.next()) {
+                if (result.getResult() != CreateAccountResult.Exists) {
+                    throw new AccountException(result.getResult());
+                }
+            }
+        }
+        accountStripes.declare(id);
+        accountCache.invalidate(id);
+        return findAccountById(id);
+    }
+
+    private boolean isStriped(UUID id) {
+        return await(accountStripes.resolve(lookupBatcher, id, accountCache.defaultMaxStaleness()));
+    }
+
+    /**
+     * Per-account history reads see a single account; a striped one is read through {@code alternative}.
+     */
+    public void requireUnstriped(UUID accountId, String alternative) {
+        if (isStriped(accountId)) {
+            throw stripedAccount(accountId, alternative);
+        }
+    }
+
+    static IllegalArgumentException stripedAccount(UUID accountId, String alternative) {
+        return new IllegalArgumentException("Account " + accountId + " is striped, read it with " + alternative);
+    }
+
+    public static Account mapFromCurrentAccountBatch(AccountBatch batch) {
         return Account.builder()
                 .id(UInt128.asUUID(batch.getId()))
                 .accountNumber(UInt128.asBigInteger(batch.getUserData128()))
@@ -196,153 +630,234 @@ public class AccountRepository {
     public UUID createSimpleTransfer(TransferDto transferDto)  {
 
         var id = UInt128.id();
-        var batch = new TransferBatch(1);
-
-        batch.add();
-        batch.setId(id);
-        batch.setAmount(transferDto.amount());
-        batch.setCode(transferDto.code());
-        batch.setCreditAccountId(UInt128.asBytes(transferDto.targetAccount()));
-        batch.setDebitAccountId(UInt128.asBytes(transferDto.sourceAccount()));
-        batch.setUserData32(transferDto.userData32());
-        batch.setUserData64(transferDto.userData64());
-        batch.setUserData128(UInt128.asBytes(transferDto.userData128()));
-        batch.setLedger(transferDto.ledger());
-
-        var batchResults = client.createTransfers(batch);
+        var event = TransferBatcher.Event.builder()
+                .id(id)
+                .amount(transferDto.amount())
+                .code(transferDto.code())
+                .creditAccountId(UInt128.asBytes(transferDto.targetAccount()))
+                .debitAccountId(UInt128.asBytes(transferDto.sourceAccount()))
+                .userData32(transferDto.userData32())
+                .userData64(transferDto.userData64())
+                .userData128(transferDto.userData128() != null ? UInt128.asBytes(transferDto.userData128()) : null)
+                .ledger(transferDto.ledger())
+                .build();
 
-        if (batchResults.getLength() > 0) {
-            batchResults.next();
-            throw new TransferException(batchResults.getResult());
-        }
+        submitSingleTransfer(event);
         return UInt128.asUUID(id);
     }
 
     public Transfer createPendingTransfer(Transfer transfer)  {
+        return createPendingTransfer(transfer, null);
+    }
 
-        var id = UInt128.id();
-        var batch = new TransferBatch(1);
-
-        batch.add();
-        batch.setId(id);
-        batch.setAmount(transfer.amount());
-        batch.setCode(transfer.code());
-        batch.setCreditAccountId(UInt128.asBytes(transfer.creditAccountId()));
-        batch.setDebitAccountId(UInt128.asBytes(transfer.debitAccountId()));
-        batch.setFlags(TransferFlags.PENDING);
-        batch.setUserData32(transfer.userData32());
-        batch.setUserData64(transfer.userData64());
-        batch.setUserData128(UInt128.asBytes(transfer.userData128()));
-        batch.setLedger(transfer.ledger());
+    public Transfer createPendingTransfer(Transfer transfer, String idempotencyKey)  {
+        return findTransfersById(submitPendingTransfer(transfer, idempotencyKey).id());
+    }
 
-        var batchResults = client.createTransfers(batch);
+    public EventResult<CreateTransferResult> submitPendingTransfer(Transfer transfer)  {
+        return submitPendingTransfer(transfer, null);
+    }
 
-        if (batchResults.getLength() > 0) {
-            batchResults.next();
-            throw new TransferException(batchResults.getResult());
+    public EventResult<CreateTransferResult> submitPendingTransfer(Transfer transfer, String idempotencyKey)  {
+        var replayed = idempotencyKeys.replay(PENDING, idempotencyKey, transfer);
+        if (replayed != null) {
+            return new EventResult<>(replayed.get(0), CreateTransferResult.Ok);
         }
-        return findTransfersByBatchIds(List.of(UInt128.asUUID(id))).values().stream().toList().get(0);
+
+        var id = idempotencyKeys.id(PENDING, idempotencyKey, 0);
+        submitSingleTransfer(pendingTransferEvent(id, transfer), idempotencyKey != null);
+        var uuid = UInt128.asUUID(id);
+        idempotencyKeys.remember(PENDING, idempotencyKey, transfer, List.of(uuid));
+        return new EventResult<>(uuid, CreateTransferResult.Ok);
+    }
+
+    static TransferBatcher.Event pendingTransferEvent(byte[] id, Transfer transfer) {
+        return TransferBatcher.Event.builder()
+                .id(id)
+                .amount(transfer.amount())
+                .code(transfer.code())
+                .creditAccountId(UInt128.asBytes(transfer.creditAccountId()))
+                .debitAccountId(UInt128.asBytes(transfer.debitAccountId()))
+                .flags(TransferFlags.PENDING)
+                .userData32(transfer.userData32())
+                .userData64(transfer.userData64())
+                .userData128(transfer.userData128() != null ? UInt128.asBytes(transfer.userData128()) : null)
+                .ledger(transfer.ledger())
+                .build();
     }
 
     public UUID createExpirablePendingTransfer(UUID sourceAccount, UUID targetAccount, BigInteger amount, int ledger, int code, UUID userData128, long userData64, int userData32, int timeout)  {
 
         var id = UInt128.id();
-        var batch = new TransferBatch(1);
-
-        batch.add();
-        batch.setId(id);
-        batch.setAmount(amount);
-        batch.setCode(code);
-        batch.setCreditAccountId(UInt128.asBytes(targetAccount));
-        batch.setDebitAccountId(UInt128.asBytes(sourceAccount));
-        batch.setFlags(TransferFlags.PENDING);
-        batch.setUserData32(userData32);
-        batch.setUserData64(userData64);
-        if (userData128 != null) {
-            batch.setUserData128(UInt128.asBytes(userData128));
-        }
-        batch.setLedger(ledger);
-        batch.setTimeout(timeout);
-
-        var batchResults = client.createTransfers(batch);
+        var event = TransferBatcher.Event.builder()
+                .id(id)
+                .amount(amount)
+                .code(code)
+                .creditAccountId(UInt128.asBytes(targetAccount))
+                .debitAccountId(UInt128.asBytes(sourceAccount))
+                .flags(TransferFlags.PENDING)
+                .userData32(userData32)
+                .userData64(userData64)
+                .userData128(userData128 != null ? UInt128.asBytes(userData128) : null)
+                .ledger(ledger)
+                .timeout(timeout)
+                .build();
 
-        if (batchResults.getLength() > 0) {
-            batchResults.next();
-            throw new TransferException(batchResults.getResult());
-        }
+        submitSingleTransfer(event);
         return UInt128.asUUID(id);
     }
 
     public Transfer completePendingTransfer(Transfer transfer)  {
+        return completePendingTransfer(transfer, null);
+    }
 
-        var id = UInt128.id();
-        var batch = new TransferBatch(1);
-        batch.add();
-        batch.setId(id);
-        batch.setPendingId(UInt128.asBytes(transfer.pendingId()));
-        batch.setAmount(transfer.amount());
-        batch.setFlags(TransferFlags.POST_PENDING_TRANSFER);
+    public Transfer completePendingTransfer(Transfer transfer, String idempotencyKey)  {
+        Transfer posted = findTransfersById(submitPendingCompletion(transfer, idempotencyKey).id());
+        if (posted != null) {
+            accountCache.invalidateAccounts(List.of(posted));
+        }
+        return posted;
+    }
 
-        var batchResults = client.createTransfers(batch);
+    public EventResult<CreateTransferResult> submitPendingCompletion(Transfer transfer)  {
+        return submitPendingCompletion(transfer, null);
+    }
 
-        if (batchResults.getLength() > 0) {
-            batchResults.next();
-            throw new TransferException(batchResults.getResult());
+    public EventResult<CreateTransferResult> submitPendingCompletion(Transfer transfer, String idempotencyKey)  {
+        var replayed = idempotencyKeys.replay(COMPLETION, idempotencyKey, transfer);
+        if (replayed != null) {
+            return new EventResult<>(replayed.get(0), CreateTransferResult.Ok);
         }
-        return findTransfersByBatchIds(List.of(UInt128.asUUID(id))).values().stream().toList().get(0);
+
+        var id = idempotencyKeys.id(COMPLETION, idempotencyKey, 0);
+        submitSingleTransfer(postPendingTransferEvent(id, transfer), idempotencyKey != null);
+        var uuid = UInt128.asUUID(id);
+        idempotencyKeys.remember(COMPLETION, idempotencyKey, transfer, List.of(uuid));
+        return new EventResult<>(uuid, CreateTransferResult.Ok);
     }
 
-    public List<Account> fetchAccountsByBatchFilter(BatchFilter dataFilter)  {
+    /**
+     * Posts the pending transfer, or voids it when the caller set {@code VOID_PENDING_TRANSFER}.
+     */
+    static TransferBatcher.Event postPendingTransferEvent(byte[] id, Transfer transfer) {
+        boolean isVoid = (transfer.flags() & TransferFlags.VOID_PENDING_TRANSFER) != 0;
+        return TransferBatcher.Event.builder()
+                .id(id)
+                .pendingId(UInt128.asBytes(transfer.pendingId()))
+                .debitAccountId(transfer.debitAccountId() != null ? UInt128.asBytes(transfer.debitAccountId()) : null)
+                .creditAccountId(transfer.creditAccountId() != null ? UInt128.asBytes(transfer.creditAccountId()) : null)
+                .amount(isVoid && transfer.amount() == null ? BigInteger.ZERO : transfer.amount())
+                .flags(isVoid ? TransferFlags.VOID_PENDING_TRANSFER : TransferFlags.POST_PENDING_TRANSFER)
+                .build();
+    }
 
-        var filter = new QueryFilter();
-        if(dataFilter.accountNumber() != null) {
-            filter.setUserData128(UInt128.asBytes(dataFilter.accountNumber()));
+    private void submitSingleTransfer(TransferBatcher.Event event) {
+        submitSingleTransfer(event, false);
+    }
+
+    private void submitSingleTransfer(TransferBatcher.Event event, boolean existsIsOk) {
+        var result = await(invalidatingAccounts(transferBatcher.submit(accountStripes.route(event)), event,
+                accountCache, accountStripes, lookupBatcher));
+        if (result != CreateTransferResult.Ok && !(existsIsOk && result == CreateTransferResult.Exists)) {
+            throw new TransferException(result);
         }
-        filter.setUserData64(dataFilter.userData64());
-        filter.setUserData32(dataFilter.userData32());
-        filter.setReversed(dataFilter.reversed());
-        if(dataFilter.fromDate() != null) {
-            filter.setTimestampMin(dataFilter.fromDate().getTime() * 1000000);
+    }
+
+    /**
+     * {@code written}, completing only once the accounts {@code event} wrote to are dropped from the
+     * cache. A post or void that names no accounts touches those of its pending transfer, which is
+     * looked up while the write is in flight; every account is dropped only if that lookup fails.
+     */
+    static <T> CompletableFuture<T> invalidatingAccounts(CompletableFuture<T> written, TransferBatcher.Event event,
+                                                         AccountCache accountCache, AccountStripes accountStripes,
+                                                         LookupBatcher lookupBatcher) {
+        boolean completesPending = (event.flags() & (TransferFlags.POST_PENDING_TRANSFER | TransferFlags.VOID_PENDING_TRANSFER)) != 0;
+        if (!completesPending || (event.debitAccountId() != null && event.creditAccountId() != null)) {
+            return written.whenComplete((ignored, error) -> accountCache.invalidateAccounts(event));
         }
-        if(dataFilter.toDate() != null) {
-            filter.setTimestampMax(dataFilter.toDate().getTime() * 1000000);
+        var pending = lookupBatcher.transfers(List.of(UInt128.asUUID(event.pendingId())));
+        return written.handle((ignored, error) -> invalidatePendingAccounts(pending, accountCache, accountStripes))
+                .thenCompose(invalidated -> invalidated)
+                .thenCompose(ignored -> written);
+    }
+
+    /**
+     * Drops the accounts of the pending transfers in {@code pending} once it completes, or every
+     * account if it fails.
+     */
+    static CompletableFuture<Void> invalidatePendingAccounts(CompletableFuture<Map<UUID, Transfer>> pending,
+                                                             AccountCache accountCache, AccountStripes accountStripes) {
+        return pending.handle((found, error) -> {
+            if (error != null) {
+                accountCache.invalidateAll();
+                return null;
+            }
+            found.values().stream()
+                    .filter(Objects::nonNull)
+                    .forEach(transfer -> accountCache.invalidateAccounts(List.of(accountStripes.toLogical(transfer))));
+            return null;
+        });
+    }
+
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
-        filter.setLimit(dataFilter.limit());
+    }
 
-        var batch = client.queryAccounts(filter);
+    public List<Account> fetchAccountsByBatchFilter(BatchFilter dataFilter)  {
+
+        var batch = client.queryAccounts(toQueryFilter(dataFilter));
         var result = new ArrayList<Account>();
         while (batch.next()) {
-            Account account = Account.builder()
-                    .id(UInt128.asUUID(batch.getId()))
-                    .accountNumber(UInt128.asBigInteger(batch.getUserData128()))
-                    .code(batch.getCode())
-                    .ledger(batch.getLedger())
-                    .userData32(batch.getUserData32())
-                    .userData64(batch.getUserData64())
-                    .creditsPending(batch.getCreditsPending())
-                    .debtsPending(batch.getDebitsPending())
-                    .creditsPosted(batch.getCreditsPosted())
-                    .debtsPosted(batch.getDebitsPosted())
-                    .flags(batch.getFlags())
-                    .timestamp(batch.getTimestamp()) //convertTigerBeetleTimestampToDateTime(batch.getTimestamp())
-                    .build();
-
-            result.add(account);
+            result.add(mapFromCurrentAccountBatch(batch));
         }
 
         return result;
     }
 
+    /**
+     * With a secondary predicate the query is paged until {@code limit} transfers match, so the limit
+     * must be positive; an unbounded extraction goes through {@link #streamTransfersByBatchFilter}.
+     */
+    public List<Transfer> fetchTransactionByBatchFilter(BatchFilter batchFilter)  {
+        if (TransferFilter.of(batchFilter) != null) {
+            if (batchFilter.limit() <= 0) {
+                throw new IllegalArgumentException("limit must be positive with amount, flag or account filters, "
+                        + "use POST /v1/tiger-beetle/transactions/extraction/stream for an unbounded extraction");
+            }
+            var result = new ArrayList<Transfer>();
+            streamTransfersByBatchFilter(batchFilter, page -> {
+                while (page.next()) {
+                    result.add(mapFromCurrentTransferBatch(page));
+                }
+            });
+            return result;
+        }
 
+        var batch = accountStripes.toLogical(client.queryTransfers(toQueryFilter(batchFilter)));
+        var result = new ArrayList<Transfer>();
+        while (batch.next()) {
+            result.add(mapFromCurrentTransferBatch(batch));
+        }
 
-    public List<Transfer> fetchTransactionByBatchFilter(BatchFilter batchFilter)  {
+        return result;
+    }
 
+    static QueryFilter toQueryFilter(BatchFilter batchFilter) {
         var filter = new QueryFilter();
         if(batchFilter.accountNumber() != null) {
             filter.setUserData128(UInt128.asBytes(batchFilter.accountNumber()));
         }
         filter.setUserData64(batchFilter.userData64());
         filter.setUserData32(batchFilter.userData32());
+        filter.setCode(batchFilter.code());
+        filter.setLedger(batchFilter.ledger());
         filter.setReversed(batchFilter.reversed());
         if(batchFilter.fromDate() != null) {
             filter.setTimestampMin(batchFilter.fromDate().getTime() * 1000000);
@@ -351,33 +866,176 @@ public class AccountRepository {
             filter.setTimestampMax(batchFilter.toDate().getTime() * 1000000);
         }
         filter.setLimit(batchFilter.limit());
+        return filter;
+    }
+
+    public List<Transfer> listAccountTransfers(Filters customFilter)  {
+        requireUnstriped(customFilter.accountId(), STATEMENT);
 
-        var batch = client.queryTransfers(filter);
+        var batch = client.getAccountTransfers(toAccountFilter(customFilter));
         var result = new ArrayList<Transfer>();
         while (batch.next()) {
-            Transfer tr = Transfer.builder()
-                    .id(UInt128.asUUID(batch.getId()))
-                    .code(batch.getCode())
-                    .amount(batch.getAmount())
-                    .flags(batch.getFlags())
-                    .ledger(batch.getLedger())
-                    .creditAccountId(UInt128.asUUID(batch.getCreditAccountId()))
-                    .debitAccountId(UInt128.asUUID(batch.getDebitAccountId()))
-                    .userData128(UInt128.asUUID(batch.getUserData128()))
-                    .userData64(batch.getUserData64())
-                    .userData32(batch.getUserData32())
-                    .timestamp(convertTigerBeetleTimestampToDateTime(batch.getTimestamp()))
-                    .pendingId(UInt128.asUUID(batch.getPendingId()))
-                    .build();
+            result.add(mapFromCurrentTransferBatch(batch));
+        }
 
-            result.add(tr);
+        return result;
+    }
+
+    public List<Balance> listAccountBalances(Filters queryFilter)  {
+        if (isStriped(queryFilter.accountId())) {
+            return listStripedBalances(queryFilter);
+        }
+
+        var batch = client.getAccountBalances(toAccountFilter(queryFilter));
+        var result = new ArrayList<Balance>();
+        while (batch.next()) {
+            result.add(mapFromCurrentBalanceBatch(queryFilter.accountId(), batch));
         }
 
         return result;
     }
 
-    public List<Transfer> listAccountTransfers(Filters customFilter)  {
+    /**
+     * Balance history of a striped account: the history of every stripe, merged by timestamp, with
+     * each row giving the sum of the latest balance of every stripe at that point.
+     */
+    private List<Balance> listStripedBalances(Filters queryFilter) {
+        var filter = toAccountFilter(queryFilter);
+        var stripeIds = accountStripes.stripesOf(queryFilter.accountId());
+        var latest = new StripeBalance[stripeIds.size()];
+        var rows = new ArrayList<StripeBalance>();
+        for (int i = 0; i < stripeIds.size(); i++) {
+            filter.setAccountId(UInt128.asBytes(stripeIds.get(i)));
+            latest[i] = StripeBalance.ZERO;
+            if (filter.getTimestampMin() > 1) {
+                var before = toAccountFilter(queryFilter);
+                before.setAccountId(UInt128.asBytes(stripeIds.get(i)));
+                before.setTimestampMin(0);
+                before.setTimestampMax(filter.getTimestampMin() - 1);
+                before.setLimit(1);
+                before.setReversed(true);
+                var baseline = client.getAccountBalances(before);
+                if (baseline.next()) {
+                    latest[i] = StripeBalance.of(i, baseline);
+                }
+            }
+            var batch = client.getAccountBalances(filter);
+            while (batch.next()) {
+                rows.add(StripeBalance.of(i, batch));
+            }
+        }
+        rows.sort(Comparator.comparingLong(StripeBalance::timestamp));
+
+        var result = new ArrayList<Balance>();
+        for (var row : rows) {
+            if (queryFilter.limit() > 0 && result.size() == queryFilter.limit()) {
+                break;
+            }
+            latest[row.stripe()] = row;
+            var sum = StripeBalance.ZERO;
+            for (var balance : latest) {
+                sum = sum.plus(balance);
+            }
+            result.add(Balance.builder()
+                    .accountId(queryFilter.accountId())
+                    .debitsPending(sum.debitsPending())
+                    .debitsPosted(sum.debitsPosted())
+                    .creditsPending(sum.creditsPending())
+                    .creditsPosted(sum.creditsPosted())
+                    .timestamp(convertTigerBeetleTimestampToDateTime(row.timestamp()))
+                    .build());
+        }
+        return result;
+    }
+
+    private record StripeBalance(int stripe, long timestamp, BigInteger debitsPending, BigInteger debitsPosted,
+                                  BigInteger creditsPending, BigInteger creditsPosted) {
+        static final StripeBalance ZERO = new StripeBalance(0, 0, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO);
+
+        static StripeBalance of(int stripe, AccountBalanceBatch batch) {
+            return new StripeBalance(stripe, batch.getTimestamp(), batch.getDebitsPending(), batch.getDebitsPosted(),
+                    batch.getCreditsPending(), batch.getCreditsPosted());
+        }
+
+        StripeBalance plus(StripeBalance other) {
+            return new StripeBalance(stripe, timestamp, debitsPending.add(other.debitsPending), debitsPosted.add(other.debitsPosted),
+                    creditsPending.add(other.creditsPending), creditsPosted.add(other.creditsPosted));
+        }
+    }
+
+    public void streamAccountsByBatchFilter(BatchFilter batchFilter, Consumer<AccountBatch> page) {
+        var filter = toQueryFilter(batchFilter);
+        var clients = streamClients();
+        TimestampPager.forEachPage(pageSize, batchFilter.limit(), filter.getReversed(), filter.getTimestampMin(), filter.getTimestampMax(),
+                (limit, min, max) -> clients.get().queryAccountsAsync(queryPage(batchFilter, limit, min, max)),
+                AccountBatch::getTimestamp, page);
+    }
+
+    public void streamTransfersByBatchFilter(BatchFilter batchFilter, Consumer<TransferBatch> page) {
+        var filter = toQueryFilter(batchFilter);
+        var transferFilter = TransferFilter.of(accountStripes.withStripes(batchFilter));
+        var clients = streamClients();
+        TimestampPager.forEachPage(pageSize, batchFilter.limit(), filter.getReversed(), filter.getTimestampMin(), filter.getTimestampMax(),
+                (limit, min, max) -> clients.get().queryTransfersAsync(queryPage(batchFilter, limit, min, max)),
+                TransferBatch::getTimestamp, transferFilter == null ? null : transferFilter::apply,
+                batch -> page.accept(accountStripes.toLogical(batch)));
+    }
+
+    public void streamAccountTransfers(Filters customFilter, Consumer<TransferBatch> page) {
+        streamAccountTransfers(toAccountFilter(customFilter), customFilter.limit(), page);
+    }
+
+    /**
+     * Pages through {@code filter} in its own direction; {@code limit} caps the whole stream (0 means no cap).
+     */
+    public void streamAccountTransfers(AccountFilter filter, int limit, Consumer<TransferBatch> page) {
+        var clients = streamClients();
+        TimestampPager.forEachPage(pageSize, limit, filter.getReversed(), filter.getTimestampMin(), filter.getTimestampMax(),
+                (pageLimit, min, max) -> clients.get().getAccountTransfersAsync(accountPage(filter, pageLimit, min, max)),
+                TransferBatch::getTimestamp, page);
+    }
+
+    public void streamAccountBalances(Filters customFilter, Consumer<AccountBalanceBatch> page) {
+        streamAccountBalances(toAccountFilter(customFilter), customFilter.limit(), page);
+    }
 
+    public void streamAccountBalances(AccountFilter filter, int limit, Consumer<AccountBalanceBatch> page) {
+        var clients = streamClients();
+        TimestampPager.forEachPage(pageSize, limit, filter.getReversed(), filter.getTimestampMin(), filter.getTimestampMax(),
+                (pageLimit, min, max) -> clients.get().getAccountBalancesAsync(accountPage(filter, pageLimit, min, max)),
+                AccountBalanceBatch::getTimestamp, page);
+    }
+
+    /**
+     * The cluster for each page of a stream: the first page passes the load shedding of an HTTP request,
+     * the pages after it belong to a response that is already being written and only pass the gate.
+     */
+    private Supplier<ClusterOperations> streamClients() {
+        var first = new AtomicBoolean(true);
+        return () -> first.getAndSet(false) || internalClient == null ? client : internalClient;
+    }
+
+    private static QueryFilter queryPage(BatchFilter batchFilter, int limit, long timestampMin, long timestampMax) {
+        var filter = toQueryFilter(batchFilter);
+        filter.setLimit(limit);
+        filter.setTimestampMin(timestampMin);
+        filter.setTimestampMax(timestampMax);
+        return filter;
+    }
+
+    private static AccountFilter accountPage(AccountFilter base, int limit, long timestampMin, long timestampMax) {
+        var filter = new AccountFilter();
+        filter.setAccountId(base.getAccountId());
+        filter.setDebits(base.getDebits());
+        filter.setCredits(base.getCredits());
+        filter.setReversed(base.getReversed());
+        filter.setLimit(limit);
+        filter.setTimestampMin(timestampMin);
+        filter.setTimestampMax(timestampMax);
+        return filter;
+    }
+
+    static AccountFilter toAccountFilter(Filters customFilter) {
         var filter = new AccountFilter();
         filter.setAccountId(UInt128.asBytes(customFilter.accountId()));
         filter.setCredits(customFilter.credits());
@@ -389,71 +1047,26 @@ public class AccountRepository {
             filter.setTimestampMax(customFilter.toDate().getTime() * 1000000);
         }
         filter.setLimit(customFilter.limit());
-
-        var batch = client.getAccountTransfers(filter);
-        var result = new ArrayList<Transfer>();
-        while (batch.next()) {
-            Transfer tr = Transfer.builder()
-                    .id(UInt128.asUUID(batch.getId()))
-                    .code(batch.getCode())
-                    .amount(batch.getAmount())
-                    .flags(batch.getFlags())
-                    .ledger(batch.getLedger())
-                    .creditAccountId(UInt128.asUUID(batch.getCreditAccountId()))
-                    .debitAccountId(UInt128.asUUID(batch.getDebitAccountId()))
-                    .userData128(UInt128.asUUID(batch.getUserData128()))
-                    .userData64(batch.getUserData64())
-                    .userData32(batch.getUserData32())
-                    .timestamp(convertTigerBeetleTimestampToDateTime(batch.getTimestamp()))
-                    .pendingId(UInt128.asUUID(batch.getPendingId()))
-                    .build();
-
-            result.add(tr);
-        }
-
-        return result;
+        return filter;
     }
 
-    public List<Balance> listAccountBalances(Filters queryFilter)  {
-        var filter = new AccountFilter();
-        filter.setAccountId(UInt128.asBytes(queryFilter.accountId()));
-        filter.setCredits(queryFilter.credits());
-        filter.setDebits(queryFilter.debits());
-        filter.setLimit(queryFilter.limit());
-//        filter.setReversed(lastFirst);
-        if(queryFilter.fromDate() != null) {
-            filter.setTimestampMin(queryFilter.fromDate().getTime() * 1000000);
-        }
-        if(queryFilter.toDate() != null) {
-            filter.setTimestampMax(queryFilter.toDate().getTime() * 1000000);
-        }
-
-        var batch = client.getAccountBalances(filter);
-        var result = new ArrayList<Balance>();
-        while (batch.next()) {
-            result.add(
-                    Balance.builder()
-                            .accountId(queryFilter.accountId())
-                            .debitsPending(batch.getDebitsPending())
-                            .debitsPosted(batch.getDebitsPosted())
-                            .creditsPending(batch.getCreditsPending())
-                            .creditsPosted(batch.getCreditsPosted())
-                            .timestamp(convertTigerBeetleTimestampToDateTime(batch.getTimestamp()))
-                            .build()
-            );
-        }
-
-        return result;
+    public static Balance mapFromCurrentBalanceBatch(UUID accountId, AccountBalanceBatch batch) {
+        return Balance.builder()
+                .accountId(accountId)
+                .debitsPending(batch.getDebitsPending())
+                .debitsPosted(batch.getDebitsPosted())
+                .creditsPending(batch.getCreditsPending())
+                .creditsPosted(batch.getCreditsPosted())
+                .timestamp(convertTigerBeetleTimestampToDateTime(batch.getTimestamp()))
+                .build();
     }
 
     public static String convertTigerBeetleTimestampToDateTime(long tigerBeetleTimestampNanos) {
 
         long timestampMillis = tigerBeetleTimestampNanos / 1_000_000;
-        Instant instant = Instant.ofEpochMilli(timestampMillis);
-        ZonedDateTime zonedDateTime = instant.atZone(ZoneId.of("UTC"));
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS z");
-        return zonedDateTime.format(formatter);
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(timestampMillis));
     }
+
     public List<Map.Entry<UUID, CreateTransferResult>> createLinkedTransfers(List<Transfer> transfers)  {
 
         var results = new ArrayList<Map.Entry<UUID, CreateTransferResult>>(transfers.size());
@@ -478,8 +1091,14 @@ public class AccountRepository {
             batch.setCode(t.code());
             results.add(new AbstractMap.SimpleImmutableEntry<>(UInt128.asUUID(id), CreateTransferResult.Ok));
         }
+        accountStripes.route(batch);
 
-        var batchResult = client.createTransfers(batch);
+        CreateTransferResultBatch batchResult;
+        try {
+            batchResult = client.createTransfers(batch);
+        } finally {
+            accountCache.invalidateAccounts(transfers);
+        }
         while (batchResult.next()) {
             var original = results.get(batchResult.getIndex());
             results.set(batchResult.getIndex(), new AbstractMap.SimpleImmutableEntry<>(original.getKey(), batchResult.getResult()));
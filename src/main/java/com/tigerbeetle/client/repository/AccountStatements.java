@@ -0,0 +1,207 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountFilter;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.StatementRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Transfers of several accounts as one stream in timestamp order. Every account is paged on its own
+ * with a timestamp cursor, at most {@code max-parallelism} pages in flight over all of them, and the
+ * pages are merged through a heap keyed on each account's current row. A transfer between two
+ * accounts of the set shows up in both histories with the same timestamp, and timestamps are unique
+ * per transfer, so it is written once by skipping a row whose timestamp was just written. A striped
+ * account is read as all of its stripes, and written out under its own id. Only the first page of
+ * each account passes the load shedding of an HTTP request; the rest go to the cluster behind the
+ * gate alone, so a statement that has started is not cut short by a shed page.
+ */
+@Service
+public class AccountStatements {
+
+    private final ClusterOperations client;
+    private final ClusterOperations internalClient;
+    private final AccountStripes accountStripes;
+    private final LookupBatcher lookupBatcher;
+    private final int pageSize;
+    private final int maxAccounts;
+    private final int maxParallelism;
+
+    public AccountStatements(ClusterOperations client,
+                             @Qualifier("internalClusterOperations") ClusterOperations internalClient,
+                             AccountStripes accountStripes,
+                             LookupBatcher lookupBatcher,
+                             @Value("${tigerbeetle.statement.page-size:1024}") int pageSize,
+                             @Value("${tigerbeetle.statement.max-accounts:256}") int maxAccounts,
+                             @Value("${tigerbeetle.statement.max-parallelism:8}") int maxParallelism) {
+        this.client = client;
+        this.internalClient = internalClient;
+        this.accountStripes = accountStripes;
+        this.lookupBatcher = lookupBatcher;
+        this.pageSize = pageSize;
+        this.maxAccounts = maxAccounts;
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Checks {@code request} up front, so that a bad one fails before any of the stream is written.
+     * {@code max-accounts} bounds the accounts actually paged, so each stripe counts as one.
+     */
+    public Statement open(StatementRequest request) {
+        if (request.accountIds() == null || request.accountIds().isEmpty()) {
+            throw new IllegalArgumentException("accountIds must not be empty");
+        }
+        if (request.accountIds().size() > maxAccounts) {
+            throw new IllegalArgumentException("At most " + maxAccounts + " accounts per statement");
+        }
+        var accountIds = stripesOf(request.accountIds());
+        if (accountIds.size() > maxAccounts) {
+            throw new IllegalArgumentException("At most " + maxAccounts
+                    + " accounts per statement, counting every stripe of a striped account");
+        }
+        long timestampMin = request.fromDate() != null ? request.fromDate().getTime() * 1_000_000L : 0;
+        long timestampMax = request.toDate() != null ? request.toDate().getTime() * 1_000_000L : 0;
+        return new Statement(accountIds, timestampMin, timestampMax, request.limit());
+    }
+
+    /**
+     * Every stripe of the striped accounts among {@code accountIds}, and the others as they are.
+     */
+    private List<UUID> stripesOf(Collection<UUID> accountIds) {
+        var resolved = accountIds.stream()
+                .map(id -> accountStripes.resolve(lookupBatcher, id, Duration.ZERO))
+                .toList();
+        AccountRepository.await(CompletableFuture.allOf(resolved.toArray(new CompletableFuture[0])));
+        var result = new ArrayList<UUID>();
+        for (UUID id : accountIds) {
+            result.addAll(accountStripes.stripesOf(id));
+        }
+        return List.copyOf(result);
+    }
+
+    public final class Statement {
+        private final List<UUID> accountIds;
+        private final long timestampMin;
+        private final long timestampMax;
+        private final int limit;
+        private final Semaphore inFlight = new Semaphore(maxParallelism);
+
+        private Statement(List<UUID> accountIds, long timestampMin, long timestampMax, int limit) {
+            this.accountIds = accountIds;
+            this.timestampMin = timestampMin;
+            this.timestampMax = timestampMax;
+            this.limit = limit;
+        }
+
+        /**
+         * Hands the merged transfers to {@code page} in batches of up to {@code page-size}; {@code limit}
+         * caps the whole statement (0 means no cap).
+         */
+        public void forEachPage(Consumer<TransferBatch> page) {
+            var cursors = new ArrayList<Cursor>(accountIds.size());
+            for (UUID accountId : accountIds) {
+                cursors.add(new Cursor(accountId));
+            }
+            var heap = new PriorityQueue<Cursor>(cursors.size(), Comparator.comparingLong(Cursor::timestamp));
+            for (var cursor : cursors) {
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+
+            int remaining = limit > 0 ? limit : Integer.MAX_VALUE;
+            var out = new TransferBatch(Math.min(pageSize, remaining));
+            long last = 0;
+            while (remaining > 0 && !heap.isEmpty()) {
+                var cursor = heap.poll();
+                if (cursor.timestamp() != last) {
+                    last = cursor.timestamp();
+                    out.add();
+                    TransferFilter.copyRow(cursor.batch, out);
+                    remaining--;
+                    if (out.getLength() == pageSize) {
+                        page.accept(accountStripes.toLogical(out));
+                        out = new TransferBatch(Math.min(pageSize, Math.max(remaining, 1)));
+                    }
+                }
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+            if (out.getLength() > 0) {
+                page.accept(accountStripes.toLogical(out));
+            }
+        }
+
+        private CompletableFuture<TransferBatch> fetch(ClusterOperations client, UUID accountId, long from) {
+            var filter = new AccountFilter();
+            filter.setAccountId(UInt128.asBytes(accountId));
+            filter.setDebits(true);
+            filter.setCredits(true);
+            filter.setTimestampMin(from);
+            filter.setTimestampMax(timestampMax);
+            filter.setLimit(pageSize);
+            inFlight.acquireUninterruptibly();
+            try {
+                return client.getAccountTransfersAsync(filter).whenComplete((ignored, error) -> inFlight.release());
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        /**
+         * One account's history: the page being merged plus the request for the next one, which is
+         * sent as soon as a full page arrives.
+         */
+        private final class Cursor {
+            final UUID accountId;
+            TransferBatch batch;
+            CompletableFuture<TransferBatch> next;
+
+            Cursor(UUID accountId) {
+                this.accountId = accountId;
+                this.next = fetch(client, accountId, timestampMin);
+            }
+
+            long timestamp() {
+                return batch.getTimestamp();
+            }
+
+            /**
+             * Moves to the next row, waiting for the next page when this one is used up. False once
+             * the history is exhausted.
+             */
+            boolean advance() {
+                while (batch == null || !batch.next()) {
+                    if (next == null) {
+                        return false;
+                    }
+                    batch = AccountRepository.await(next);
+                    next = null;
+                    if (batch.getLength() == pageSize) {
+                        batch.setPosition(pageSize - 1);
+                        long lastTimestamp = batch.getTimestamp();
+                        batch.beforeFirst();
+                        next = fetch(internalClient, accountId, lastTimestamp + 1);
+                    }
+                }
+                return true;
+            }
+        }
+    }
+}
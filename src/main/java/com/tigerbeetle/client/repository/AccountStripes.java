@@ -0,0 +1,378 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Account;
+import com.tigerbeetle.client.dto.BatchFilter;
+import com.tigerbeetle.client.dto.Transfer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Striped accounts: a logical account backed by {@code stripes} accounts on the same ledger so that
+ * transfers touching it do not all contend on one account. Stripe 0 is the logical account itself;
+ * the others have ids derived from it. An account is striped exactly when its stripe 1 exists in the
+ * cluster, so reads recognise one striped elsewhere or before a restart; writes are spread from the
+ * first read here on, or from startup for accounts listed in {@code tigerbeetle.striping.accounts}.
+ * A transfer's stripe follows from its own id, which keeps a retried transfer on the stripe it was
+ * first written to. Striping is off with the default of one stripe; an account found not striped is
+ * not asked about again for {@code tigerbeetle.striping.recheck-ms}.
+ */
+@Component
+public class AccountStripes {
+
+    private static final String SCOPE = "stripe";
+    private static final int MAX_UNSTRIPED = 100_000;
+
+    private final int stripes;
+    private final long recheckNanos;
+    private final Map<UUID, List<UUID>> striped = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> logicalIds = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> unstriped;
+
+    public AccountStripes(@Value("${tigerbeetle.striping.stripes:1}") int stripes,
+                          @Value("${tigerbeetle.striping.accounts:}") List<UUID> accounts,
+                          @Value("${tigerbeetle.striping.recheck-ms:60000}") long recheckMs) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("tigerbeetle.striping.stripes must be positive");
+        }
+        if (stripes == 1 && !accounts.isEmpty()) {
+            throw new IllegalArgumentException("tigerbeetle.striping.accounts needs tigerbeetle.striping.stripes above 1");
+        }
+        this.stripes = stripes;
+        this.recheckNanos = Duration.ofMillis(recheckMs).toNanos();
+        this.unstriped = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+                return size() > MAX_UNSTRIPED;
+            }
+        };
+        accounts.forEach(this::declare);
+    }
+
+    /**
+     * Whether accounts can be striped at all, that is {@code tigerbeetle.striping.stripes} is above 1.
+     */
+    public boolean isEnabled() {
+        return stripes > 1;
+    }
+
+    /**
+     * Ids of every stripe of {@code id}, the logical account first.
+     */
+    public List<UUID> declare(UUID id) {
+        synchronized (unstriped) {
+            unstriped.remove(id);
+        }
+        return striped.computeIfAbsent(id, key -> {
+            var ids = stripeIds(key);
+            ids.forEach(stripeId -> logicalIds.put(stripeId, key));
+            return ids;
+        });
+    }
+
+    public boolean isStriped(UUID id) {
+        return striped.containsKey(id);
+    }
+
+    /**
+     * Stripes of {@code id}, or just {@code id} itself when it is not striped.
+     */
+    public List<UUID> stripesOf(UUID id) {
+        return striped.getOrDefault(id, List.of(id));
+    }
+
+    /**
+     * The logical account of a stripe declared here; any other id as is.
+     */
+    public UUID logicalOf(UUID id) {
+        return id == null ? null : logicalIds.getOrDefault(id, id);
+    }
+
+    /**
+     * {@code transfer} with the stripes it was written to replaced by their logical accounts.
+     */
+    public Transfer toLogical(Transfer transfer) {
+        if (transfer == null || logicalIds.isEmpty()) {
+            return transfer;
+        }
+        var debit = logicalOf(transfer.debitAccountId());
+        var credit = logicalOf(transfer.creditAccountId());
+        if (debit == transfer.debitAccountId() && credit == transfer.creditAccountId()) {
+            return transfer;
+        }
+        return Transfer.builder()
+                .id(transfer.id())
+                .amount(transfer.amount())
+                .code(transfer.code())
+                .ledger(transfer.ledger())
+                .flags(transfer.flags())
+                .debitAccountId(debit)
+                .creditAccountId(credit)
+                .timestamp(transfer.timestamp())
+                .userData32(transfer.userData32())
+                .userData64(transfer.userData64())
+                .userData128(transfer.userData128())
+                .pendingId(transfer.pendingId())
+                .build();
+    }
+
+    /**
+     * Same as {@link #toLogical(Transfer)} for every row of {@code batch}, in place; the batch is
+     * handed back rewound.
+     */
+    public TransferBatch toLogical(TransferBatch batch) {
+        batch.beforeFirst();
+        if (logicalIds.isEmpty()) {
+            return batch;
+        }
+        while (batch.next()) {
+            var debit = logicalIds.get(UInt128.asUUID(batch.getDebitAccountId()));
+            if (debit != null) {
+                batch.setDebitAccountId(UInt128.asBytes(debit));
+            }
+            var credit = logicalIds.get(UInt128.asUUID(batch.getCreditAccountId()));
+            if (credit != null) {
+                batch.setCreditAccountId(UInt128.asBytes(credit));
+            }
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    /**
+     * {@code filter} with every stripe of a striped account added to its debit and credit account sets.
+     */
+    public BatchFilter withStripes(BatchFilter filter) {
+        if (logicalIds.isEmpty() || (filter.debitAccountIds() == null && filter.creditAccountIds() == null)) {
+            return filter;
+        }
+        return new BatchFilter(filter.accountNumber(), filter.userData64(), filter.userData32(), filter.code(),
+                filter.ledger(), filter.fromDate(), filter.toDate(), filter.limit(), filter.reversed(),
+                filter.amountMin(), filter.amountMax(), filter.flagsSet(), filter.flagsUnset(),
+                withStripes(filter.debitAccountIds()), withStripes(filter.creditAccountIds()));
+    }
+
+    private Set<UUID> withStripes(Set<UUID> ids) {
+        if (ids == null) {
+            return null;
+        }
+        var all = new HashSet<UUID>();
+        ids.forEach(id -> all.addAll(stripesOf(id)));
+        return all;
+    }
+
+    /**
+     * Looks {@code ids} up through {@code lookups}; ids that do not exist map to {@code null}. The
+     * first stripe of every account not known either way is asked for in the same batch, and an
+     * account whose first stripe exists is declared and has its remaining stripes looked up. A
+     * striped account comes back as its logical account with the balances of all stripes added up.
+     */
+    public CompletableFuture<Map<UUID, Account>> lookup(LookupBatcher lookups, Collection<UUID> ids, Duration maxStaleness) {
+        var wanted = new LinkedHashSet<UUID>();
+        var probed = new HashSet<UUID>();
+        for (UUID id : ids) {
+            wanted.addAll(stripesOf(id));
+            if (needsProbe(id)) {
+                wanted.add(firstStripe(id));
+                probed.add(id);
+            }
+        }
+        return lookups.accounts(wanted, maxStaleness).thenCompose(found -> {
+            var missing = new LinkedHashSet<UUID>();
+            for (UUID id : ids) {
+                if (probed.contains(id) && found.get(firstStripe(id)) == null) {
+                    markUnstriped(id);
+                }
+                if (!isStriped(id) && (!probed.contains(id) || found.get(firstStripe(id)) == null)) {
+                    continue;
+                }
+                for (UUID stripeId : declare(id)) {
+                    if (!found.containsKey(stripeId)) {
+                        missing.add(stripeId);
+                    }
+                }
+            }
+            if (missing.isEmpty()) {
+                return CompletableFuture.completedFuture(found);
+            }
+            return lookups.accounts(missing, maxStaleness).thenApply(rest -> {
+                var all = new HashMap<>(found);
+                all.putAll(rest);
+                return all;
+            });
+        }).thenApply(found -> {
+            var result = new HashMap<UUID, Account>();
+            for (UUID id : ids) {
+                var account = found.get(id);
+                result.put(id, account != null && isStriped(id) ? sum(account, found) : account);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Whether {@code id} is striped, asking the cluster for its first stripe unless that is known here.
+     */
+    public CompletableFuture<Boolean> resolve(LookupBatcher lookups, UUID id, Duration maxStaleness) {
+        if (!needsProbe(id)) {
+            return CompletableFuture.completedFuture(isStriped(id));
+        }
+        var probe = firstStripe(id);
+        return lookups.accounts(List.of(probe), maxStaleness).thenApply(found -> {
+            if (found.get(probe) == null) {
+                markUnstriped(id);
+                return false;
+            }
+            declare(id);
+            return true;
+        });
+    }
+
+    /**
+     * Whether the cluster has to be asked if {@code id} is striped: striping is on, the account is not
+     * known to be striped and it was not found unstriped within the last {@code recheck-ms}.
+     */
+    private boolean needsProbe(UUID id) {
+        if (!isEnabled() || isStriped(id)) {
+            return false;
+        }
+        synchronized (unstriped) {
+            var checkedAt = unstriped.get(id);
+            return checkedAt == null || System.nanoTime() - checkedAt >= recheckNanos;
+        }
+    }
+
+    private void markUnstriped(UUID id) {
+        synchronized (unstriped) {
+            unstriped.put(id, System.nanoTime());
+        }
+    }
+
+    private Account sum(Account logical, Map<UUID, Account> found) {
+        var creditsPosted = BigInteger.ZERO;
+        var creditsPending = BigInteger.ZERO;
+        var debitsPosted = BigInteger.ZERO;
+        var debitsPending = BigInteger.ZERO;
+        for (UUID stripeId : stripesOf(logical.id())) {
+            var stripe = found.get(stripeId);
+            if (stripe != null) {
+                creditsPosted = creditsPosted.add(stripe.creditsPosted());
+                creditsPending = creditsPending.add(stripe.creditsPending());
+                debitsPosted = debitsPosted.add(stripe.debtsPosted());
+                debitsPending = debitsPending.add(stripe.debtsPending());
+            }
+        }
+        return Account.builder()
+                .id(logical.id())
+                .accountNumber(logical.accountNumber())
+                .flags(logical.flags())
+                .code(logical.code())
+                .ledger(logical.ledger())
+                .userData32(logical.userData32())
+                .userData64(logical.userData64())
+                .timestamp(logical.timestamp())
+                .creditsPosted(creditsPosted)
+                .creditsPending(creditsPending)
+                .debtsPosted(debitsPosted)
+                .debtsPending(debitsPending)
+                .build();
+    }
+
+    private UUID firstStripe(UUID id) {
+        return UInt128.asUUID(IdempotencyKeys.digest(SCOPE, id.toString(), 1));
+    }
+
+    List<UUID> stripeIds(UUID id) {
+        var ids = new UUID[stripes];
+        ids[0] = id;
+        for (int i = 1; i < stripes; i++) {
+            ids[i] = UInt128.asUUID(IdempotencyKeys.digest(SCOPE, id.toString(), i));
+        }
+        return List.of(ids);
+    }
+
+    /**
+     * Moves the striped accounts of {@code event} to the stripe picked by its id. Posting or voiding a
+     * pending transfer drops them instead, so the cluster takes the pending transfer's stripes.
+     */
+    public TransferBatcher.Event route(TransferBatcher.Event event) {
+        if (striped.isEmpty()) {
+            return event;
+        }
+        boolean resolves = resolvesPending(event.flags());
+        var stripe = stripe(UInt128.asUUID(event.id()));
+        return TransferBatcher.Event.builder()
+                .id(event.id())
+                .debitAccountId(route(event.debitAccountId(), stripe, resolves))
+                .creditAccountId(route(event.creditAccountId(), stripe, resolves))
+                .amount(event.amount())
+                .pendingId(event.pendingId())
+                .userData128(event.userData128())
+                .userData64(event.userData64())
+                .userData32(event.userData32())
+                .timeout(event.timeout())
+                .ledger(event.ledger())
+                .code(event.code())
+                .flags(event.flags())
+                .build();
+    }
+
+    /**
+     * Same as {@link #route(TransferBatcher.Event)} for every row of {@code batch}, in place.
+     */
+    public void route(TransferBatch batch) {
+        if (striped.isEmpty()) {
+            return;
+        }
+        batch.beforeFirst();
+        while (batch.next()) {
+            boolean resolves = resolvesPending(batch.getFlags());
+            int stripe = stripe(UInt128.asUUID(batch.getId()));
+            var debit = route(batch.getDebitAccountId(), stripe, resolves);
+            if (debit != null) {
+                batch.setDebitAccountId(debit);
+            }
+            var credit = route(batch.getCreditAccountId(), stripe, resolves);
+            if (credit != null) {
+                batch.setCreditAccountId(credit);
+            }
+        }
+        batch.beforeFirst();
+    }
+
+    private byte[] route(byte[] accountId, int stripe, boolean resolves) {
+        if (accountId == null) {
+            return null;
+        }
+        var ids = striped.get(UInt128.asUUID(accountId));
+        if (ids == null) {
+            return accountId;
+        }
+        return resolves ? new byte[16] : UInt128.asBytes(ids.get(stripe));
+    }
+
+    private int stripe(UUID transferId) {
+        long bits = transferId.getLeastSignificantBits() ^ transferId.getMostSignificantBits();
+        return Math.floorMod(bits ^ (bits >>> 32), stripes);
+    }
+
+    private static boolean resolvesPending(int flags) {
+        return (flags & (TransferFlags.POST_PENDING_TRANSFER | TransferFlags.VOID_PENDING_TRANSFER)) != 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.*;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static com.tigerbeetle.client.repository.AccountRepository.*;
+
+@Service
+@RequiredArgsConstructor
+public class AsyncAccountRepository {
+    private final ClusterOperations client;
+    private final TransferBatcher transferBatcher;
+    private final AccountCache accountCache;
+    private final LookupBatcher lookupBatcher;
+    private final AccountStripes accountStripes;
+
+    public CompletableFuture<List<Account>> createAccountBatch(List<Account> accounts) {
+        List<UUID> ids = new ArrayList<>();
+        AccountBatch batch = newLinkedAccountBatch(accounts, ids);
+        return client.createAccountsAsync(batch).thenCompose(result -> {
+            if (result.getLength() > 0) {
+                result.next();
+                throw new AccountException(result.getResult());
+            }
+            return findAccountsById(ids.toArray(new UUID[0]));
+        }).thenApply(found -> found.values().stream().toList());
+    }
+
+    public CompletableFuture<List<Transfer>> createBatchTransfer(List<Transfer> transfers) {
+        List<UUID> ids = new ArrayList<>();
+        var batch = newLinkedTransferBatch(transfers, ids);
+        return client.createTransfersAsync(batch)
+                .whenComplete((ignored, error) -> accountCache.invalidateAccounts(transfers))
+                .thenCompose(batchResult -> {
+                    if (batchResult.getLength() > 0) {
+                        throw new BatchTransferException(mapTransferResults(ids, batchResult));
+                    }
+                    return findTransfersByBatchIds(ids);
+                }).thenApply(found -> found.values().stream().toList());
+    }
+
+    public CompletableFuture<Transfer> createPendingTransfer(Transfer transfer) {
+        var id = UInt128.id();
+        return submitSingleTransfer(pendingTransferEvent(id, transfer))
+                .thenCompose(ignored -> findTransfersById(UInt128.asUUID(id)));
+    }
+
+    public CompletableFuture<Transfer> completePendingTransfer(Transfer transfer) {
+        var id = UInt128.id();
+        return submitSingleTransfer(postPendingTransferEvent(id, transfer))
+                .thenCompose(ignored -> findTransfersById(UInt128.asUUID(id)))
+                .thenApply(posted -> {
+                    if (posted != null) {
+                        accountCache.invalidateAccounts(List.of(posted));
+                    }
+                    return posted;
+                });
+    }
+
+    private CompletableFuture<Void> submitSingleTransfer(TransferBatcher.Event event) {
+        return invalidatingAccounts(transferBatcher.submit(event), event, accountCache, accountStripes, lookupBatcher)
+                .thenAccept(result -> {
+                    if (result != CreateTransferResult.Ok) {
+                        throw new TransferException(result);
+                    }
+                });
+    }
+
+    public CompletableFuture<Optional<Account>> findAccountById(UUID id) {
+        return accountStripes.lookup(lookupBatcher, List.of(id), Duration.ZERO).thenApply(found -> Optional.ofNullable(found.get(id)));
+    }
+
+    public CompletableFuture<Map<UUID, Account>> findAccountsById(UUID[] ids) {
+        return accountStripes.lookup(lookupBatcher, Arrays.asList(ids), Duration.ZERO);
+    }
+
+    public CompletableFuture<Transfer> findTransfersById(UUID id) {
+        return findTransfersByBatchIds(List.of(id)).thenApply(found -> found.get(id));
+    }
+
+    public CompletableFuture<Map<UUID, Transfer>> findTransfersByBatchIds(List<UUID> ids) {
+        return lookupBatcher.transfers(ids).thenApply(found -> {
+            found.replaceAll((id, transfer) -> accountStripes.toLogical(transfer));
+            return found;
+        });
+    }
+
+    public CompletableFuture<List<Account>> fetchAccountsByBatchFilter(BatchFilter batchFilter) {
+        return client.queryAccountsAsync(toQueryFilter(batchFilter)).thenApply(batch -> {
+            var result = new ArrayList<Account>(batch.getLength());
+            while (batch.next()) {
+                result.add(mapFromCurrentAccountBatch(batch));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * A single query; the secondary filter only sees the {@code limit} rows it returns.
+     */
+    public CompletableFuture<List<Transfer>> fetchTransactionByBatchFilter(BatchFilter batchFilter) {
+        var transferFilter = TransferFilter.of(accountStripes.withStripes(batchFilter));
+        return client.queryTransfersAsync(toQueryFilter(batchFilter))
+                .thenApply(batch -> transferFilter == null ? batch : transferFilter.apply(batch, batch.getLength()))
+                .thenApply(accountStripes::toLogical)
+                .thenApply(AsyncAccountRepository::mapTransfers);
+    }
+
+    public CompletableFuture<List<Transfer>> listAccountTransfers(Filters filter) {
+        return requireUnstriped(filter.accountId(), STATEMENT)
+                .thenCompose(ignored -> client.getAccountTransfersAsync(toAccountFilter(filter)))
+                .thenApply(AsyncAccountRepository::mapTransfers);
+    }
+
+    public CompletableFuture<List<Balance>> listAccountBalances(Filters filter) {
+        return requireUnstriped(filter.accountId(), BALANCE_HISTORY)
+                .thenCompose(ignored -> client.getAccountBalancesAsync(toAccountFilter(filter))).thenApply(batch -> {
+            var result = new ArrayList<Balance>(batch.getLength());
+            while (batch.next()) {
+                result.add(mapFromCurrentBalanceBatch(filter.accountId(), batch));
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<Void> requireUnstriped(UUID accountId, String alternative) {
+        return accountStripes.resolve(lookupBatcher, accountId, accountCache.defaultMaxStaleness()).thenAccept(striped -> {
+            if (striped) {
+                throw stripedAccount(accountId, alternative);
+            }
+        });
+    }
+
+    private static List<Transfer> mapTransfers(TransferBatch batch) {
+        var result = new ArrayList<Transfer>(batch.getLength());
+        while (batch.next()) {
+            result.add(mapFromCurrentTransferBatch(batch));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,234 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBalanceBatch;
+import com.tigerbeetle.AccountFilter;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.BalanceBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Downsamples an account's balance history (accounts need {@code AccountFlags.HISTORY}) into
+ * intervals aligned to the epoch, paging through {@code getAccountBalances} and folding each row into
+ * the current interval as it arrives. Intervals that ended more than {@code finalized-after-ms} ago
+ * cannot change any more and are kept in a bounded LRU, empty ones included; only the runs of
+ * intervals missing from it are read from the cluster.
+ */
+@Service
+public class BalanceSeries {
+
+    private static final BalanceBucket EMPTY = BalanceBucket.builder().build();
+
+    private final ClusterOperations client;
+    private final int pageSize;
+    private final int maxBuckets;
+    private final long finalizedAfterNanos;
+    private final Map<BucketKey, BalanceBucket> finished;
+
+    public BalanceSeries(ClusterOperations client,
+                         @Value("${tigerbeetle.query.page-size:8190}") int pageSize,
+                         @Value("${tigerbeetle.balance-series.max-buckets:10000}") int maxBuckets,
+                         @Value("${tigerbeetle.balance-series.cache-entries:100000}") int cacheEntries,
+                         @Value("${tigerbeetle.balance-series.finalized-after-ms:60000}") long finalizedAfterMs) {
+        this.client = client;
+        this.pageSize = pageSize;
+        this.maxBuckets = maxBuckets;
+        this.finalizedAfterNanos = finalizedAfterMs * 1_000_000L;
+        this.finished = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BucketKey, BalanceBucket> eldest) {
+                return size() > cacheEntries;
+            }
+        };
+    }
+
+    /**
+     * Intervals of {@code intervalMs} with at least one balance change between {@code fromMs} and
+     * {@code toMs}, oldest first. Both ends are widened to whole intervals.
+     */
+    public List<BalanceBucket> downsample(UUID accountId, long fromMs, long toMs, long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("intervalMs must be positive");
+        }
+        if (toMs < fromMs) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+        long first = Math.floorDiv(fromMs, intervalMs);
+        long last = Math.floorDiv(toMs, intervalMs);
+        if (last - first + 1 > maxBuckets) {
+            throw new IllegalArgumentException("At most " + maxBuckets + " intervals per request");
+        }
+
+        var series = new Series(accountId, intervalMs * 1_000_000L,
+                System.currentTimeMillis() * 1_000_000L - finalizedAfterNanos);
+        long start = first * series.interval;
+        long end = (last + 1) * series.interval;
+        while (start < end) {
+            var cached = series.cached(start);
+            if (cached != null) {
+                if (cached != EMPTY) {
+                    series.result.add(cached);
+                }
+                start += series.interval;
+                continue;
+            }
+            long runEnd = start + series.interval;
+            while (runEnd < end && series.cached(runEnd) == null) {
+                runEnd += series.interval;
+            }
+            series.read(start, runEnd);
+            start = runEnd;
+        }
+        return series.result;
+    }
+
+    private BalanceBucket cached(BucketKey key) {
+        synchronized (finished) {
+            return finished.get(key);
+        }
+    }
+
+    private void cache(BucketKey key, BalanceBucket bucket) {
+        synchronized (finished) {
+            finished.put(key, bucket);
+        }
+    }
+
+    private static AccountFilter filter(UUID accountId, int limit, long timestampMin, long timestampMax, boolean reversed) {
+        var filter = new AccountFilter();
+        filter.setAccountId(UInt128.asBytes(accountId));
+        filter.setDebits(true);
+        filter.setCredits(true);
+        filter.setLimit(limit);
+        filter.setTimestampMin(timestampMin);
+        filter.setTimestampMax(timestampMax);
+        filter.setReversed(reversed);
+        return filter;
+    }
+
+    private record BucketKey(UUID accountId, long interval, long start) {}
+
+    /**
+     * One request: folds balance rows into the open interval and emits it once a row past its end
+     * arrives. Position and running posted totals carry over from row to row.
+     */
+    private final class Series {
+        final UUID accountId;
+        final long interval;
+        final long finalizedBefore;
+        final List<BalanceBucket> result = new ArrayList<>();
+
+        BigInteger net;
+        BigInteger posted;
+        long bucketStart;
+        BigInteger open;
+        BigInteger min;
+        BigInteger max;
+        BigInteger volume;
+        int changes;
+        long cursor;
+
+        Series(UUID accountId, long interval, long finalizedBefore) {
+            this.accountId = accountId;
+            this.interval = interval;
+            this.finalizedBefore = finalizedBefore;
+        }
+
+        BalanceBucket cached(long start) {
+            return isFinal(start) ? BalanceSeries.this.cached(new BucketKey(accountId, interval, start)) : null;
+        }
+
+        boolean isFinal(long start) {
+            return start + interval <= finalizedBefore;
+        }
+
+        void read(long runStart, long runEnd) {
+            startBaseline(runStart);
+            cursor = runStart;
+            changes = 0;
+            TimestampPager.forEachPage(pageSize, 0, false, runStart, runEnd - 1,
+                    (limit, min, max) -> client.getAccountBalancesAsync(filter(accountId, limit, min, max, false)),
+                    AccountBalanceBatch::getTimestamp, this::fold);
+            if (changes > 0) {
+                emit();
+            }
+            markEmpty(runEnd);
+        }
+
+        /**
+         * Position just before {@code runStart}: the last balance row before it, if there is one.
+         */
+        private void startBaseline(long runStart) {
+            net = BigInteger.ZERO;
+            posted = BigInteger.ZERO;
+            if (runStart <= 1) {
+                return;
+            }
+            var before = client.getAccountBalances(filter(accountId, 1, 0, runStart - 1, true));
+            if (before.next()) {
+                net = before.getCreditsPosted().subtract(before.getDebitsPosted());
+                posted = before.getCreditsPosted().add(before.getDebitsPosted());
+            }
+        }
+
+        private void fold(AccountBalanceBatch page) {
+            while (page.next()) {
+                long start = Math.floorDiv(page.getTimestamp(), interval) * interval;
+                if (changes > 0 && start != bucketStart) {
+                    emit();
+                }
+                if (changes == 0) {
+                    markEmpty(start);
+                    bucketStart = start;
+                    open = net;
+                    min = net;
+                    max = net;
+                    volume = BigInteger.ZERO;
+                }
+                var creditsPosted = page.getCreditsPosted();
+                var debitsPosted = page.getDebitsPosted();
+                var total = creditsPosted.add(debitsPosted);
+                net = creditsPosted.subtract(debitsPosted);
+                volume = volume.add(total.subtract(posted));
+                posted = total;
+                min = min.min(net);
+                max = max.max(net);
+                changes++;
+            }
+        }
+
+        private void emit() {
+            var bucket = BalanceBucket.builder()
+                    .start(bucketStart / 1_000_000L)
+                    .open(open)
+                    .close(net)
+                    .min(min)
+                    .max(max)
+                    .volume(volume)
+                    .changes(changes)
+                    .build();
+            result.add(bucket);
+            if (isFinal(bucketStart)) {
+                cache(new BucketKey(accountId, interval, bucketStart), bucket);
+            }
+            cursor = bucketStart + interval;
+            changes = 0;
+        }
+
+        private void markEmpty(long until) {
+            for (; cursor < until; cursor += interval) {
+                if (isFinal(cursor)) {
+                    cache(new BucketKey(accountId, interval, cursor), EMPTY);
+                }
+            }
+        }
+    }
+}
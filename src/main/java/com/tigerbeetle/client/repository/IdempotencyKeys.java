@@ -0,0 +1,108 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.UInt128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Turns a client-supplied idempotency key into the ids of the objects a request creates, so that a
+ * retry writes the same ids and the cluster answers {@code Exists} instead of creating duplicates.
+ * Keys that completed recently are kept in a bounded LRU together with a SHA-256 fingerprint of
+ * their request; a retry of the same request is then answered from memory without a round trip.
+ */
+@Component
+public class IdempotencyKeys {
+
+    private final Map<String, Completed> completed;
+
+    public IdempotencyKeys(@Value("${tigerbeetle.idempotency.max-entries:10000}") int maxEntries) {
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Id of the {@code index}-th object created under {@code key} in {@code scope}: the first 16 bytes
+     * of SHA-256 over all three. Without a key this is a fresh time-based id.
+     */
+    public byte[] id(String scope, String key, int index) {
+        if (key == null) {
+            return UInt128.id();
+        }
+        return digest(scope, key, index);
+    }
+
+    static byte[] digest(String scope, String key, int index) {
+        var digest = sha256();
+        digest.update(scope.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(index).getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(digest.digest(), 16);
+    }
+
+    /**
+     * Ids created by an earlier request under the same key, or {@code null} when the key is unknown
+     * here or was used for a different request (which then goes to the cluster and fails there).
+     */
+    public List<UUID> replay(String scope, String key, Object request) {
+        if (key == null) {
+            return null;
+        }
+        Completed entry;
+        synchronized (completed) {
+            entry = completed.get(scope + '\0' + key);
+        }
+        return entry != null && Arrays.equals(entry.fingerprint(), fingerprint(request)) ? entry.ids() : null;
+    }
+
+    public void remember(String scope, String key, Object request, List<UUID> ids) {
+        if (key == null) {
+            return;
+        }
+        var entry = new Completed(fingerprint(request), List.copyOf(ids));
+        synchronized (completed) {
+            completed.put(scope + '\0' + key, entry);
+        }
+    }
+
+    /**
+     * SHA-256 over the request's string form, element by element for lists. Requests are records,
+     * whose string form holds every field.
+     */
+    static byte[] fingerprint(Object request) {
+        var digest = sha256();
+        if (request instanceof List<?> elements) {
+            for (Object element : elements) {
+                digest.update(String.valueOf(element).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        } else {
+            digest.update(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Completed(byte[] fingerprint, List<UUID> ids) {}
+}
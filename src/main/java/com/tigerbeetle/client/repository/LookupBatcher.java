@@ -0,0 +1,246 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.Batch;
+import com.tigerbeetle.IdBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.Account;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import com.tigerbeetle.client.dto.Transfer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Account and transfer lookups from concurrent callers, merged per id and gathered into shared
+ * {@link IdBatch}es. A caller asking for an id that is already queued joins that lookup; it also joins
+ * one already sent if the request left recently enough for the caller, so a read never returns a
+ * state older than the caller allows. Batches are flushed like those of {@link TransferBatcher}, and
+ * like there a lookup that would queue past {@code max-queued} ids fails at once with
+ * {@link ClusterOverloadedException}; joining a queued or sent lookup is always allowed.
+ */
+@Component
+public class LookupBatcher implements AutoCloseable {
+
+    private static final long ANY = Long.MIN_VALUE;
+
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final int maxQueued;
+    private final Lane<AccountBatch, Account> accounts;
+    private final Lane<TransferBatch, Transfer> transfers;
+    private volatile boolean running = true;
+
+    public LookupBatcher(@Qualifier("internalClusterOperations") ClusterOperations client,
+                         @Value("${tigerbeetle.lookup.max-batch-size:8190}") int maxBatchSize,
+                         @Value("${tigerbeetle.lookup.linger-micros:100}") long lingerMicros,
+                         @Value("${tigerbeetle.lookup.max-in-flight:4}") int maxInFlight,
+                         @Value("${tigerbeetle.lookup.max-queued:65520}") int maxQueued) {
+        if (maxBatchSize < 1 || maxBatchSize > TransferBatcher.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("max-batch-size must be between 1 and " + TransferBatcher.MAX_BATCH_SIZE);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.maxQueued = maxQueued;
+        this.accounts = new Lane<>("tb-account-lookups", maxInFlight, client::lookupAccountsAsync,
+                AccountBatch::getId, AccountRepository::mapFromCurrentAccountBatch);
+        this.transfers = new Lane<>("tb-transfer-lookups", maxInFlight, client::lookupTransfersAsync,
+                TransferBatch::getId, AccountRepository::mapFromCurrentTransferBatch);
+    }
+
+    /**
+     * Accounts as of at most {@code maxStaleness} ago; ids that do not exist map to {@code null}.
+     */
+    public CompletableFuture<Map<UUID, Account>> accounts(Collection<UUID> ids, Duration maxStaleness) {
+        long notBefore = System.nanoTime() - maxStaleness.toNanos();
+        var lookups = new HashMap<UUID, CompletableFuture<Account>>();
+        for (UUID id : ids) {
+            lookups.computeIfAbsent(id, key -> accounts.get(key, notBefore));
+        }
+        return collect(lookups);
+    }
+
+    /**
+     * Transfers never change once created, so any lookup of an id may be joined. Only a miss from a
+     * lookup sent before this call is asked again, as the transfer may have been created since.
+     */
+    public CompletableFuture<Map<UUID, Transfer>> transfers(Collection<UUID> ids) {
+        long startedAt = System.nanoTime();
+        var lookups = new HashMap<UUID, CompletableFuture<Transfer>>();
+        for (UUID id : ids) {
+            lookups.computeIfAbsent(id, key -> transfers.get(key, ANY)
+                    .thenCompose(found -> found != null ? CompletableFuture.completedFuture(found) : transfers.get(key, startedAt)));
+        }
+        return collect(lookups);
+    }
+
+    public int getQueued() {
+        return accounts.queue.size() + transfers.queue.size();
+    }
+
+    private static <R> CompletableFuture<Map<UUID, R>> collect(Map<UUID, CompletableFuture<R>> lookups) {
+        return CompletableFuture.allOf(lookups.values().toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            var result = new HashMap<UUID, R>();
+            lookups.forEach((id, lookup) -> result.put(id, lookup.join()));
+            return result;
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        accounts.close();
+        transfers.close();
+    }
+
+    /**
+     * One id's lookup. {@code sentAt} is set just before its batch goes out, so every answer reflects
+     * the cluster at that time or later.
+     */
+    private static final class Flight<R> {
+        final UUID id;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        volatile boolean sent;
+        volatile long sentAt;
+
+        Flight(UUID id) {
+            this.id = id;
+        }
+
+        boolean joinable(long notBefore) {
+            return !sent || notBefore == ANY || sentAt - notBefore >= 0;
+        }
+    }
+
+    private final class Lane<B extends Batch, R> {
+        final Function<IdBatch, CompletableFuture<B>> lookup;
+        final Function<B, byte[]> idOf;
+        final Function<B, R> map;
+        final Map<UUID, Flight<R>> flights = new ConcurrentHashMap<>();
+        final BlockingQueue<Flight<R>> queue = new LinkedBlockingQueue<>(maxQueued);
+        final Semaphore inFlight;
+        final Thread flusher;
+
+        Lane(String name, int maxInFlight, Function<IdBatch, CompletableFuture<B>> lookup,
+             Function<B, byte[]> idOf, Function<B, R> map) {
+            this.lookup = lookup;
+            this.idOf = idOf;
+            this.map = map;
+            this.inFlight = new Semaphore(maxInFlight);
+            this.flusher = Thread.ofPlatform().daemon().name(name).start(this::run);
+        }
+
+        CompletableFuture<R> get(UUID id, long notBefore) {
+            if (!running) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Lookup batcher is closed"));
+            }
+            while (true) {
+                var flight = flights.get(id);
+                if (flight != null && flight.joinable(notBefore)) {
+                    return flight.result;
+                }
+                var fresh = new Flight<R>(id);
+                if (flight == null ? flights.putIfAbsent(id, fresh) == null : flights.replace(id, flight, fresh)) {
+                    if (!queue.offer(fresh)) {
+                        fail(fresh, new ClusterOverloadedException(
+                                maxQueued + " ids are already waiting for a lookup, " + id + " was not queued"));
+                    }
+                    return fresh.result;
+                }
+            }
+        }
+
+        private void run() {
+            var pending = new ArrayList<Flight<R>>(maxBatchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    pending.add(first);
+                    long deadline = System.nanoTime() + lingerNanos;
+                    while (pending.size() < maxBatchSize) {
+                        if (queue.drainTo(pending, maxBatchSize - pending.size()) > 0) {
+                            continue;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        pending.add(next);
+                    }
+                    inFlight.acquire();
+                    flush(pending);
+                    pending = new ArrayList<>(maxBatchSize);
+                } catch (InterruptedException e) {
+                    pending.forEach(flight -> fail(flight, e));
+                    pending.clear();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void flush(List<Flight<R>> pending) {
+            var ids = new IdBatch(pending.size());
+            long sentAt = System.nanoTime();
+            for (var flight : pending) {
+                ids.add(UInt128.asBytes(flight.id));
+                flight.sentAt = sentAt;
+                flight.sent = true;
+            }
+
+            CompletableFuture<B> response;
+            try {
+                response = lookup.apply(ids);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                pending.forEach(flight -> fail(flight, e));
+                return;
+            }
+
+            response.whenComplete((batch, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    pending.forEach(flight -> fail(flight, error));
+                    return;
+                }
+                var found = new HashMap<UUID, R>();
+                while (batch.next()) {
+                    found.put(UInt128.asUUID(idOf.apply(batch)), map.apply(batch));
+                }
+                for (var flight : pending) {
+                    flights.remove(flight.id, flight);
+                    flight.result.complete(found.get(flight.id));
+                }
+            });
+        }
+
+        private void fail(Flight<R> flight, Throwable error) {
+            flights.remove(flight.id, flight);
+            flight.result.completeExceptionally(error);
+        }
+
+        void close() throws InterruptedException {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+            Flight<R> left;
+            while ((left = queue.poll()) != null) {
+                fail(left, new IllegalStateException("Lookup batcher is closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.Batch;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Walks a query past the per-request result limit by moving a timestamp cursor: each page starts
+ * just after (or, reversed, just before) the last timestamp of the previous one. The next page is
+ * requested before the current one is handed to the consumer, so at most two pages are held at once.
+ */
+final class TimestampPager {
+
+    interface PageRequest<B> {
+        CompletableFuture<B> fetch(int limit, long timestampMin, long timestampMax);
+    }
+
+    interface PageFilter<B> {
+        B apply(B page, int max);
+    }
+
+    private TimestampPager() {
+    }
+
+    static <B extends Batch> void forEachPage(int pageSize, int limit, boolean reversed, long timestampMin, long timestampMax,
+                                              PageRequest<B> request, ToLongFunction<B> timestampOf, Consumer<B> page) {
+        forEachPage(pageSize, limit, reversed, timestampMin, timestampMax, request, timestampOf, null, page);
+    }
+
+    /**
+     * With a {@code filter}, {@code limit} counts the rows that pass it: pages are always requested at
+     * full size and the consumer only sees the rows the filter keeps.
+     */
+    static <B extends Batch> void forEachPage(int pageSize, int limit, boolean reversed, long timestampMin, long timestampMax,
+                                              PageRequest<B> request, ToLongFunction<B> timestampOf, PageFilter<B> filter,
+                                              Consumer<B> page) {
+        int remaining = limit > 0 ? limit : Integer.MAX_VALUE;
+        int pageLimit = filter == null ? Math.min(remaining, pageSize) : pageSize;
+        CompletableFuture<B> next = request.fetch(pageLimit, timestampMin, timestampMax);
+        while (next != null) {
+            B batch = AccountRepository.await(next);
+            int length = batch.getLength();
+            B kept = filter == null ? batch : filter.apply(batch, remaining);
+            remaining -= kept.getLength();
+            next = null;
+            if (length == pageLimit && remaining > 0) {
+                long last = 0;
+                while (batch.next()) {
+                    last = timestampOf.applyAsLong(batch);
+                }
+                batch.beforeFirst();
+                if (reversed) {
+                    timestampMax = last - 1;
+                } else {
+                    timestampMin = last + 1;
+                }
+                pageLimit = filter == null ? Math.min(remaining, pageSize) : pageSize;
+                next = request.fetch(pageLimit, timestampMin, timestampMax);
+            }
+            if (kept.getLength() > 0) {
+                page.accept(kept);
+            }
+        }
+    }
+}
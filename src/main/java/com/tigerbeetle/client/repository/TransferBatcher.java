@@ -0,0 +1,202 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.*;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import lombok.Builder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Coalesces single transfers submitted by concurrent callers into shared {@link TransferBatch}es.
+ * A batch is flushed once it reaches {@code max-batch-size} events or once the first queued
+ * transfer has waited {@code linger-micros}; each caller gets back the result for its own index.
+ * Transfers submitted here are never linked to each other. At most {@code max-queued} transfers wait
+ * for a batch; a transfer submitted past that fails at once with {@link ClusterOverloadedException},
+ * while batches already formed are always sent.
+ */
+@Component
+public class TransferBatcher implements AutoCloseable {
+
+    public static final int MAX_BATCH_SIZE = 8190;
+
+    private final ClusterOperations client;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final BlockingQueue<Submission> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public TransferBatcher(@Qualifier("internalClusterOperations") ClusterOperations client,
+                           @Value("${tigerbeetle.batching.max-batch-size:8190}") int maxBatchSize,
+                           @Value("${tigerbeetle.batching.linger-micros:500}") long lingerMicros,
+                           @Value("${tigerbeetle.batching.max-in-flight:4}") int maxInFlight,
+                           @Value("${tigerbeetle.batching.max-queued:65520}") int maxQueued) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("max-batch-size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.flusher = Thread.ofPlatform().daemon().name("tb-transfer-batcher").start(this::run);
+    }
+
+    public CompletableFuture<CreateTransferResult> submit(Event event) {
+        var submission = new Submission(event, new CompletableFuture<>());
+        if (!running) {
+            submission.result().completeExceptionally(new IllegalStateException("Transfer batcher is closed"));
+            return submission.result();
+        }
+        if (!queue.offer(submission)) {
+            submission.result().completeExceptionally(new ClusterOverloadedException(
+                    maxQueued + " transfers are already waiting for a batch, the transfer was not queued"));
+        }
+        return submission.result();
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public int getBatchesInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    private void run() {
+        var pending = new ArrayList<Submission>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (pending.size() < maxBatchSize) {
+                    if (queue.drainTo(pending, maxBatchSize - pending.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    pending.add(next);
+                }
+                inFlight.acquire();
+                flush(pending);
+                pending = new ArrayList<>(maxBatchSize);
+            } catch (InterruptedException e) {
+                pending.forEach(s -> s.result().completeExceptionally(e));
+                pending.clear();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Submission> submissions) {
+        var batch = new TransferBatch(submissions.size());
+        for (Submission submission : submissions) {
+            batch.add();
+            submission.event().writeTo(batch);
+        }
+
+        CompletableFuture<CreateTransferResultBatch> response;
+        try {
+            response = client.createTransfersAsync(batch);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            submissions.forEach(s -> s.result().completeExceptionally(e));
+            return;
+        }
+
+        response.whenComplete((results, error) -> {
+            inFlight.release();
+            if (error != null) {
+                submissions.forEach(s -> s.result().completeExceptionally(error));
+                return;
+            }
+            var outcome = new CreateTransferResult[submissions.size()];
+            while (results.next()) {
+                outcome[results.getIndex()] = results.getResult();
+            }
+            for (int i = 0; i < outcome.length; i++) {
+                submissions.get(i).result().complete(outcome[i] == null ? CreateTransferResult.Ok : outcome[i]);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        Submission left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("Transfer batcher is closed"));
+        }
+    }
+
+    private record Submission(Event event, CompletableFuture<CreateTransferResult> result) {}
+
+    @Builder
+    public record Event(
+            byte[] id,
+            byte[] debitAccountId,
+            byte[] creditAccountId,
+            BigInteger amount,
+            byte[] pendingId,
+            byte[] userData128,
+            long userData64,
+            int userData32,
+            int timeout,
+            int ledger,
+            int code,
+            int flags) {
+
+        public Event {
+            Objects.requireNonNull(id, "id");
+            Objects.requireNonNull(amount, "amount");
+            if ((flags & TransferFlags.LINKED) != 0) {
+                throw new IllegalArgumentException("Linked transfers cannot be batched independently");
+            }
+        }
+
+        void writeTo(TransferBatch batch) {
+            batch.setId(id);
+            if (debitAccountId != null) {
+                batch.setDebitAccountId(debitAccountId);
+            }
+            if (creditAccountId != null) {
+                batch.setCreditAccountId(creditAccountId);
+            }
+            batch.setAmount(amount);
+            if (pendingId != null) {
+                batch.setPendingId(pendingId);
+            }
+            if (userData128 != null) {
+                batch.setUserData128(userData128);
+            }
+            batch.setUserData64(userData64);
+            batch.setUserData32(userData32);
+            batch.setTimeout(timeout);
+            batch.setLedger(ledger);
+            batch.setCode(code);
+            batch.setFlags(flags);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.tigerbeetle.client.repository;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.client.dto.ImportException;
+import com.tigerbeetle.client.dto.ImportFormat;
+import com.tigerbeetle.client.dto.Transfer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads transfers one row at a time. CSV files start with a header naming {@link Transfer} fields in
+ * any order; blank cells are left unset. NDJSON files hold one {@link Transfer} object per line.
+ */
+final class TransferFileReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final MappingIterator<Transfer> json;
+    private final Map<String, Integer> columns;
+    private long row;
+
+    private TransferFileReader(BufferedReader reader, MappingIterator<Transfer> json, Map<String, Integer> columns) {
+        this.reader = reader;
+        this.json = json;
+        this.columns = columns;
+    }
+
+    static TransferFileReader open(Path file, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            if (format == ImportFormat.NDJSON) {
+                return new TransferFileReader(reader, objectMapper.readerFor(Transfer.class).readValues(reader), null);
+            }
+            var header = reader.readLine();
+            if (header == null) {
+                throw new ImportException(file.getFileName() + " has no header row");
+            }
+            var columns = new HashMap<String, Integer>();
+            var names = header.split(",", -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim(), i);
+            }
+            return new TransferFileReader(reader, null, columns);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of the row returned by the last {@link #next()}, starting at 1.
+     */
+    long row() {
+        return row;
+    }
+
+    /**
+     * The next row, or {@code null} at the end of the file.
+     */
+    Transfer next() throws IOException {
+        if (json != null) {
+            if (!json.hasNextValue()) {
+                return null;
+            }
+            row++;
+            return json.nextValue();
+        }
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        row++;
+        var cells = line.split(",", -1);
+        try {
+            return Transfer.builder()
+                    .id(uuid(cells, "id"))
+                    .debitAccountId(uuid(cells, "debitAccountId"))
+                    .creditAccountId(uuid(cells, "creditAccountId"))
+                    .amount(cell(cells, "amount") == null ? null : new BigInteger(cell(cells, "amount")))
+                    .pendingId(uuid(cells, "pendingId"))
+                    .userData128(uuid(cells, "userData128"))
+                    .userData64(cell(cells, "userData64") == null ? 0 : Long.parseLong(cell(cells, "userData64")))
+                    .userData32(integer(cells, "userData32"))
+                    .ledger(integer(cells, "ledger"))
+                    .code(integer(cells, "code"))
+                    .flags(integer(cells, "flags"))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new ImportException("Row " + row + " is malformed: " + e.getMessage(), e);
+        }
+    }
+
+    private String cell(String[] cells, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= cells.length || cells[index].isBlank()) {
+            return null;
+        }
+        return cells[index].trim();
+    }
+
+    private UUID uuid(String[] cells, String column) {
+        var value = cell(cells, column);
+        return value == null ? null : UUID.fromString(value);
+    }
+
+    private int integer(String[] cells, String column) {
+        var value = cell(cells, column);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.close();
+        }
+        reader.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.BatchFilter;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The predicates of a {@link BatchFilter} that a query cannot carry, tested against transfer pages as
+ * they arrive. Rows are read in place from the result batch; a page that passes entirely is handed
+ * on unchanged, otherwise the matching rows are copied into a batch of their own.
+ */
+final class TransferFilter {
+
+    private static final BigInteger U128_MAX = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+    private final long amountMinLow;
+    private final long amountMinHigh;
+    private final long amountMaxLow;
+    private final long amountMaxHigh;
+    private final int flagsSet;
+    private final int flagsUnset;
+    private final Set<UUID> debitAccountIds;
+    private final Set<UUID> creditAccountIds;
+
+    private TransferFilter(BigInteger amountMin, BigInteger amountMax, int flagsSet, int flagsUnset,
+                           Set<UUID> debitAccountIds, Set<UUID> creditAccountIds) {
+        this.amountMinLow = amountMin.longValue();
+        this.amountMinHigh = amountMin.shiftRight(64).longValue();
+        this.amountMaxLow = amountMax.longValue();
+        this.amountMaxHigh = amountMax.shiftRight(64).longValue();
+        this.flagsSet = flagsSet;
+        this.flagsUnset = flagsUnset;
+        this.debitAccountIds = debitAccountIds;
+        this.creditAccountIds = creditAccountIds;
+    }
+
+    /**
+     * The secondary filter of {@code filter}, or {@code null} when it only uses fields the cluster evaluates.
+     */
+    static TransferFilter of(BatchFilter filter) {
+        boolean accounts = (filter.debitAccountIds() != null && !filter.debitAccountIds().isEmpty())
+                || (filter.creditAccountIds() != null && !filter.creditAccountIds().isEmpty());
+        if (filter.amountMin() == null && filter.amountMax() == null && filter.flagsSet() == 0
+                && filter.flagsUnset() == 0 && !accounts) {
+            return null;
+        }
+        return new TransferFilter(
+                filter.amountMin() != null ? filter.amountMin() : BigInteger.ZERO,
+                filter.amountMax() != null ? filter.amountMax() : U128_MAX,
+                filter.flagsSet(),
+                filter.flagsUnset(),
+                filter.debitAccountIds() == null || filter.debitAccountIds().isEmpty() ? null : Set.copyOf(filter.debitAccountIds()),
+                filter.creditAccountIds() == null || filter.creditAccountIds().isEmpty() ? null : Set.copyOf(filter.creditAccountIds()));
+    }
+
+    /**
+     * Whether the current row of {@code batch} matches.
+     */
+    boolean test(TransferBatch batch) {
+        int flags = batch.getFlags();
+        if ((flags & flagsSet) != flagsSet || (flags & flagsUnset) != 0) {
+            return false;
+        }
+        long amountLow = batch.getAmount(UInt128.LeastSignificant);
+        long amountHigh = batch.getAmount(UInt128.MostSignificant);
+        if (compareUnsigned(amountLow, amountHigh, amountMinLow, amountMinHigh) < 0
+                || compareUnsigned(amountLow, amountHigh, amountMaxLow, amountMaxHigh) > 0) {
+            return false;
+        }
+        if (debitAccountIds != null && !debitAccountIds.contains(new UUID(
+                batch.getDebitAccountId(UInt128.MostSignificant), batch.getDebitAccountId(UInt128.LeastSignificant)))) {
+            return false;
+        }
+        return creditAccountIds == null || creditAccountIds.contains(new UUID(
+                batch.getCreditAccountId(UInt128.MostSignificant), batch.getCreditAccountId(UInt128.LeastSignificant)));
+    }
+
+    /**
+     * The first {@code max} matching rows of {@code page}.
+     */
+    TransferBatch apply(TransferBatch page, int max) {
+        int matches = 0;
+        while (matches < max && page.next()) {
+            if (test(page)) {
+                matches++;
+            }
+        }
+        page.beforeFirst();
+        if (matches == page.getLength()) {
+            return page;
+        }
+
+        var kept = new TransferBatch(Math.max(matches, 1));
+        while (kept.getLength() < matches && page.next()) {
+            if (test(page)) {
+                kept.add();
+                copyRow(page, kept);
+            }
+        }
+        page.beforeFirst();
+        kept.beforeFirst();
+        return kept;
+    }
+
+    static void copyRow(TransferBatch from, TransferBatch to) {
+        to.setId(from.getId(UInt128.LeastSignificant), from.getId(UInt128.MostSignificant));
+        to.setDebitAccountId(from.getDebitAccountId(UInt128.LeastSignificant), from.getDebitAccountId(UInt128.MostSignificant));
+        to.setCreditAccountId(from.getCreditAccountId(UInt128.LeastSignificant), from.getCreditAccountId(UInt128.MostSignificant));
+        to.setAmount(from.getAmount(UInt128.LeastSignificant), from.getAmount(UInt128.MostSignificant));
+        to.setPendingId(from.getPendingId(UInt128.LeastSignificant), from.getPendingId(UInt128.MostSignificant));
+        to.setUserData128(from.getUserData128(UInt128.LeastSignificant), from.getUserData128(UInt128.MostSignificant));
+        to.setUserData64(from.getUserData64());
+        to.setUserData32(from.getUserData32());
+        to.setTimeout(from.getTimeout());
+        to.setLedger(from.getLedger());
+        to.setCode(from.getCode());
+        to.setFlags(from.getFlags());
+        to.setTimestamp(from.getTimestamp());
+    }
+
+    private static int compareUnsigned(long low, long high, long otherLow, long otherHigh) {
+        int result = Long.compareUnsigned(high, otherHigh);
+        return result != 0 ? result : Long.compareUnsigned(low, otherLow);
+    }
+}
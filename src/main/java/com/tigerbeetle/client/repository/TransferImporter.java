@@ -0,0 +1,400 @@
+package com.tigerbeetle.client.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.CreateTransferResultBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.ImportException;
+import com.tigerbeetle.client.dto.ImportFormat;
+import com.tigerbeetle.client.dto.ImportRequest;
+import com.tigerbeetle.client.dto.ImportStatus;
+import com.tigerbeetle.client.dto.Transfer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports transfer files from the configured directory in the background. Rows are cut into batches
+ * of up to {@code batch-size} unlinked events (a row's own LINKED flag is kept, and a chain is never
+ * split across batches) with up to {@code max-in-flight} batches outstanding.
+ * <p>
+ * Rows without an id get one derived from the import id and the row number, so re-running an import
+ * resubmits the same ids and rows that already made it report {@code Exists}, which counts as done.
+ * Next to the file, {@code .checkpoint} records how many leading rows are settled and
+ * {@code .failures.ndjson} lists the rows among them the cluster rejected; a restarted import skips
+ * the settled rows.
+ */
+@Service
+public class TransferImporter {
+
+    private final ClusterOperations client;
+    private final AccountCache accountCache;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long retentionNanos;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public TransferImporter(@Qualifier("internalClusterOperations") ClusterOperations client,
+                            AccountCache accountCache, ObjectMapper objectMapper,
+                            @Value("${tigerbeetle.import.directory:imports}") String directory,
+                            @Value("${tigerbeetle.import.batch-size:8190}") int batchSize,
+                            @Value("${tigerbeetle.import.max-in-flight:4}") int maxInFlight,
+                            @Value("${tigerbeetle.import.retention-ms:3600000}") long retentionMs) {
+        if (batchSize < 1 || batchSize > TransferBatcher.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("import batch-size must be between 1 and " + TransferBatcher.MAX_BATCH_SIZE);
+        }
+        this.client = client;
+        this.accountCache = accountCache;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(retentionMs);
+    }
+
+    /**
+     * Starts an import, or returns the status of the one already running under the same id. A file
+     * is imported by one job at a time, whatever its import id, since jobs share its checkpoint and
+     * failures files.
+     */
+    public synchronized ImportStatus start(ImportRequest request) {
+        evictFinished();
+        var file = resolve(request.file());
+        var format = request.format() != null ? request.format() : formatOf(file);
+        String importId;
+        try {
+            importId = request.importId() != null
+                    ? request.importId()
+                    : file.getFileName() + "-" + Files.size(file) + "-" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new ImportException("Cannot read " + request.file(), e);
+        }
+        var sameId = jobs.get(importId);
+        if (sameId != null && sameId.state == ImportStatus.State.RUNNING) {
+            return sameId.status();
+        }
+        for (var other : jobs.values()) {
+            if (other.state == ImportStatus.State.RUNNING && other.file.equals(file)) {
+                throw new ImportException(request.file() + " is already being imported as " + other.importId);
+            }
+        }
+        var job = new Job(importId, file, format);
+        jobs.put(importId, job);
+        Thread.ofVirtual().name("transfer-import-" + importId).start(job::run);
+        return job.status();
+    }
+
+    public Optional<ImportStatus> status(String importId) {
+        evictFinished();
+        return Optional.ofNullable(jobs.get(importId)).map(Job::status);
+    }
+
+    /**
+     * Forgets jobs that finished more than {@code retention-ms} ago.
+     */
+    private void evictFinished() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> job.state != ImportStatus.State.RUNNING && now - job.finishedAt > retentionNanos);
+    }
+
+    private Path resolve(String file) {
+        if (file == null || file.isBlank()) {
+            throw new ImportException("No file given");
+        }
+        var path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new ImportException(file + " is outside the import directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new ImportException(file + " does not exist");
+        }
+        return path;
+    }
+
+    private static ImportFormat formatOf(Path file) {
+        var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ImportFormat.NDJSON;
+        }
+        throw new ImportException("Cannot tell the format of " + file.getFileName() + ", pass it explicitly");
+    }
+
+    /**
+     * Upper half of every generated id in an import: the first eight bytes of SHA-256 of the import id.
+     * The lower half is the row number, so an import's ids are sequential.
+     */
+    static long idPrefix(String importId) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(importId.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Row(long number, Transfer transfer) {}
+
+    record FailedRow(long row, UUID id, CreateTransferResult result) {}
+
+    record Settled(long lastRow, List<FailedRow> failures) {}
+
+    private final class Job {
+        private final String importId;
+        private final Path file;
+        private final ImportFormat format;
+        private final Path checkpoint;
+        private final Path failures;
+        private final long idPrefix;
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final NavigableMap<Long, Settled> settledOutOfOrder = new TreeMap<>();
+        private BufferedWriter failuresOut;
+        private long nextRow;
+        private volatile ImportStatus.State state = ImportStatus.State.RUNNING;
+        private volatile long rowsRead;
+        private volatile long rowsCommitted;
+        private volatile long rowsFailed;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        Job(String importId, Path file, ImportFormat format) {
+            this.importId = importId;
+            this.file = file;
+            this.format = format;
+            this.checkpoint = file.resolveSibling(file.getFileName() + ".checkpoint");
+            this.failures = file.resolveSibling(file.getFileName() + ".failures.ndjson");
+            this.idPrefix = idPrefix(importId);
+        }
+
+        ImportStatus status() {
+            return ImportStatus.builder()
+                    .importId(importId)
+                    .file(directory.relativize(file).toString())
+                    .state(state)
+                    .rowsRead(rowsRead)
+                    .rowsCommitted(rowsCommitted)
+                    .rowsFailed(rowsFailed)
+                    .error(error)
+                    .build();
+        }
+
+        void run() {
+            try {
+                resumeFromCheckpoint();
+                try (var reader = TransferFileReader.open(file, format, objectMapper);
+                     var out = Files.newBufferedWriter(failures, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    failuresOut = out;
+                    try {
+                        importRows(reader);
+                    } finally {
+                        inFlight.acquireUninterruptibly(maxInFlight);
+                        inFlight.release(maxInFlight);
+                    }
+                }
+            } catch (Exception e) {
+                fail(e);
+            }
+            finishedAt = System.nanoTime();
+            state = error == null ? ImportStatus.State.COMPLETED : ImportStatus.State.FAILED;
+        }
+
+        private void importRows(TransferFileReader reader) throws IOException, InterruptedException {
+            long skip = rowsCommitted;
+            List<Row> pending = new ArrayList<>(batchSize);
+            Transfer transfer;
+            while (error == null && (transfer = reader.next()) != null) {
+                rowsRead = reader.row();
+                if (reader.row() <= skip) {
+                    continue;
+                }
+                pending.add(new Row(reader.row(), transfer));
+                if (pending.size() == batchSize) {
+                    pending = submit(pending, false);
+                }
+            }
+            while (error == null && !pending.isEmpty()) {
+                pending = submit(pending, true);
+            }
+        }
+
+        private void resumeFromCheckpoint() throws IOException {
+            if (Files.exists(checkpoint)) {
+                var properties = new Properties();
+                try (var in = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+                    properties.load(in);
+                }
+                if (!importId.equals(properties.getProperty("importId"))) {
+                    throw new ImportException(checkpoint.getFileName() + " belongs to import " + properties.getProperty("importId"));
+                }
+                rowsCommitted = Long.parseLong(properties.getProperty("rowsCommitted"));
+                rowsFailed = Long.parseLong(properties.getProperty("rowsFailed"));
+            }
+            nextRow = rowsCommitted + 1;
+            if (Files.exists(failures)) {
+                // failures of rows past the checkpoint were written before a crash and will be reported again
+                var kept = failures.resolveSibling(failures.getFileName() + ".tmp");
+                try (var lines = Files.lines(failures, StandardCharsets.UTF_8);
+                     var out = Files.newBufferedWriter(kept, StandardCharsets.UTF_8)) {
+                    for (var line : (Iterable<String>) lines::iterator) {
+                        if (!line.isBlank() && objectMapper.readTree(line).get("row").asLong() <= rowsCommitted) {
+                            out.write(line);
+                            out.newLine();
+                        }
+                    }
+                }
+                Files.move(kept, failures, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        /**
+         * Sends the leading rows of {@code pending} and returns the rows held back for the next batch:
+         * unless this is the last batch, a trailing open chain waits for its remaining rows. A chain
+         * that fills a whole batch cannot be sent in one piece and fails the import.
+         */
+        private List<Row> submit(List<Row> pending, boolean last) throws InterruptedException {
+            int cut = pending.size();
+            if (!last) {
+                while (cut > 0 && (pending.get(cut - 1).transfer().flags() & TransferFlags.LINKED) != 0) {
+                    cut--;
+                }
+                if (cut == 0) {
+                    throw new ImportException("A linked chain starting at row " + pending.get(0).number()
+                            + " is longer than " + batchSize + " transfers");
+                }
+            }
+            var rows = List.copyOf(pending.subList(0, cut));
+            var rest = new ArrayList<Row>(batchSize);
+            rest.addAll(pending.subList(cut, pending.size()));
+
+            var ids = new UUID[rows.size()];
+            var batch = new TransferBatch(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                var row = rows.get(i);
+                ids[i] = row.transfer().id() != null ? row.transfer().id() : new UUID(idPrefix, row.number());
+                batch.add();
+                write(batch, ids[i], row.transfer());
+            }
+
+            inFlight.acquire();
+            CompletableFuture<CreateTransferResultBatch> response;
+            try {
+                response = client.createTransfersAsync(batch);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                fail(e);
+                return List.of();
+            }
+            response.whenComplete((results, failure) -> {
+                try {
+                    accountCache.invalidateAccounts(batch);
+                    if (failure != null) {
+                        fail(failure);
+                    } else {
+                        settle(rows, ids, results);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+            return rest;
+        }
+
+        private void settle(List<Row> rows, UUID[] ids, CreateTransferResultBatch results) {
+            var failed = new ArrayList<FailedRow>();
+            while (results.next()) {
+                var result = results.getResult();
+                if (result != CreateTransferResult.Exists) {
+                    int index = results.getIndex();
+                    failed.add(new FailedRow(rows.get(index).number(), ids[index], result));
+                }
+            }
+            synchronized (this) {
+                settledOutOfOrder.put(rows.get(0).number(), new Settled(rows.get(rows.size() - 1).number(), failed));
+                try {
+                    Settled settled;
+                    boolean advanced = false;
+                    while ((settled = settledOutOfOrder.remove(nextRow)) != null) {
+                        for (FailedRow row : settled.failures()) {
+                            failuresOut.write(objectMapper.writeValueAsString(row));
+                            failuresOut.newLine();
+                        }
+                        rowsFailed += settled.failures().size();
+                        rowsCommitted = settled.lastRow();
+                        nextRow = settled.lastRow() + 1;
+                        advanced = true;
+                    }
+                    if (advanced) {
+                        failuresOut.flush();
+                        writeCheckpoint();
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        private void writeCheckpoint() throws IOException {
+            var properties = new Properties();
+            properties.setProperty("importId", importId);
+            properties.setProperty("rowsCommitted", Long.toString(rowsCommitted));
+            properties.setProperty("rowsFailed", Long.toString(rowsFailed));
+            var temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            try (var out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(out, null);
+            }
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void fail(Throwable failure) {
+            if (error == null) {
+                error = failure.getMessage() != null ? failure.getMessage() : failure.toString();
+            }
+        }
+    }
+
+    private static void write(TransferBatch batch, UUID id, Transfer transfer) {
+        batch.setId(UInt128.asBytes(id));
+        if (transfer.debitAccountId() != null) {
+            batch.setDebitAccountId(UInt128.asBytes(transfer.debitAccountId()));
+        }
+        if (transfer.creditAccountId() != null) {
+            batch.setCreditAccountId(UInt128.asBytes(transfer.creditAccountId()));
+        }
+        batch.setAmount(transfer.amount() != null ? transfer.amount() : BigInteger.ZERO);
+        if (transfer.pendingId() != null) {
+            batch.setPendingId(UInt128.asBytes(transfer.pendingId()));
+        }
+        if (transfer.userData128() != null) {
+            batch.setUserData128(UInt128.asBytes(transfer.userData128()));
+        }
+        batch.setUserData64(transfer.userData64());
+        batch.setUserData32(transfer.userData32());
+        batch.setLedger(transfer.ledger());
+        batch.setCode(transfer.code());
+        batch.setFlags(transfer.flags());
+    }
+}
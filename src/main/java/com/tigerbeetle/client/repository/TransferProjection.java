@@ -0,0 +1,376 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.QueryFilter;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.dto.BatchFilter;
+import com.tigerbeetle.client.dto.Transfer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A local copy of every transfer, kept for reporting queries so they stay off the cluster. A tailer
+ * thread follows {@code queryTransfers} with a timestamp cursor and appends each transfer in the
+ * 128-byte {@link TransferRecords} layout to a memory-mapped file, in timestamp order. Records are
+ * never rewritten, so the watermark is simply the timestamp of the last one: on restart the file is
+ * mapped again, its end found by binary search and the in-memory indexes on user data 128, user data
+ * 64 and code rebuilt from it.
+ */
+@Component
+public class TransferProjection implements AutoCloseable {
+
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * TransferRecords.SIZE;
+
+    private final ClusterOperations client;
+    private final boolean enabled;
+    private final int pageSize;
+    private final long pollMillis;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Postings> byUserData128 = new HashMap<>();
+    private final Map<Long, Postings> byUserData64 = new HashMap<>();
+    private final Map<Integer, Postings> byCode = new HashMap<>();
+    private final Thread tailer;
+    private volatile int count;
+    private volatile long watermark;
+    private volatile boolean running = true;
+
+    public TransferProjection(@Qualifier("internalClusterOperations") ClusterOperations client,
+                              @Value("${tigerbeetle.projection.enabled:false}") boolean enabled,
+                              @Value("${tigerbeetle.projection.directory:projection}") String directory,
+                              @Value("${tigerbeetle.query.page-size:8190}") int pageSize,
+                              @Value("${tigerbeetle.projection.poll-ms:200}") long pollMillis) {
+        this.client = client;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.pollMillis = pollMillis;
+        if (!enabled) {
+            this.channel = null;
+            this.tailer = null;
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(directory));
+            this.channel = FileChannel.open(Path.of(directory, "transfers.dat"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long segmentCount = Math.max(1, (channel.size() + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+            for (long i = 0; i < segmentCount; i++) {
+                map();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recover();
+        this.tailer = Thread.ofPlatform().daemon().name("tb-projection-tailer").start(this::tail);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Timestamp of the newest transfer copied so far.
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public List<Transfer> fetchTransfers(BatchFilter filter) {
+        var result = new ArrayList<Transfer>();
+        forEachPage(filter, page -> {
+            while (page.next()) {
+                result.add(AccountRepository.mapFromCurrentTransferBatch(page));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Answers an extraction query from the local copy, in pages of at most {@code page-size}. The
+     * smallest index matching the filter drives the scan; without one the timestamp range is scanned.
+     * Every other predicate, the secondary ones included, is checked per record.
+     */
+    public void forEachPage(BatchFilter filter, Consumer<TransferBatch> page) {
+        if (!enabled) {
+            throw new IllegalStateException("The transfer projection is not enabled");
+        }
+        var query = new Query(filter);
+        var transferFilter = TransferFilter.of(filter);
+        IntUnaryOperator recordAt = IntUnaryOperator.identity();
+        int size = count;
+        var index = query.smallestIndex();
+        if (index != null) {
+            int[] postings;
+            synchronized (this) {
+                postings = index.values;
+                size = index.size;
+            }
+            recordAt = position -> postings[position];
+        }
+        int from = firstAtOrAfter(recordAt, size, query.timestampMin);
+        int to = query.timestampMax == 0 ? size : firstAtOrAfter(recordAt, size, query.timestampMax + 1);
+
+        int remaining = filter.limit() > 0 ? filter.limit() : Integer.MAX_VALUE;
+        var batch = new TransferBatch(pageSize);
+        for (int i = 0; i < to - from && remaining > 0; i++) {
+            int record = recordAt.applyAsInt(filter.reversed() ? to - 1 - i : from + i);
+            var segment = segments.get(record / SEGMENT_RECORDS);
+            int offset = (record % SEGMENT_RECORDS) * TransferRecords.SIZE;
+            if (!query.test(segment, offset)) {
+                continue;
+            }
+            batch.add();
+            TransferRecords.read(segment, offset, batch);
+            if (batch.getLength() == pageSize || (transferFilter == null && batch.getLength() == remaining)) {
+                remaining -= emit(batch, transferFilter, remaining, page);
+                batch = new TransferBatch(pageSize);
+            }
+        }
+        if (batch.getLength() > 0 && remaining > 0) {
+            emit(batch, transferFilter, remaining, page);
+        }
+    }
+
+    private static int emit(TransferBatch batch, TransferFilter transferFilter, int remaining, Consumer<TransferBatch> page) {
+        batch.beforeFirst();
+        var kept = transferFilter == null ? batch : transferFilter.apply(batch, remaining);
+        if (kept.getLength() > 0) {
+            page.accept(kept);
+        }
+        return kept.getLength();
+    }
+
+    private void tail() {
+        while (running) {
+            try {
+                var filter = new QueryFilter();
+                filter.setTimestampMin(watermark + 1);
+                filter.setLimit(pageSize);
+                var batch = AccountRepository.await(client.queryTransfersAsync(filter));
+                append(batch);
+                if (batch.getLength() < pageSize) {
+                    TimeUnit.MILLISECONDS.sleep(pollMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void append(TransferBatch batch) throws IOException {
+        if (batch.getLength() == 0) {
+            return;
+        }
+        int next = count;
+        var touched = new ArrayList<MappedByteBuffer>(2);
+        while (batch.next()) {
+            while (next / SEGMENT_RECORDS >= segments.size()) {
+                map();
+            }
+            var segment = segments.get(next / SEGMENT_RECORDS);
+            TransferRecords.write(segment, (next % SEGMENT_RECORDS) * TransferRecords.SIZE, batch);
+            if (touched.isEmpty() || touched.get(touched.size() - 1) != segment) {
+                touched.add(segment);
+            }
+            next++;
+        }
+        for (var segment : touched) {
+            segment.force();
+        }
+        index(count, next);
+        batch.beforeFirst();
+    }
+
+    private void map() throws IOException {
+        var segment = channel.map(FileChannel.MapMode.READ_WRITE, segments.size() * SEGMENT_BYTES, SEGMENT_BYTES);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segments.add(segment);
+    }
+
+    /**
+     * Finds the end of the written records (timestamps rise, unwritten space is zero) and indexes them.
+     */
+    private void recover() {
+        int low = 0;
+        int high = segments.size() * SEGMENT_RECORDS;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamp(middle) != 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        index(0, low);
+    }
+
+    private synchronized void index(int from, int to) {
+        for (int record = from; record < to; record++) {
+            var segment = segments.get(record / SEGMENT_RECORDS);
+            int offset = (record % SEGMENT_RECORDS) * TransferRecords.SIZE;
+            long userData128Low = segment.getLong(offset + TransferRecords.USER_DATA_128);
+            long userData128High = segment.getLong(offset + TransferRecords.USER_DATA_128 + 8);
+            if (userData128Low != 0 || userData128High != 0) {
+                byUserData128.computeIfAbsent(new UUID(userData128High, userData128Low), key -> new Postings()).add(record);
+            }
+            long userData64 = segment.getLong(offset + TransferRecords.USER_DATA_64);
+            if (userData64 != 0) {
+                byUserData64.computeIfAbsent(userData64, key -> new Postings()).add(record);
+            }
+            byCode.computeIfAbsent(Short.toUnsignedInt(segment.getShort(offset + TransferRecords.CODE)), key -> new Postings()).add(record);
+        }
+        if (to > from) {
+            watermark = timestamp(to - 1);
+        }
+        count = to;
+    }
+
+    private long timestamp(int record) {
+        return segments.get(record / SEGMENT_RECORDS).getLong((record % SEGMENT_RECORDS) * TransferRecords.SIZE + TransferRecords.TIMESTAMP);
+    }
+
+    /**
+     * First position in {@code [0, size)} whose record has a timestamp of at least {@code timestamp};
+     * {@code recordAt} must map positions to ascending record numbers.
+     */
+    private int firstAtOrAfter(IntUnaryOperator recordAt, int size, long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamp(recordAt.applyAsInt(middle)) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (tailer != null) {
+            tailer.interrupt();
+            try {
+                tailer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Record numbers in ascending order. Appends never touch the slots a reader already sees, so
+     * readers take {@code values} and {@code size} under the projection's lock and scan without it.
+     */
+    private static final class Postings {
+        int[] values = new int[4];
+        int size;
+
+        void add(int record) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = record;
+        }
+    }
+
+    /**
+     * The query fields of a {@link BatchFilter}, tested directly against mapped records.
+     */
+    private final class Query {
+        final UUID userData128;
+        final long userData64;
+        final int userData32;
+        final int code;
+        final int ledger;
+        final long timestampMin;
+        final long timestampMax;
+
+        Query(BatchFilter filter) {
+            this.userData128 = filter.accountNumber();
+            this.userData64 = filter.userData64();
+            this.userData32 = filter.userData32();
+            this.code = filter.code();
+            this.ledger = filter.ledger();
+            this.timestampMin = filter.fromDate() != null ? filter.fromDate().getTime() * 1_000_000 : 0;
+            this.timestampMax = filter.toDate() != null ? filter.toDate().getTime() * 1_000_000 : 0;
+        }
+
+        Postings smallestIndex() {
+            Postings smallest = null;
+            synchronized (TransferProjection.this) {
+                if (userData128 != null) {
+                    smallest = smaller(smallest, byUserData128.getOrDefault(userData128, new Postings()));
+                }
+                if (userData64 != 0) {
+                    smallest = smaller(smallest, byUserData64.getOrDefault(userData64, new Postings()));
+                }
+                if (code != 0) {
+                    smallest = smaller(smallest, byCode.getOrDefault(code, new Postings()));
+                }
+            }
+            return smallest;
+        }
+
+        private static Postings smaller(Postings current, Postings candidate) {
+            return current == null || candidate.size < current.size ? candidate : current;
+        }
+
+        boolean test(MappedByteBuffer segment, int offset) {
+            long timestamp = segment.getLong(offset + TransferRecords.TIMESTAMP);
+            if (timestamp < timestampMin || (timestampMax != 0 && timestamp > timestampMax)) {
+                return false;
+            }
+            if (userData128 != null && (segment.getLong(offset + TransferRecords.USER_DATA_128) != userData128.getLeastSignificantBits()
+                    || segment.getLong(offset + TransferRecords.USER_DATA_128 + 8) != userData128.getMostSignificantBits())) {
+                return false;
+            }
+            if (userData64 != 0 && segment.getLong(offset + TransferRecords.USER_DATA_64) != userData64) {
+                return false;
+            }
+            if (userData32 != 0 && segment.getInt(offset + TransferRecords.USER_DATA_32) != userData32) {
+                return false;
+            }
+            if (code != 0 && Short.toUnsignedInt(segment.getShort(offset + TransferRecords.CODE)) != code) {
+                return false;
+            }
+            return ledger == 0 || segment.getInt(offset + TransferRecords.LEDGER) == ledger;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * TigerBeetle's 128-byte little-endian wire layout of a transfer, copied field by field into a
+ * {@link TransferBatch}. Records with a zero id get a freshly generated one.
+ */
+public final class TransferRecords {
+
+    public static final int SIZE = 128;
+
+    static final int ID = 0;
+    static final int DEBIT_ACCOUNT_ID = 16;
+    static final int CREDIT_ACCOUNT_ID = 32;
+    static final int AMOUNT = 48;
+    static final int PENDING_ID = 64;
+    static final int USER_DATA_128 = 80;
+    static final int USER_DATA_64 = 96;
+    static final int USER_DATA_32 = 104;
+    static final int TIMEOUT = 108;
+    static final int LEDGER = 112;
+    static final int CODE = 116;
+    static final int FLAGS = 118;
+    static final int TIMESTAMP = 120;
+
+    private TransferRecords() {
+    }
+
+    public static int count(ByteBuffer records) {
+        if (records.remaining() % SIZE != 0) {
+            throw new IllegalArgumentException("Body length " + records.remaining() + " is not a multiple of " + SIZE + " bytes");
+        }
+        return records.remaining() / SIZE;
+    }
+
+    public static TransferBatch toBatch(ByteBuffer records) {
+        var buffer = records.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int count = count(buffer);
+        var batch = new TransferBatch(count);
+        for (int offset = 0; offset < count * SIZE; offset += SIZE) {
+            batch.add();
+            read(buffer, offset, batch);
+            if (buffer.getLong(offset + ID) == 0 && buffer.getLong(offset + ID + 8) == 0) {
+                batch.setId(UInt128.id());
+            }
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+
+    /**
+     * Copies the record at {@code offset} of a little-endian buffer into the current row of {@code batch}.
+     */
+    static void read(ByteBuffer buffer, int offset, TransferBatch batch) {
+        batch.setId(buffer.getLong(offset + ID), buffer.getLong(offset + ID + 8));
+        batch.setDebitAccountId(buffer.getLong(offset + DEBIT_ACCOUNT_ID), buffer.getLong(offset + DEBIT_ACCOUNT_ID + 8));
+        batch.setCreditAccountId(buffer.getLong(offset + CREDIT_ACCOUNT_ID), buffer.getLong(offset + CREDIT_ACCOUNT_ID + 8));
+        batch.setAmount(buffer.getLong(offset + AMOUNT), buffer.getLong(offset + AMOUNT + 8));
+        batch.setPendingId(buffer.getLong(offset + PENDING_ID), buffer.getLong(offset + PENDING_ID + 8));
+        batch.setUserData128(buffer.getLong(offset + USER_DATA_128), buffer.getLong(offset + USER_DATA_128 + 8));
+        batch.setUserData64(buffer.getLong(offset + USER_DATA_64));
+        batch.setUserData32(buffer.getInt(offset + USER_DATA_32));
+        batch.setTimeout(buffer.getInt(offset + TIMEOUT));
+        batch.setLedger(buffer.getInt(offset + LEDGER));
+        batch.setCode(Short.toUnsignedInt(buffer.getShort(offset + CODE)));
+        batch.setFlags(Short.toUnsignedInt(buffer.getShort(offset + FLAGS)));
+        batch.setTimestamp(buffer.getLong(offset + TIMESTAMP));
+    }
+
+    /**
+     * Writes the current row of {@code batch} at {@code offset} of a little-endian buffer. The
+     * timestamp goes last, so a record cut short by a crash still reads as unwritten.
+     */
+    static void write(ByteBuffer buffer, int offset, TransferBatch batch) {
+        buffer.putLong(offset + ID, batch.getId(UInt128.LeastSignificant));
+        buffer.putLong(offset + ID + 8, batch.getId(UInt128.MostSignificant));
+        buffer.putLong(offset + DEBIT_ACCOUNT_ID, batch.getDebitAccountId(UInt128.LeastSignificant));
+        buffer.putLong(offset + DEBIT_ACCOUNT_ID + 8, batch.getDebitAccountId(UInt128.MostSignificant));
+        buffer.putLong(offset + CREDIT_ACCOUNT_ID, batch.getCreditAccountId(UInt128.LeastSignificant));
+        buffer.putLong(offset + CREDIT_ACCOUNT_ID + 8, batch.getCreditAccountId(UInt128.MostSignificant));
+        buffer.putLong(offset + AMOUNT, batch.getAmount(UInt128.LeastSignificant));
+        buffer.putLong(offset + AMOUNT + 8, batch.getAmount(UInt128.MostSignificant));
+        buffer.putLong(offset + PENDING_ID, batch.getPendingId(UInt128.LeastSignificant));
+        buffer.putLong(offset + PENDING_ID + 8, batch.getPendingId(UInt128.MostSignificant));
+        buffer.putLong(offset + USER_DATA_128, batch.getUserData128(UInt128.LeastSignificant));
+        buffer.putLong(offset + USER_DATA_128 + 8, batch.getUserData128(UInt128.MostSignificant));
+        buffer.putLong(offset + USER_DATA_64, batch.getUserData64());
+        buffer.putInt(offset + USER_DATA_32, batch.getUserData32());
+        buffer.putInt(offset + TIMEOUT, batch.getTimeout());
+        buffer.putInt(offset + LEDGER, batch.getLedger());
+        buffer.putShort(offset + CODE, (short) batch.getCode());
+        buffer.putShort(offset + FLAGS, (short) batch.getFlags());
+        buffer.putLong(offset + TIMESTAMP, batch.getTimestamp());
+    }
+}
@@ -2,7 +2,12 @@ package com.tigerbeetle.client;
 
 import com.tigerbeetle.client.config.TigerBeetleConfig;
 import com.tigerbeetle.client.dto.Transfer;
+import com.tigerbeetle.client.repository.AccountCache;
 import com.tigerbeetle.client.repository.AccountRepository;
+import com.tigerbeetle.client.repository.AccountStripes;
+import com.tigerbeetle.client.repository.IdempotencyKeys;
+import com.tigerbeetle.client.repository.LookupBatcher;
+import com.tigerbeetle.client.repository.TransferBatcher;
 import com.tigerbeetle.AccountFlags;
 import com.tigerbeetle.CreateTransferResult;
 import org.junit.jupiter.api.Test;
@@ -15,7 +20,8 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(classes = { TigerBeetleConfig.class, AccountRepository.class})
+@SpringBootTest(classes = { TigerBeetleConfig.class, AccountRepository.class, TransferBatcher.class, AccountCache.class, IdempotencyKeys.class, AccountStripes.class,
+        LookupBatcher.class})
 public class TigerBeetleLiveTest {
 
     @Autowired
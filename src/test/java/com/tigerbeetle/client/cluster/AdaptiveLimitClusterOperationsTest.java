@@ -0,0 +1,111 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.IdBatch;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdaptiveLimitClusterOperationsTest {
+
+    private final InMemoryClusterOperations backend = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final AtomicLong clock = new AtomicLong();
+    private final SlowClusterOperations slow = new SlowClusterOperations(backend);
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+    }
+
+    @Test
+    void whenTheLimitIsReached_thenExtraRequestsAreRejectedWithoutQueueing() {
+        var limiter = new AdaptiveLimitClusterOperations(slow, 2, 1, 4, 0.9, 2.0, clock::get);
+        slow.hold = true;
+
+        var first = limiter.lookupAccountsAsync(ids());
+        var second = limiter.lookupAccountsAsync(ids());
+        var third = limiter.lookupAccountsAsync(ids());
+
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        var error = assertThrows(CompletionException.class, third::join);
+        assertInstanceOf(ClusterOverloadedException.class, error.getCause());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        slow.hold = false;
+        slow.held.getFirst().complete(null);
+        assertEquals(1, limiter.getInFlight());
+        assertFalse(limiter.lookupAccountsAsync(ids()).join().next());
+    }
+
+    @Test
+    void whenRoundTripsSlowDown_thenTheLimitBacksOffAndRecovers() {
+        var limiter = new AdaptiveLimitClusterOperations(slow, 2, 1, 4, 0.5, 2.0, clock::get);
+        slow.latency = TimeUnit.MILLISECONDS.toNanos(1);
+        for (int i = 0; i < 10; i++) {
+            limiter.lookupAccounts(ids());
+        }
+        assertEquals(2, limiter.getLimit());
+
+        slow.latency = TimeUnit.MILLISECONDS.toNanos(10);
+        limiter.lookupAccounts(ids());
+        assertEquals(1, limiter.getLimit());
+
+        slow.latency = TimeUnit.MILLISECONDS.toNanos(1);
+        for (int i = 0; i < 10; i++) {
+            limiter.lookupAccounts(ids());
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    private static IdBatch ids() {
+        var ids = new IdBatch(1);
+        ids.add(1);
+        return ids;
+    }
+
+    /**
+     * Advances the test clock by {@code latency} on every call, and holds async answers back while
+     * {@code hold} is set.
+     */
+    private final class SlowClusterOperations extends ForwardingClusterOperations {
+        final List<CompletableFuture<Object>> held = new ArrayList<>();
+        volatile long latency;
+        volatile boolean hold;
+
+        SlowClusterOperations(ClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+            clock.addAndGet(latency);
+            return call.get();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (!hold) {
+                return call.get();
+            }
+            var answer = new CompletableFuture<Object>();
+            held.add(answer);
+            return (CompletableFuture<T>) answer;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.ClientClosedException;
+import com.tigerbeetle.QueryFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientPoolTest {
+
+    private final List<FakeClient> created = new ArrayList<>();
+
+    private final Supplier<ClusterOperations> factory = () -> {
+        var client = new FakeClient();
+        created.add(client);
+        return client;
+    };
+
+    @Test
+    void whenRoundRobin_thenCallsRotateOverMembers() {
+        var pool = new ClientPool(3, PoolPolicy.ROUND_ROBIN, Duration.ofSeconds(1), factory);
+
+        for (int i = 0; i < 6; i++) {
+            pool.queryTransfers(new QueryFilter());
+        }
+
+        assertEquals(List.of(2, 2, 2), created.stream().map(client -> client.calls).toList());
+    }
+
+    @Test
+    void whenMemberReportsClosed_thenReplacedAndSkippedDuringCooldown() {
+        var pool = new ClientPool(2, PoolPolicy.ROUND_ROBIN, Duration.ofMinutes(1), factory);
+        created.get(0).failWith = new ClientClosedException();
+
+        assertThrows(ClientClosedException.class, () -> pool.queryTransfers(new QueryFilter()));
+        assertTrue(created.get(0).closed);
+        assertEquals(3, created.size());
+        assertFalse(pool.isHealthy(0));
+
+        for (int i = 0; i < 4; i++) {
+            pool.queryTransfers(new QueryFilter());
+        }
+        assertEquals(0, created.get(2).calls);
+        assertEquals(4, created.get(1).calls);
+    }
+
+    @Test
+    void whenClosed_thenAllMembersClosed() {
+        var pool = new ClientPool(2, PoolPolicy.LEAST_IN_FLIGHT, Duration.ofSeconds(1), factory);
+
+        pool.close();
+
+        assertTrue(created.stream().allMatch(client -> client.closed));
+        assertThrows(ClientClosedException.class, () -> pool.queryTransfers(new QueryFilter()));
+    }
+
+    private static final class FakeClient extends ForwardingClusterOperations implements AutoCloseable {
+        int calls;
+        boolean closed;
+        RuntimeException failWith;
+
+        FakeClient() {
+            super(null);
+        }
+
+        @Override
+        protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+            calls++;
+            if (failWith != null) {
+                throw failWith;
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
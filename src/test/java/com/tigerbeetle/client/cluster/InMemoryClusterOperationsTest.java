@@ -0,0 +1,165 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryClusterOperationsTest {
+
+    private static final int LEDGER = 1;
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    @Test
+    void whenLinkedChainFails_thenWholeChainIsRolledBack() {
+        createAccounts(AccountFlags.NONE, 1, 2);
+
+        var batch = new TransferBatch(2);
+        addTransfer(batch, 10, 1, 2, 100, TransferFlags.LINKED);
+        addTransfer(batch, 11, 1, 3, 100, TransferFlags.NONE);
+        var results = cluster.createTransfers(batch);
+
+        assertTrue(results.next());
+        assertEquals(0, results.getIndex());
+        assertEquals(CreateTransferResult.LinkedEventFailed, results.getResult());
+        assertTrue(results.next());
+        assertEquals(1, results.getIndex());
+        assertEquals(CreateTransferResult.CreditAccountNotFound, results.getResult());
+        assertEquals(0, cluster.lookupTransfers(ids(10)).getLength());
+        assertEquals(BigInteger.ZERO, account(1).getDebitsPosted());
+    }
+
+    @Test
+    void whenPendingTransferIsPosted_thenPendingMovesToPosted() {
+        createAccounts(AccountFlags.NONE, 1, 2);
+
+        var pending = new TransferBatch(1);
+        addTransfer(pending, 10, 1, 2, 300, TransferFlags.PENDING);
+        assertEquals(0, cluster.createTransfers(pending).getLength());
+        assertEquals(BigInteger.valueOf(300), account(1).getDebitsPending());
+
+        var post = new TransferBatch(1);
+        post.add();
+        post.setId(11);
+        post.setPendingId(10);
+        post.setAmount(-1L, -1L);
+        post.setFlags(TransferFlags.POST_PENDING_TRANSFER);
+        assertEquals(0, cluster.createTransfers(post).getLength());
+
+        var debit = account(1);
+        assertEquals(BigInteger.ZERO, debit.getDebitsPending());
+        assertEquals(BigInteger.valueOf(300), debit.getDebitsPosted());
+
+        var again = new TransferBatch(1);
+        again.add();
+        again.setId(12);
+        again.setPendingId(10);
+        again.setFlags(TransferFlags.VOID_PENDING_TRANSFER);
+        var results = cluster.createTransfers(again);
+        assertTrue(results.next());
+        assertEquals(CreateTransferResult.PendingTransferAlreadyPosted, results.getResult());
+    }
+
+    @Test
+    void whenDebitExceedsCredits_thenRejected() {
+        createAccounts(AccountFlags.DEBITS_MUST_NOT_EXCEED_CREDITS, 1);
+        createAccounts(AccountFlags.NONE, 2);
+
+        var batch = new TransferBatch(1);
+        addTransfer(batch, 10, 1, 2, 1, TransferFlags.NONE);
+        var results = cluster.createTransfers(batch);
+
+        assertTrue(results.next());
+        assertEquals(CreateTransferResult.ExceedsCredits, results.getResult());
+    }
+
+    @Test
+    void whenAccountKeepsHistory_thenBalancesAreListedPerTransfer() {
+        createAccounts(AccountFlags.HISTORY, 1);
+        createAccounts(AccountFlags.NONE, 2);
+
+        var batch = new TransferBatch(2);
+        addTransfer(batch, 10, 1, 2, 100, TransferFlags.NONE);
+        addTransfer(batch, 11, 2, 1, 40, TransferFlags.NONE);
+        assertEquals(0, cluster.createTransfers(batch).getLength());
+
+        var filter = new AccountFilter();
+        filter.setAccountId(1, 0);
+        filter.setDebits(true);
+        filter.setCredits(true);
+        filter.setLimit(10);
+        var balances = cluster.getAccountBalances(filter);
+
+        assertEquals(2, balances.getLength());
+        balances.next();
+        assertEquals(BigInteger.valueOf(100), balances.getDebitsPosted());
+        balances.next();
+        assertEquals(BigInteger.valueOf(40), balances.getCreditsPosted());
+        assertEquals(2, cluster.getAccountTransfers(filter).getLength());
+    }
+
+    @Test
+    void whenPendingTransferTimesOut_thenLookupsNoLongerShowIt() throws InterruptedException {
+        createAccounts(AccountFlags.NONE, 1, 2);
+
+        var pending = new TransferBatch(1);
+        addTransfer(pending, 10, 1, 2, 300, TransferFlags.PENDING);
+        pending.setTimeout(1);
+        assertEquals(0, cluster.createTransfers(pending).getLength());
+        assertEquals(BigInteger.valueOf(300), account(1).getDebitsPending());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (account(1).getDebitsPending().signum() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(BigInteger.ZERO, account(1).getDebitsPending());
+        assertEquals(BigInteger.ZERO, account(2).getCreditsPending());
+    }
+
+    private void createAccounts(int flags, long... ids) {
+        var batch = new AccountBatch(ids.length);
+        for (long id : ids) {
+            batch.add();
+            batch.setId(id);
+            batch.setLedger(LEDGER);
+            batch.setCode(1);
+            batch.setFlags(flags);
+        }
+        assertEquals(0, cluster.createAccounts(batch).getLength());
+    }
+
+    private static void addTransfer(TransferBatch batch, long id, long debit, long credit, long amount, int flags) {
+        batch.add();
+        batch.setId(id);
+        batch.setDebitAccountId(debit);
+        batch.setCreditAccountId(credit);
+        batch.setAmount(amount);
+        batch.setLedger(LEDGER);
+        batch.setCode(1);
+        batch.setFlags(flags);
+    }
+
+    private AccountBatch account(long id) {
+        var accounts = cluster.lookupAccounts(ids(id));
+        assertTrue(accounts.next());
+        return accounts;
+    }
+
+    private static IdBatch ids(long... ids) {
+        var batch = new IdBatch(ids.length);
+        for (long id : ids) {
+            batch.add(id);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tigerbeetle.client.cluster;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MeteredClusterOperationsTest {
+
+    private final InMemoryClusterOperations backend = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MeteredClusterOperations cluster = new MeteredClusterOperations(backend, registry);
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+    }
+
+    @Test
+    void whenTransfersAreCreated_thenResultCodesAndEventsAreCounted() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        cluster.createAccounts(accounts);
+
+        var transfers = new TransferBatch(2);
+        transfers.add();
+        transfers.setId(10);
+        transfers.setDebitAccountId(1);
+        transfers.setCreditAccountId(2);
+        transfers.setAmount(5);
+        transfers.setLedger(1);
+        transfers.setCode(1);
+        transfers.add();
+        transfers.setId(11);
+        transfers.setDebitAccountId(1);
+        transfers.setCreditAccountId(3);
+        transfers.setAmount(5);
+        transfers.setLedger(1);
+        transfers.setCode(1);
+        var results = cluster.createTransfers(transfers);
+
+        assertEquals(1, results.getLength());
+        assertEquals(1.0, registry.get("tigerbeetle.client.results")
+                .tags("operation", "create_transfers", "result", "Ok").counter().count());
+        assertEquals(1.0, registry.get("tigerbeetle.client.results")
+                .tags("operation", "create_transfers", "result", "CreditAccountNotFound").counter().count());
+        assertEquals(2.0, registry.get("tigerbeetle.client.results")
+                .tags("operation", "create_accounts", "result", "Ok").counter().count());
+        assertEquals(2.0, registry.get("tigerbeetle.client.request.events")
+                .tags("operation", "create_transfers").summary().totalAmount());
+        assertEquals(1, registry.get("tigerbeetle.client.requests")
+                .tags("operation", "create_transfers", "outcome", "success").timer().count());
+    }
+}
@@ -0,0 +1,70 @@
+package com.tigerbeetle.client.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BatchJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BatchJsonWriter writer = new BatchJsonWriter();
+
+    @Test
+    void whenWritingTransfer_thenMatchesRecordSerialization() throws Exception {
+        var batch = new TransferBatch(1);
+        batch.add();
+        batch.setId(UInt128.id());
+        batch.setDebitAccountId(UInt128.id());
+        batch.setCreditAccountId(UInt128.id());
+        batch.setAmount(BigInteger.TWO.pow(100).add(BigInteger.valueOf(7)));
+        batch.setUserData128(UInt128.id());
+        batch.setUserData64(-5);
+        batch.setUserData32(42);
+        batch.setLedger(1);
+        batch.setCode(700);
+        batch.setFlags(TransferFlags.PENDING);
+        batch.setTimeout(30);
+        batch.beforeFirst();
+        batch.next();
+
+        var out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            writer.writeTransfer(generator, batch);
+        }
+
+        var expected = objectMapper.writeValueAsString(AccountRepository.mapFromCurrentTransferBatch(batch));
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree(out.toString()));
+    }
+
+    @Test
+    void whenWritingAccount_thenMatchesRecordSerialization() throws Exception {
+        var batch = new AccountBatch(1);
+        batch.add();
+        batch.setId(UInt128.id());
+        batch.setUserData128(UInt128.asBytes(BigInteger.valueOf(99999999L)));
+        batch.setCreditsPosted(BigInteger.valueOf(1_000));
+        batch.setDebitsPending(BigInteger.TWO.pow(64));
+        batch.setLedger(1);
+        batch.setCode(1000);
+        batch.beforeFirst();
+        batch.next();
+
+        var out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            writer.writeAccount(generator, batch);
+        }
+
+        var expected = objectMapper.writeValueAsString(AccountRepository.mapFromCurrentAccountBatch(batch));
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree(out.toString()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.tigerbeetle.client.proto;
+
+import com.google.protobuf.CodedOutputStream;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchProtoCodecTest {
+
+    @Test
+    void whenTransfersAreWrittenAndRead_thenEveryFieldSurvives() throws IOException {
+        var batch = new TransferBatch(2);
+        batch.add();
+        batch.setId(1, 2);
+        batch.setDebitAccountId(3, 4);
+        batch.setCreditAccountId(5, 6);
+        batch.setAmount(-1L, 7);
+        batch.setPendingId(8, 9);
+        batch.setUserData128(10, 11);
+        batch.setUserData64(-12L);
+        batch.setUserData32(-13);
+        batch.setTimeout(14);
+        batch.setLedger(15);
+        batch.setCode(16);
+        batch.setFlags(TransferFlags.PENDING);
+        batch.setTimestamp(17);
+        batch.add();
+        batch.setId(18, 0);
+        batch.beforeFirst();
+
+        var read = BatchProtoReader.readTransfers(encode(out -> {
+            var writer = new BatchProtoWriter();
+            while (batch.next()) {
+                writer.writeTransfer(out, batch);
+            }
+        }));
+
+        assertEquals(2, read.getLength());
+        assertTrue(read.next());
+        assertEquals(new UUID(2, 1), UInt128.asUUID(read.getId()));
+        assertEquals(4, read.getDebitAccountId(UInt128.MostSignificant));
+        assertEquals(5, read.getCreditAccountId(UInt128.LeastSignificant));
+        assertEquals(-1L, read.getAmount(UInt128.LeastSignificant));
+        assertEquals(7, read.getAmount(UInt128.MostSignificant));
+        assertEquals(9, read.getPendingId(UInt128.MostSignificant));
+        assertEquals(10, read.getUserData128(UInt128.LeastSignificant));
+        assertEquals(-12L, read.getUserData64());
+        assertEquals(-13, read.getUserData32());
+        assertEquals(14, read.getTimeout());
+        assertEquals(15, read.getLedger());
+        assertEquals(16, read.getCode());
+        assertEquals(TransferFlags.PENDING, read.getFlags());
+        assertEquals(17, read.getTimestamp());
+        assertTrue(read.next());
+        assertEquals(18, read.getId(UInt128.LeastSignificant));
+        assertEquals(0, read.getLedger());
+    }
+
+    @Test
+    void whenIdListIsRead_thenFixed64HalvesFormUuids() throws IOException {
+        // IdList { ids { lo: 1 } ids { lo: 2, hi: 3 } } as protoc encodes it
+        var body = new byte[] {
+                0x0a, 9, 0x09, 1, 0, 0, 0, 0, 0, 0, 0,
+                0x0a, 18, 0x09, 2, 0, 0, 0, 0, 0, 0, 0, 0x11, 3, 0, 0, 0, 0, 0, 0, 0};
+
+        assertEquals(List.of(new UUID(0, 1), new UUID(3, 2)), BatchProtoReader.readIds(body));
+    }
+
+    @Test
+    void whenResultIsWritten_thenZeroFieldsAreLeftOut() throws IOException {
+        var bytes = encode(out -> new BatchProtoWriter().writeResult(out, new UUID(0, 1), CreateTransferResult.Ok));
+
+        assertArrayEquals(new byte[] {0x0a, 9, 0x09, 1, 0, 0, 0, 0, 0, 0, 0}, bytes);
+    }
+
+    private static byte[] encode(Body body) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = CodedOutputStream.newInstance(bytes);
+        body.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private interface Body {
+        void writeTo(CodedOutputStream out) throws IOException;
+    }
+}
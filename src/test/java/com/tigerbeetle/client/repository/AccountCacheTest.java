@@ -0,0 +1,70 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.dto.Account;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCacheTest {
+
+    private final AccountCache cache = new AccountCache(2, 1000);
+
+    @Test
+    void whenLoadedWithinStaleness_thenHit() {
+        var id = UUID.randomUUID();
+        var account = Account.builder().id(id).build();
+
+        cache.put(id, account, cache.startLoad());
+
+        assertEquals(account, cache.get(id, Duration.ofSeconds(1)).orElseThrow());
+        assertTrue(cache.get(id, Duration.ZERO).isEmpty());
+    }
+
+    @Test
+    void whenInvalidatedDuringLoad_thenStaleSnapshotIsDropped() {
+        var id = UUID.randomUUID();
+        long loadStartedAt = cache.startLoad();
+
+        cache.invalidate(id);
+        cache.put(id, Account.builder().id(id).build(), loadStartedAt);
+
+        assertTrue(cache.get(id, Duration.ofSeconds(1)).isEmpty());
+    }
+
+    @Test
+    void whenPendingIsPostedWithoutAccountIds_thenEverySnapshotIsDropped() {
+        var id = UUID.randomUUID();
+        cache.put(id, Account.builder().id(id).build(), cache.startLoad());
+
+        cache.invalidateAccounts(TransferBatcher.Event.builder()
+                .id(UInt128.asBytes(UUID.randomUUID()))
+                .pendingId(UInt128.asBytes(UUID.randomUUID()))
+                .amount(BigInteger.ZERO)
+                .flags(TransferFlags.POST_PENDING_TRANSFER)
+                .build());
+
+        assertTrue(cache.get(id, Duration.ofSeconds(1)).isEmpty());
+    }
+
+    @Test
+    void whenFull_thenLeastRecentlyUsedIsEvicted() {
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        var third = UUID.randomUUID();
+
+        cache.put(first, Account.builder().id(first).build(), cache.startLoad());
+        cache.put(second, Account.builder().id(second).build(), cache.startLoad());
+        cache.get(first, Duration.ofSeconds(1));
+        cache.put(third, Account.builder().id(third).build(), cache.startLoad());
+
+        assertTrue(cache.get(first, Duration.ofSeconds(1)).isPresent());
+        assertTrue(cache.get(second, Duration.ofSeconds(1)).isEmpty());
+        assertTrue(cache.get(third, Duration.ofSeconds(1)).isPresent());
+    }
+}
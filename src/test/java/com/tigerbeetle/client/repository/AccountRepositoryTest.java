@@ -0,0 +1,352 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.IdBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperation;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.cluster.ForwardingClusterOperations;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.BatchFilter;
+import com.tigerbeetle.client.dto.EventResult;
+import com.tigerbeetle.client.dto.Filters;
+import com.tigerbeetle.client.dto.IndexedResult;
+import com.tigerbeetle.client.dto.PendingResolution;
+import com.tigerbeetle.client.dto.ResolutionResult;
+import com.tigerbeetle.client.dto.Transfer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountRepositoryTest {
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final TransferBatcher transferBatcher = new TransferBatcher(cluster, 8190, 0, 1, 65_520);
+    private final LookupBatcher lookupBatcher = new LookupBatcher(cluster, 8190, 0, 1, 65_520);
+    private final AccountRepository repository =
+            new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), new IdempotencyKeys(0),
+                    new AccountStripes(4, List.of(), 60_000), lookupBatcher);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transferBatcher.close();
+        lookupBatcher.close();
+        cluster.close();
+    }
+
+    @Test
+    void whenOneIndependentTransferFails_thenOthersAreCreated() {
+        createAccounts(1, 2);
+        var transfers = List.of(
+                transfer(1, 2, 100, TransferFlags.NONE),
+                transfer(1, 3, 100, TransferFlags.NONE),
+                transfer(2, 1, 40, TransferFlags.NONE));
+
+        var result = repository.submitIndependentTransfers(transfers, null);
+
+        assertEquals(3, result.ids().size());
+        assertEquals(List.of(new IndexedResult<>(1, CreateTransferResult.CreditAccountNotFound)), result.errors());
+        assertEquals(BigInteger.valueOf(100), debitsPosted(1));
+    }
+
+    @Test
+    void whenInputExceedsBatchLimit_thenSplitWithoutBreakingChains() {
+        createAccounts(1, 2);
+        var transfers = new ArrayList<>(Collections.nCopies(TransferBatcher.MAX_BATCH_SIZE - 1, transfer(1, 2, 1, TransferFlags.NONE)));
+        transfers.add(transfer(1, 2, 1, TransferFlags.LINKED));
+        transfers.add(transfer(1, 2, 1, TransferFlags.NONE));
+        transfers.add(transfer(1, 2, 1, TransferFlags.NONE));
+
+        assertEquals(TransferBatcher.MAX_BATCH_SIZE - 1, AccountRepository.chunkEnd(transfers, 0));
+
+        var result = repository.submitIndependentTransfers(transfers, null);
+
+        assertEquals(List.of(), result.errors());
+        assertEquals(BigInteger.valueOf(TransferBatcher.MAX_BATCH_SIZE + 2), debitsPosted(1));
+    }
+
+    @Test
+    void whenRetriedWithKey_thenExistingChainsAreNotErrors() {
+        createAccounts(1, 2);
+        var transfers = List.of(
+                transfer(1, 2, 100, TransferFlags.LINKED),
+                transfer(2, 1, 40, TransferFlags.NONE),
+                transfer(1, 2, 5, TransferFlags.NONE));
+
+        var first = repository.submitIndependentTransfers(transfers, "order-1");
+        var retry = repository.submitIndependentTransfers(transfers, "order-1");
+
+        assertEquals(List.of(), retry.errors());
+        assertEquals(first.ids(), retry.ids());
+        assertEquals(BigInteger.valueOf(105), debitsPosted(1));
+    }
+
+    @Test
+    void whenResolvingHoldsInBulk_thenEachHoldGetsItsOwnResult() {
+        createAccounts(1, 2);
+        var holds = repository.submitIndependentTransfers(List.of(
+                transfer(1, 2, 100, TransferFlags.PENDING),
+                transfer(1, 2, 50, TransferFlags.PENDING),
+                transfer(1, 2, 20, TransferFlags.PENDING)), null).ids();
+        repository.resolvePendingTransfers(List.of(
+                new PendingResolution(holds.get(2), PendingResolution.Action.VOID, null)), null);
+
+        var results = repository.resolvePendingTransfers(List.of(
+                new PendingResolution(holds.get(0), PendingResolution.Action.POST, BigInteger.valueOf(30)),
+                new PendingResolution(holds.get(1), PendingResolution.Action.POST, null),
+                new PendingResolution(holds.get(2), PendingResolution.Action.POST, null)), null);
+
+        assertEquals(List.of(CreateTransferResult.Ok, CreateTransferResult.Ok, CreateTransferResult.PendingTransferAlreadyVoided),
+                results.stream().map(ResolutionResult::result).toList());
+        assertEquals(holds, results.stream().map(ResolutionResult::pendingId).toList());
+        assertEquals(BigInteger.valueOf(80), debitsPosted(1));
+    }
+
+    @Test
+    void whenTransferRecordsAreSubmitted_thenEachGetsItsResult() {
+        createAccounts(1, 2);
+        var records = ByteBuffer.allocate(2 * TransferRecords.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 2; i++) {
+            int offset = i * TransferRecords.SIZE;
+            records.putLong(offset + TransferRecords.ID, 100 + i);
+            records.putLong(offset + TransferRecords.DEBIT_ACCOUNT_ID, 1);
+            records.putLong(offset + TransferRecords.CREDIT_ACCOUNT_ID, 2 + i);
+            records.putLong(offset + TransferRecords.AMOUNT, 10);
+            records.putInt(offset + TransferRecords.LEDGER, 1);
+            records.putShort(offset + TransferRecords.CODE, (short) 1);
+        }
+
+        var results = repository.submitTransferRecords(records);
+
+        assertEquals(List.of(new UUID(0, 100), new UUID(0, 101)), results.stream().map(EventResult::id).toList());
+        assertEquals(List.of(CreateTransferResult.Ok, CreateTransferResult.CreditAccountNotFound),
+                results.stream().map(EventResult::result).toList());
+        assertEquals(BigInteger.TEN, debitsPosted(1));
+    }
+
+    @Test
+    void whenAccountIsStriped_thenTransfersSpreadAndReadsAddUp() {
+        createAccounts(2);
+        var hot = repository.createAccount(BigInteger.ONE, 1, 1, 0, 0, 0).id();
+        repository.stripeAccount(hot);
+
+        var transfers = Collections.nCopies(20, Transfer.builder()
+                .debitAccountId(hot)
+                .creditAccountId(new UUID(0, 2))
+                .amount(BigInteger.ONE)
+                .ledger(1)
+                .code(1)
+                .build());
+        repository.submitBatchTransfer(transfers);
+
+        assertEquals(BigInteger.valueOf(20), repository.findAccountById(hot).orElseThrow().debtsPosted());
+        long used = new AccountStripes(4, List.of(), 60_000).stripeIds(hot).stream()
+                .filter(id -> debitsPosted(id).signum() > 0)
+                .count();
+        assertTrue(used > 1);
+        var balances = repository.listAccountBalances(new Filters(hot, true, true, null, null, 100));
+        assertEquals(20, balances.size());
+        assertEquals(BigInteger.valueOf(20), balances.get(19).debitsPosted());
+        var restarted = new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), new IdempotencyKeys(0),
+                new AccountStripes(4, List.of(), 60_000), lookupBatcher);
+        assertEquals(BigInteger.valueOf(20), restarted.listAccountBalances(new Filters(hot, true, true, null, null, 100))
+                .get(19).debitsPosted());
+        assertEquals(BigInteger.valueOf(20), restarted.findAccountById(hot).orElseThrow().debtsPosted());
+    }
+
+    @Test
+    void whenAccountIsStriped_thenTransferReadsShowTheAccountAndHistoryIsRefused() {
+        createAccounts(2);
+        var hot = repository.createAccount(BigInteger.ONE, 1, 1, 0, 0, 0).id();
+        repository.stripeAccount(hot);
+
+        var created = repository.createBatchTransfer(List.of(Transfer.builder()
+                .debitAccountId(hot)
+                .creditAccountId(new UUID(0, 2))
+                .amount(BigInteger.ONE)
+                .ledger(1)
+                .code(1)
+                .build()));
+
+        assertEquals(hot, created.get(0).debitAccountId());
+        var restarted = new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), new IdempotencyKeys(0),
+                new AccountStripes(4, List.of(), 60_000), lookupBatcher);
+        assertThrows(IllegalArgumentException.class,
+                () -> restarted.listAccountTransfers(new Filters(hot, true, true, null, null, 100)));
+        assertEquals(hot, restarted.findTransfersByBatchIds(List.of(created.get(0).id())).get(created.get(0).id()).debitAccountId());
+    }
+
+    @Test
+    void whenAccountIsFoundUnstriped_thenItIsNotProbedAgain() throws InterruptedException {
+        createAccounts(1, 2);
+        var counting = new CountingClusterOperations(cluster);
+        var lookups = new LookupBatcher(counting, 8190, 0, 1, 65_520);
+        var probing = new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), new IdempotencyKeys(0),
+                new AccountStripes(4, List.of(), 60_000), lookups);
+        try {
+            var filter = new Filters(new UUID(0, 1), true, true, null, null, 100);
+            probing.listAccountTransfers(filter);
+            probing.listAccountTransfers(filter);
+            probing.findAccountById(new UUID(0, 1));
+
+            assertEquals(2, counting.accountsLookedUp.get());
+        } finally {
+            lookups.close();
+        }
+    }
+
+    @Test
+    void whenStripingIsOff_thenAccountsCannotBeStriped() {
+        createAccounts(1);
+        var unstriped = new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), new IdempotencyKeys(0),
+                new AccountStripes(1, List.of(), 60_000), lookupBatcher);
+
+        assertThrows(IllegalArgumentException.class, () -> unstriped.stripeAccount(new UUID(0, 1)));
+        assertTrue(unstriped.listAccountTransfers(new Filters(new UUID(0, 1), true, true, null, null, 100)).isEmpty());
+    }
+
+    @Test
+    void whenAccountIsReadDuringAndAfterAWrite_thenReadsAfterTheWriteSeeIt() throws Exception {
+        createAccounts(1, 2);
+        var holding = new HoldingClusterOperations(cluster);
+        var lookups = new LookupBatcher(holding, 8190, 0, 2, 65_520);
+        var cached = new AccountRepository(cluster, transferBatcher, new AccountCache(100, 60_000), new IdempotencyKeys(0),
+                new AccountStripes(4, List.of(), 60_000), lookups);
+        try {
+            var before = CompletableFuture.supplyAsync(() -> cached.findAccountById(new UUID(0, 1)));
+            holding.sent.await();
+
+            cached.submitBatchTransfer(List.of(transfer(1, 2, 10, TransferFlags.NONE)));
+            var during = CompletableFuture.supplyAsync(() -> cached.findAccountById(new UUID(0, 1)));
+
+            assertEquals(BigInteger.TEN, during.get(5, TimeUnit.SECONDS).orElseThrow().debtsPosted());
+            holding.release.complete(null);
+            assertEquals(BigInteger.ZERO, before.join().orElseThrow().debtsPosted());
+            assertEquals(BigInteger.TEN, cached.findAccountById(new UUID(0, 1)).orElseThrow().debtsPosted());
+        } finally {
+            lookups.close();
+        }
+    }
+
+    @Test
+    void whenPendingIsPostedById_thenOnlyItsAccountsLeaveTheCache() {
+        createAccounts(1, 2, 3);
+        var cache = new AccountCache(100, 60_000);
+        var cached = new AccountRepository(cluster, transferBatcher, cache, new IdempotencyKeys(0),
+                new AccountStripes(4, List.of(), 60_000), lookupBatcher);
+        var pending = cached.submitPendingTransfer(transfer(1, 2, 10, TransferFlags.NONE)).id();
+        cached.findAccountsById(new UUID[]{new UUID(0, 1), new UUID(0, 3)});
+
+        cached.submitPendingCompletion(Transfer.builder().pendingId(pending).amount(BigInteger.TEN).build());
+
+        assertTrue(cache.get(new UUID(0, 1), Duration.ofMinutes(1)).isEmpty());
+        assertTrue(cache.get(new UUID(0, 3), Duration.ofMinutes(1)).isPresent());
+        assertEquals(BigInteger.TEN, debitsPosted(1));
+    }
+
+    @Test
+    void whenFilteredExtractionHasNoLimit_thenItIsRefused() {
+        var filter = new BatchFilter(null, 0, 0, 0, 1, null, null, 0, false,
+                BigInteger.TEN, null, 0, 0, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> repository.fetchTransactionByBatchFilter(filter));
+    }
+
+    private void createAccounts(long... ids) {
+        var accounts = new AccountBatch(ids.length);
+        for (long id : ids) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    private BigInteger debitsPosted(long id) {
+        return debitsPosted(new UUID(0, id));
+    }
+
+    private BigInteger debitsPosted(UUID id) {
+        var accounts = cluster.lookupAccounts(new IdBatch(UInt128.asBytes(id)));
+        assertTrue(accounts.next());
+        return accounts.getDebitsPosted();
+    }
+
+    private static Transfer transfer(long debit, long credit, long amount, int flags) {
+        return Transfer.builder()
+                .debitAccountId(new UUID(0, debit))
+                .creditAccountId(new UUID(0, credit))
+                .amount(BigInteger.valueOf(amount))
+                .ledger(1)
+                .code(1)
+                .flags(flags)
+                .build();
+    }
+
+    /**
+     * Answers the first account lookup with the state at the time it was sent, but only once
+     * {@code release} completes; later lookups go straight through.
+     */
+    private static final class HoldingClusterOperations extends ForwardingClusterOperations {
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CompletableFuture<Void> release = new CompletableFuture<>();
+        private final AtomicBoolean holding = new AtomicBoolean(true);
+
+        HoldingClusterOperations(ClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (operation != ClusterOperation.LOOKUP_ACCOUNTS || !holding.compareAndSet(true, false)) {
+                return call.get();
+            }
+            var answer = call.get().join();
+            sent.countDown();
+            return release.thenApply(ignored -> answer);
+        }
+    }
+
+    private static final class CountingClusterOperations extends ForwardingClusterOperations {
+        final AtomicInteger accountsLookedUp = new AtomicInteger();
+
+        CountingClusterOperations(ClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> T invoke(ClusterOperation operation, int events, Supplier<T> call) {
+            if (operation == ClusterOperation.LOOKUP_ACCOUNTS) {
+                accountsLookedUp.addAndGet(events);
+            }
+            return call.get();
+        }
+
+        @Override
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (operation == ClusterOperation.LOOKUP_ACCOUNTS) {
+                accountsLookedUp.addAndGet(events);
+            }
+            return call.get();
+        }
+    }
+}
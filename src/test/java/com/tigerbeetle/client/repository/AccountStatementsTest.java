@@ -0,0 +1,161 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.AccountFlags;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperation;
+import com.tigerbeetle.client.cluster.ClusterOperations;
+import com.tigerbeetle.client.cluster.ForwardingClusterOperations;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import com.tigerbeetle.client.dto.StatementRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountStatementsTest {
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final LookupBatcher lookupBatcher = new LookupBatcher(cluster, 8190, 0, 1, 65_520);
+    private final AccountStatements statements =
+            new AccountStatements(cluster, cluster, new AccountStripes(1, List.of(), 60_000), lookupBatcher, 2, 10, 2);
+    private long nextTransferId = 10;
+
+    @BeforeEach
+    void setUp() {
+        var accounts = new AccountBatch(4);
+        for (long id = 1; id <= 4; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+            accounts.setFlags(AccountFlags.HISTORY);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        lookupBatcher.close();
+        cluster.close();
+    }
+
+    @Test
+    void whenAccountsShareTransfers_thenMergedInOrderOnce() {
+        transfer(1, 4);
+        transfer(1, 2);
+        transfer(4, 3);
+        transfer(2, 4);
+        transfer(3, 1);
+        transfer(2, 1);
+        transfer(4, 2);
+
+        var ids = statement(StatementRequest.builder().accountIds(Set.of(new UUID(0, 1), new UUID(0, 2), new UUID(0, 3))).build());
+
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L, 15L, 16L), ids);
+    }
+
+    @Test
+    void whenLimitIsSet_thenStatementStopsThere() {
+        for (int i = 0; i < 5; i++) {
+            transfer(1, 4);
+            transfer(2, 4);
+        }
+
+        var ids = statement(StatementRequest.builder().accountIds(Set.of(new UUID(0, 1), new UUID(0, 2))).limit(3).build());
+
+        assertEquals(List.of(10L, 11L, 12L), ids);
+    }
+
+    @Test
+    void whenLaterPagesWouldBeShed_thenTheStatementStillCompletes() {
+        for (int i = 0; i < 5; i++) {
+            transfer(1, 4);
+        }
+        var shedding = new AccountStatements(new FirstCallOnlyClusterOperations(cluster), cluster,
+                new AccountStripes(1, List.of(), 60_000), lookupBatcher, 2, 10, 2);
+
+        var ids = statement(shedding, StatementRequest.builder().accountIds(Set.of(new UUID(0, 1))).build());
+
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L), ids);
+    }
+
+    @Test
+    void whenTooManyAccounts_thenRejected() {
+        var accountIds = new HashSet<UUID>();
+        for (long id = 1; id <= 11; id++) {
+            accountIds.add(new UUID(0, id));
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> statements.open(StatementRequest.builder().accountIds(accountIds).build()));
+    }
+
+    @Test
+    void whenStripesExceedMaxAccounts_thenRejected() {
+        var striped = new AccountStatements(cluster, cluster, new AccountStripes(4, List.of(new UUID(0, 1)), 60_000),
+                lookupBatcher, 2, 4, 2);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> striped.open(StatementRequest.builder().accountIds(Set.of(new UUID(0, 1), new UUID(0, 2))).build()));
+        assertNotNull(striped.open(StatementRequest.builder().accountIds(Set.of(new UUID(0, 1))).build()));
+    }
+
+    private List<Long> statement(StatementRequest request) {
+        return statement(statements, request);
+    }
+
+    private static List<Long> statement(AccountStatements statements, StatementRequest request) {
+        var ids = new ArrayList<Long>();
+        statements.open(request).forEachPage(page -> {
+            while (page.next()) {
+                ids.add(page.getId(UInt128.LeastSignificant));
+            }
+        });
+        return ids;
+    }
+
+    private void transfer(long debit, long credit) {
+        var batch = new TransferBatch(1);
+        batch.add();
+        batch.setId(nextTransferId++);
+        batch.setDebitAccountId(debit);
+        batch.setCreditAccountId(credit);
+        batch.setAmount(1);
+        batch.setLedger(1);
+        batch.setCode(1);
+        assertEquals(0, cluster.createTransfers(batch).getLength());
+    }
+
+    /**
+     * Admits one request and sheds every later one, like a concurrency limit that has dropped.
+     */
+    private static final class FirstCallOnlyClusterOperations extends ForwardingClusterOperations {
+        private final AtomicBoolean admitted = new AtomicBoolean();
+
+        FirstCallOnlyClusterOperations(ClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (admitted.getAndSet(true)) {
+                throw new ClusterOverloadedException(operation.name(), 1);
+            }
+            return call.get();
+        }
+    }
+}
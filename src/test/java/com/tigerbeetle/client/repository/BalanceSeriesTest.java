@@ -0,0 +1,92 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.AccountFlags;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceSeriesTest {
+
+    private static final long DAY_MS = Duration.ofDays(1).toMillis();
+    private static final UUID ACCOUNT = new UUID(0, 1);
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private long nextTransferId = 10;
+
+    @BeforeEach
+    void setUp() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+            accounts.setFlags(AccountFlags.HISTORY);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    @Test
+    void whenRowsFallInOneInterval_thenFoldedIntoOneBucket() {
+        transfer(1, 2, 100);
+        transfer(2, 1, 40);
+        var series = new BalanceSeries(cluster, 1, 100, 100, 60_000);
+
+        long now = System.currentTimeMillis();
+        var buckets = series.downsample(ACCOUNT, now - DAY_MS, now, DAY_MS);
+
+        var bucket = buckets.get(buckets.size() - 1);
+        assertEquals(BigInteger.ZERO, bucket.open());
+        assertEquals(BigInteger.valueOf(-60), bucket.close());
+        assertEquals(BigInteger.valueOf(-100), bucket.min());
+        assertEquals(BigInteger.ZERO, bucket.max());
+        assertEquals(BigInteger.valueOf(140), bucket.volume());
+        assertEquals(2, bucket.changes());
+    }
+
+    @Test
+    void whenIntervalIsFinal_thenServedFromCache() {
+        transfer(1, 2, 100);
+        var series = new BalanceSeries(cluster, 8190, 100, 100, -2 * DAY_MS);
+        long now = System.currentTimeMillis();
+
+        var first = series.downsample(ACCOUNT, now, now, DAY_MS);
+        transfer(1, 2, 5);
+        var second = series.downsample(ACCOUNT, now, now, DAY_MS);
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    void whenTooManyIntervals_thenRejected() {
+        var series = new BalanceSeries(cluster, 8190, 10, 100, 60_000);
+
+        assertThrows(IllegalArgumentException.class, () -> series.downsample(ACCOUNT, 0, 11_000, 1_000));
+    }
+
+    private void transfer(long debit, long credit, long amount) {
+        var batch = new TransferBatch(1);
+        batch.add();
+        batch.setId(nextTransferId++);
+        batch.setDebitAccountId(debit);
+        batch.setCreditAccountId(credit);
+        batch.setAmount(amount);
+        batch.setLedger(1);
+        batch.setCode(1);
+        assertEquals(0, cluster.createTransfers(batch).getLength());
+    }
+}
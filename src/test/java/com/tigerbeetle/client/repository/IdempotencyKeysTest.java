@@ -0,0 +1,119 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.IdBatch;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.BatchTransferException;
+import com.tigerbeetle.client.dto.Transfer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyKeysTest {
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final TransferBatcher transferBatcher = new TransferBatcher(cluster, 8190, 0, 1, 65_520);
+    private final LookupBatcher lookupBatcher = new LookupBatcher(cluster, 8190, 0, 1, 65_520);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transferBatcher.close();
+        lookupBatcher.close();
+        cluster.close();
+    }
+
+    @Test
+    void whenSameKeyAndIndex_thenSameId() {
+        var keys = new IdempotencyKeys(10);
+
+        assertArrayEquals(keys.id("transfers", "order-1", 0), keys.id("transfers", "order-1", 0));
+        assertNotEquals(UInt128.asUUID(keys.id("transfers", "order-1", 0)), UInt128.asUUID(keys.id("transfers", "order-1", 1)));
+        assertNotEquals(UInt128.asUUID(keys.id("transfers", "order-1", 0)), UInt128.asUUID(keys.id("pending", "order-1", 0)));
+    }
+
+    @Test
+    void whenRetriedAfterCacheEviction_thenExistsIsSuccessAndNothingIsPostedTwice() {
+        createAccounts();
+        var transfers = List.of(
+                transfer(1, 2, 100),
+                transfer(2, 1, 40));
+
+        var first = repository(new IdempotencyKeys(10)).submitBatchTransfer(transfers, "order-1");
+        var retry = repository(new IdempotencyKeys(0)).submitBatchTransfer(transfers, "order-1");
+
+        assertEquals(first, retry);
+        var debit = cluster.lookupAccounts(new IdBatch(UInt128.asBytes(1L)));
+        assertTrue(debit.next());
+        assertEquals(BigInteger.valueOf(100), debit.getDebitsPosted());
+    }
+
+    @Test
+    void whenKeyIsReusedForAnotherRequest_thenRejected() {
+        createAccounts();
+        var keys = new IdempotencyKeys(10);
+        repository(keys).submitBatchTransfer(List.of(transfer(1, 2, 100)), "order-1");
+
+        assertThrows(BatchTransferException.class,
+                () -> repository(keys).submitBatchTransfer(List.of(transfer(1, 2, 200)), "order-1"));
+    }
+
+    @Test
+    void whenAnotherRequestHasTheSameHashCode_thenItIsNotReplayed() {
+        var keys = new IdempotencyKeys(10);
+        var ids = List.of(UUID.randomUUID());
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        keys.remember("transfers", "order-1", List.of("Aa"), ids);
+
+        assertEquals(ids, keys.replay("transfers", "order-1", List.of("Aa")));
+        assertNull(keys.replay("transfers", "order-1", List.of("BB")));
+    }
+
+    @Test
+    void whenKeyIsReusedInIndependentMode_thenLinkedIdsAreNotReplayed() {
+        createAccounts();
+        var keys = new IdempotencyKeys(10);
+        var transfers = List.of(transfer(1, 2, 100));
+
+        var linked = repository(keys).submitBatchTransfer(transfers, "order-1");
+        var independent = repository(keys).submitIndependentTransfers(transfers, "order-1");
+
+        assertNotEquals(linked.get(0).id(), independent.ids().get(0));
+        var debit = cluster.lookupAccounts(new IdBatch(UInt128.asBytes(1L)));
+        assertTrue(debit.next());
+        assertEquals(BigInteger.valueOf(200), debit.getDebitsPosted());
+    }
+
+    private AccountRepository repository(IdempotencyKeys keys) {
+        return new AccountRepository(cluster, transferBatcher, new AccountCache(100, 0), keys, new AccountStripes(1, List.of(), 60_000),
+                lookupBatcher);
+    }
+
+    private void createAccounts() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    private static Transfer transfer(long debit, long credit, long amount) {
+        return Transfer.builder()
+                .debitAccountId(new UUID(0, debit))
+                .creditAccountId(new UUID(0, credit))
+                .amount(BigInteger.valueOf(amount))
+                .ledger(1)
+                .code(1)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.client.cluster.ClusterOperation;
+import com.tigerbeetle.client.cluster.ForwardingClusterOperations;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.Account;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupBatcherTest {
+
+    private static final UUID ACCOUNT_1 = new UUID(0, 1);
+    private static final UUID ACCOUNT_2 = new UUID(0, 2);
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final RecordingClusterOperations recording = new RecordingClusterOperations(cluster);
+    private LookupBatcher lookups;
+
+    @BeforeEach
+    void setUp() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        lookups.close();
+        cluster.close();
+    }
+
+    @Test
+    void whenConcurrentCallersAskForQueuedIds_thenOneSharedLookup() {
+        lookups = new LookupBatcher(recording, 8190, 50_000, 1, 65_520);
+
+        var first = lookups.accounts(List.of(ACCOUNT_1), Duration.ZERO);
+        var second = lookups.accounts(List.of(ACCOUNT_1, ACCOUNT_2), Duration.ZERO);
+        var third = lookups.accounts(List.of(ACCOUNT_2), Duration.ZERO);
+
+        assertEquals(ACCOUNT_1, first.join().get(ACCOUNT_1).id());
+        assertEquals(2, second.join().size());
+        assertEquals(ACCOUNT_2, third.join().get(ACCOUNT_2).id());
+        assertEquals(List.of(2), recording.lookups);
+    }
+
+    @Test
+    void whenLookupIsAlreadySent_thenOnlyCallersThatAllowItsAgeJoin() throws InterruptedException {
+        lookups = new LookupBatcher(recording, 8190, 0, 4, 65_520);
+        recording.gate = new CompletableFuture<>();
+
+        var first = lookups.accounts(List.of(ACCOUNT_1), Duration.ZERO);
+        while (recording.lookups.isEmpty()) {
+            Thread.sleep(1);
+        }
+        var tolerant = lookups.accounts(List.of(ACCOUNT_1), Duration.ofMinutes(1));
+        var strict = lookups.accounts(List.of(ACCOUNT_1), Duration.ZERO);
+        while (recording.lookups.size() < 2) {
+            Thread.sleep(1);
+        }
+        recording.gate.complete(null);
+
+        assertNotNull(first.join().get(ACCOUNT_1));
+        assertNotNull(tolerant.join().get(ACCOUNT_1));
+        assertNotNull(strict.join().get(ACCOUNT_1));
+        assertEquals(List.of(1, 1), recording.lookups);
+    }
+
+    @Test
+    void whenIdIsMissing_thenMapsToNull() {
+        lookups = new LookupBatcher(recording, 8190, 0, 1, 65_520);
+
+        var found = lookups.transfers(List.of(new UUID(0, 99))).join();
+
+        assertTrue(found.containsKey(new UUID(0, 99)));
+        assertNull(found.get(new UUID(0, 99)));
+    }
+
+    @Test
+    void whenQueueIsFull_thenNewIdsFailAtOnce() {
+        lookups = new LookupBatcher(recording, 1, 0, 1, 2);
+        recording.gate = new CompletableFuture<>();
+
+        var results = new ArrayList<CompletableFuture<Map<UUID, Account>>>();
+        for (long id = 1; id <= 10; id++) {
+            results.add(lookups.accounts(List.of(new UUID(0, id)), Duration.ZERO));
+        }
+        var shed = results.stream().filter(CompletableFuture::isCompletedExceptionally).toList();
+        recording.gate.complete(null);
+
+        assertTrue(shed.size() >= 6);
+        shed.forEach(result -> assertInstanceOf(ClusterOverloadedException.class,
+                assertThrows(CompletionException.class, result::join).getCause()));
+        assertEquals(ACCOUNT_1, results.get(0).join().get(ACCOUNT_1).id());
+    }
+
+    /**
+     * Records the size of every lookup and holds the replies back while {@code gate} is open.
+     */
+    private static final class RecordingClusterOperations extends ForwardingClusterOperations {
+        final List<Integer> lookups = new CopyOnWriteArrayList<>();
+        volatile CompletableFuture<Void> gate;
+
+        RecordingClusterOperations(InMemoryClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (operation == ClusterOperation.LOOKUP_ACCOUNTS) {
+                lookups.add(events);
+            }
+            var held = gate;
+            return held == null ? call.get() : held.thenCompose(ignored -> call.get());
+        }
+    }
+}
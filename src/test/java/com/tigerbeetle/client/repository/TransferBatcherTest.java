@@ -0,0 +1,151 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.CreateTransferResult;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import com.tigerbeetle.client.cluster.ClusterOperation;
+import com.tigerbeetle.client.cluster.ForwardingClusterOperations;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.ClusterOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferBatcherTest {
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final RecordingClusterOperations recording = new RecordingClusterOperations(cluster);
+    private TransferBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        batcher.close();
+        cluster.close();
+    }
+
+    @Test
+    void whenTransfersAreSubmittedTogether_thenTheyShareBatchesUpToMaxSize() {
+        batcher = new TransferBatcher(recording, 3, 50_000, 1, 65_520);
+
+        var results = new ArrayList<CompletableFuture<CreateTransferResult>>();
+        for (long id = 10; id < 15; id++) {
+            results.add(batcher.submit(event(id, 2)));
+        }
+
+        results.forEach(result -> assertEquals(CreateTransferResult.Ok, result.join()));
+        assertEquals(List.of(3, 2), recording.batches);
+    }
+
+    @Test
+    void whenOneTransferIsRejected_thenOnlyItsCallerSeesTheResult() {
+        batcher = new TransferBatcher(recording, 8190, 50_000, 1, 65_520);
+
+        var first = batcher.submit(event(10, 2));
+        var rejected = batcher.submit(event(11, 3));
+        var last = batcher.submit(event(12, 2));
+
+        assertEquals(CreateTransferResult.Ok, first.join());
+        assertEquals(CreateTransferResult.CreditAccountNotFound, rejected.join());
+        assertEquals(CreateTransferResult.Ok, last.join());
+        assertEquals(List.of(3), recording.batches);
+    }
+
+    @Test
+    void whenEventIsLinked_thenItIsRejected() {
+        batcher = new TransferBatcher(recording, 8190, 0, 1, 65_520);
+
+        assertThrows(IllegalArgumentException.class, () -> TransferBatcher.Event.builder()
+                .id(UInt128.asBytes(10L))
+                .amount(BigInteger.ONE)
+                .flags(TransferFlags.LINKED)
+                .build());
+    }
+
+    @Test
+    void whenClosedWithTransfersQueued_thenTheyAreStillSentAndLaterOnesFail() throws InterruptedException {
+        batcher = new TransferBatcher(recording, 8190, 200_000, 1, 65_520);
+
+        var queued = List.of(batcher.submit(event(10, 2)), batcher.submit(event(11, 2)));
+        batcher.close();
+
+        queued.forEach(result -> assertEquals(CreateTransferResult.Ok, result.join()));
+        var late = assertThrows(CompletionException.class, () -> batcher.submit(event(12, 2)).join());
+        assertInstanceOf(IllegalStateException.class, late.getCause());
+        assertEquals(List.of(2), recording.batches);
+    }
+
+    @Test
+    void whenQueueIsFull_thenLaterTransfersFailAtOnceAndQueuedOnesGoThrough() {
+        batcher = new TransferBatcher(recording, 1, 0, 1, 2);
+        recording.gate = new CompletableFuture<>();
+
+        var results = new ArrayList<CompletableFuture<CreateTransferResult>>();
+        for (long id = 10; id < 20; id++) {
+            results.add(batcher.submit(event(id, 2)));
+        }
+        var shed = results.stream().filter(CompletableFuture::isCompletedExceptionally).toList();
+        recording.gate.complete(null);
+
+        assertTrue(shed.size() >= 6);
+        shed.forEach(result -> assertInstanceOf(ClusterOverloadedException.class,
+                assertThrows(CompletionException.class, result::join).getCause()));
+        results.stream().filter(result -> !shed.contains(result))
+                .forEach(result -> assertEquals(CreateTransferResult.Ok, result.join()));
+    }
+
+    private static TransferBatcher.Event event(long id, long creditAccountId) {
+        return TransferBatcher.Event.builder()
+                .id(UInt128.asBytes(id))
+                .debitAccountId(UInt128.asBytes(1L))
+                .creditAccountId(UInt128.asBytes(creditAccountId))
+                .amount(BigInteger.ONE)
+                .ledger(1)
+                .code(1)
+                .build();
+    }
+
+    /**
+     * Records the number of events in every batch sent and holds the replies back while {@code gate} is open.
+     */
+    private static final class RecordingClusterOperations extends ForwardingClusterOperations {
+        final List<Integer> batches = new CopyOnWriteArrayList<>();
+        volatile CompletableFuture<Void> gate;
+
+        RecordingClusterOperations(InMemoryClusterOperations delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected <T> CompletableFuture<T> invokeAsync(ClusterOperation operation, int events, Supplier<CompletableFuture<T>> call) {
+            if (operation == ClusterOperation.CREATE_TRANSFERS) {
+                batches.add(events);
+            }
+            var held = gate;
+            return held == null ? call.get() : held.thenCompose(ignored -> call.get());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.client.dto.BatchFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferFilterTest {
+
+    @Test
+    void whenOnlyQueryFieldsAreSet_thenNoSecondaryFilter() {
+        assertNull(TransferFilter.of(filter(null, null, 0, 0, null)));
+    }
+
+    @Test
+    void whenAmountRangeAndFlagsAreSet_thenOnlyMatchingRowsAreKept() {
+        var transferFilter = TransferFilter.of(filter(BigInteger.valueOf(10), BigInteger.valueOf(100), 0, TransferFlags.PENDING, null));
+        var page = page(
+                row(1, 5, TransferFlags.NONE, 1),
+                row(2, 50, TransferFlags.NONE, 1),
+                row(3, 50, TransferFlags.PENDING, 1),
+                row(4, 100, TransferFlags.NONE, 1));
+
+        var kept = transferFilter.apply(page, Integer.MAX_VALUE);
+
+        assertEquals(2, kept.getLength());
+        assertTrue(kept.next());
+        assertEquals(2, kept.getTimestamp());
+        assertTrue(kept.next());
+        assertEquals(4, kept.getTimestamp());
+    }
+
+    @Test
+    void whenEveryRowMatches_thenPageIsPassedThrough() {
+        var transferFilter = TransferFilter.of(filter(null, null, 0, 0, Set.of(new UUID(0, 1))));
+        var page = page(row(1, 5, TransferFlags.NONE, 1), row(2, 5, TransferFlags.NONE, 1));
+
+        assertSame(page, transferFilter.apply(page, 10));
+        assertEquals(1, transferFilter.apply(page, 1).getLength());
+    }
+
+    private static BatchFilter filter(BigInteger amountMin, BigInteger amountMax, int flagsSet, int flagsUnset, Set<UUID> debitAccountIds) {
+        return new BatchFilter(null, 0, 0, 0, 0, null, null, 0, false,
+                amountMin, amountMax, flagsSet, flagsUnset, debitAccountIds, null);
+    }
+
+    private static long[] row(long timestamp, long amount, int flags, long debitAccountId) {
+        return new long[]{timestamp, amount, flags, debitAccountId};
+    }
+
+    private static TransferBatch page(long[]... rows) {
+        var batch = new TransferBatch(rows.length);
+        for (long[] row : rows) {
+            batch.add();
+            batch.setId(row[0]);
+            batch.setTimestamp(row[0]);
+            batch.setAmount(row[1]);
+            batch.setFlags((int) row[2]);
+            batch.setDebitAccountId(row[3]);
+            batch.setCreditAccountId(2);
+        }
+        batch.beforeFirst();
+        return batch;
+    }
+}
@@ -0,0 +1,123 @@
+package com.tigerbeetle.client.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.ImportException;
+import com.tigerbeetle.client.dto.ImportRequest;
+import com.tigerbeetle.client.dto.ImportStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransferImporterTest {
+
+    private static final String DEBIT = "00000000-0000-0000-0000-000000000001";
+    private static final String CREDIT = "00000000-0000-0000-0000-000000000002";
+    private static final String MISSING = "00000000-0000-0000-0000-000000000003";
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    @Test
+    void whenImportIsRepeatedWithoutCheckpoint_thenRowsAlreadyImportedCountAsDone() throws Exception {
+        createAccounts();
+        var csv = new StringBuilder("debitAccountId,creditAccountId,amount,ledger,code\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append(DEBIT).append(',').append(CREDIT).append(",10,1,1\n");
+        }
+        csv.append(DEBIT).append(',').append(MISSING).append(",10,1,1\n");
+        Files.writeString(directory.resolve("settlement.csv"), csv);
+        var importer = new TransferImporter(cluster, new AccountCache(100, 0), new ObjectMapper(), directory.toString(), 10, 2, 60_000);
+
+        var first = await(importer, importer.start(new ImportRequest("settlement.csv", null, "eod-1")));
+        assertEquals(ImportStatus.State.COMPLETED, first.state());
+        assertEquals(26, first.rowsCommitted());
+        assertEquals(1, first.rowsFailed());
+        assertEquals(1, Files.readAllLines(directory.resolve("settlement.csv.failures.ndjson")).size());
+
+        Files.delete(directory.resolve("settlement.csv.checkpoint"));
+        Files.delete(directory.resolve("settlement.csv.failures.ndjson"));
+        var second = await(importer, importer.start(new ImportRequest("settlement.csv", null, "eod-1")));
+        assertEquals(ImportStatus.State.COMPLETED, second.state());
+        assertEquals(26, second.rowsCommitted());
+        assertEquals(1, second.rowsFailed());
+    }
+
+    @Test
+    void whenLinkedChainFillsWholeBatch_thenImportFails() throws Exception {
+        createAccounts();
+        var csv = new StringBuilder("debitAccountId,creditAccountId,amount,ledger,code,flags\n");
+        for (int i = 0; i < 4; i++) {
+            csv.append(DEBIT).append(',').append(CREDIT).append(",10,1,1,").append(TransferFlags.LINKED).append('\n');
+        }
+        csv.append(DEBIT).append(',').append(CREDIT).append(",10,1,1,0\n");
+        Files.writeString(directory.resolve("chain.csv"), csv);
+        var importer = new TransferImporter(cluster, new AccountCache(100, 0), new ObjectMapper(), directory.toString(), 3, 2, 60_000);
+
+        var status = await(importer, importer.start(new ImportRequest("chain.csv", null, "chain-1")));
+
+        assertEquals(ImportStatus.State.FAILED, status.state());
+        assertEquals("A linked chain starting at row 1 is longer than 3 transfers", status.error());
+        assertEquals(0, status.rowsCommitted());
+    }
+
+    @Test
+    void whenFileIsAlreadyBeingImported_thenAnotherImportIdIsRefused() throws Exception {
+        var slow = new InMemoryClusterOperations(Duration.ofMillis(200), Duration.ZERO);
+        try {
+            Files.writeString(directory.resolve("settlement.csv"),
+                    "debitAccountId,creditAccountId,amount,ledger,code\n" + DEBIT + "," + CREDIT + ",10,1,1\n");
+            var importer = new TransferImporter(slow, new AccountCache(100, 0), new ObjectMapper(), directory.toString(), 10, 2, 0);
+
+            importer.start(new ImportRequest("settlement.csv", null, "eod-1"));
+            assertEquals(ImportStatus.State.RUNNING, importer.start(new ImportRequest("settlement.csv", null, "eod-1")).state());
+            assertThrows(ImportException.class, () -> importer.start(new ImportRequest("settlement.csv", null, "eod-2")));
+
+            for (int i = 0; i < 500 && importer.status("eod-1").isPresent(); i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(importer.status("eod-1").isEmpty());
+        } finally {
+            slow.close();
+        }
+    }
+
+    private void createAccounts() {
+        var accounts = new AccountBatch(2);
+        accounts.add();
+        accounts.setId(1);
+        accounts.setLedger(1);
+        accounts.setCode(1);
+        accounts.add();
+        accounts.setId(2);
+        accounts.setLedger(1);
+        accounts.setCode(1);
+        cluster.createAccounts(accounts);
+    }
+
+    private static ImportStatus await(TransferImporter importer, ImportStatus started) throws InterruptedException {
+        var status = started;
+        for (int i = 0; i < 500 && status.state() == ImportStatus.State.RUNNING; i++) {
+            Thread.sleep(10);
+            status = importer.status(started.importId()).orElseThrow();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.AccountBatch;
+import com.tigerbeetle.TransferBatch;
+import com.tigerbeetle.client.cluster.InMemoryClusterOperations;
+import com.tigerbeetle.client.dto.BatchFilter;
+import com.tigerbeetle.client.dto.Transfer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferProjectionTest {
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryClusterOperations cluster = new InMemoryClusterOperations(Duration.ZERO, Duration.ZERO);
+    private final List<TransferProjection> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var accounts = new AccountBatch(2);
+        for (long id = 1; id <= 2; id++) {
+            accounts.add();
+            accounts.setId(id);
+            accounts.setLedger(1);
+            accounts.setCode(1);
+        }
+        assertEquals(0, cluster.createAccounts(accounts).getLength());
+        var transfers = new TransferBatch(5);
+        for (int i = 1; i <= 5; i++) {
+            transfers.add();
+            transfers.setId(10 + i);
+            transfers.setDebitAccountId(1);
+            transfers.setCreditAccountId(2);
+            transfers.setAmount(i * 100L);
+            transfers.setLedger(1);
+            transfers.setCode(i % 2 == 0 ? 7 : 8);
+            transfers.setUserData64(i);
+        }
+        assertEquals(0, cluster.createTransfers(transfers).getLength());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (var projection : opened) {
+            projection.close();
+        }
+        cluster.close();
+    }
+
+    @Test
+    void whenTailedThenQueried_thenAnsweredFromIndexes() throws Exception {
+        try (var projection = open()) {
+            awaitCount(projection, 5);
+
+            assertEquals(List.of(BigInteger.valueOf(200), BigInteger.valueOf(400)),
+                    amounts(projection.fetchTransfers(filter(7, 0, 0, false, null))));
+            assertEquals(List.of(BigInteger.valueOf(300)),
+                    amounts(projection.fetchTransfers(filter(0, 3, 0, false, null))));
+            assertEquals(List.of(BigInteger.valueOf(500), BigInteger.valueOf(300)),
+                    amounts(projection.fetchTransfers(filter(8, 0, 2, true, null))));
+            assertEquals(List.of(BigInteger.valueOf(500)),
+                    amounts(projection.fetchTransfers(filter(8, 0, 0, false, BigInteger.valueOf(400)))));
+        }
+    }
+
+    @Test
+    void whenReopened_thenResumesFromWatermark() throws Exception {
+        long watermark;
+        try (var projection = open()) {
+            awaitCount(projection, 5);
+            watermark = projection.getWatermark();
+        }
+
+        try (var projection = open()) {
+            assertEquals(5, projection.getCount());
+            assertEquals(watermark, projection.getWatermark());
+            Thread.sleep(50);
+            assertEquals(5, projection.getCount());
+        }
+    }
+
+    private TransferProjection open() {
+        var projection = new TransferProjection(cluster, true, directory.toString(), 2, 10);
+        opened.add(projection);
+        return projection;
+    }
+
+    private static void awaitCount(TransferProjection projection, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && projection.getCount() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, projection.getCount());
+    }
+
+    private static BatchFilter filter(int code, long userData64, int limit, boolean reversed, BigInteger amountMin) {
+        return new BatchFilter(null, userData64, 0, code, 0, null, null, limit, reversed,
+                amountMin, null, 0, 0, null, null);
+    }
+
+    private static List<BigInteger> amounts(List<Transfer> transfers) {
+        return transfers.stream().map(Transfer::amount).toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.tigerbeetle.client.repository;
+
+import com.tigerbeetle.TransferFlags;
+import com.tigerbeetle.UInt128;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransferRecordsTest {
+
+    @Test
+    void whenDecodingRecords_thenFieldsFollowWireLayout() {
+        var buffer = ByteBuffer.allocate(2 * TransferRecords.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(0, 11).putLong(8, 12);
+        buffer.putLong(16, 21).putLong(32, 31);
+        buffer.putLong(48, 500);
+        buffer.putLong(96, -5).putInt(104, 42).putInt(108, 30).putInt(112, 1);
+        buffer.putShort(116, (short) 0xFFFF).putShort(118, (short) TransferFlags.PENDING);
+
+        var batch = TransferRecords.toBatch(buffer);
+
+        assertEquals(2, batch.getLength());
+        assertTrue(batch.next());
+        assertEquals(11, UInt128.asLong(batch.getId(), UInt128.LeastSignificant));
+        assertEquals(12, UInt128.asLong(batch.getId(), UInt128.MostSignificant));
+        assertEquals(21, UInt128.asLong(batch.getDebitAccountId(), UInt128.LeastSignificant));
+        assertEquals(31, UInt128.asLong(batch.getCreditAccountId(), UInt128.LeastSignificant));
+        assertEquals(500, batch.getAmount().longValueExact());
+        assertEquals(-5, batch.getUserData64());
+        assertEquals(42, batch.getUserData32());
+        assertEquals(30, batch.getTimeout());
+        assertEquals(1, batch.getLedger());
+        assertEquals(0xFFFF, batch.getCode());
+        assertEquals(TransferFlags.PENDING, batch.getFlags());
+
+        assertTrue(batch.next());
+        assertNotEquals(0, UInt128.asLong(batch.getId(), UInt128.LeastSignificant)
+                | UInt128.asLong(batch.getId(), UInt128.MostSignificant));
+    }
+
+    @Test
+    void whenLengthIsNotWholeRecords_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TransferRecords.toBatch(ByteBuffer.allocate(130)));
+    }
+}